@@ -0,0 +1,75 @@
+package fr.lalourche.hellojhipster.gateway.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import fr.lalourche.hellojhipster.gateway.domain.Ingredient;
+import fr.lalourche.hellojhipster.gateway.domain.Recipe;
+import fr.lalourche.hellojhipster.gateway.domain.Step;
+import fr.lalourche.hellojhipster.gateway.domain.enumeration.Cooking;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of writing a {@link Recipe} in JSON, CBOR and Smile, with and without a picture. The number of bytes written
+ * in each format is checked by {@code JacksonConfigurationTest}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CodecBenchmark {
+
+    @Param({ "0", "65536" })
+    private int pictureSize;
+
+    private ObjectMapper jsonMapper;
+    private ObjectMapper cborMapper;
+    private ObjectMapper smileMapper;
+    private Recipe recipe;
+
+    @Setup
+    public void setup() {
+        jsonMapper = new ObjectMapper();
+        cborMapper = new ObjectMapper(new CBORFactory());
+        smileMapper = new ObjectMapper(JacksonConfiguration.smileFactory());
+
+        byte[] picture = new byte[pictureSize];
+        new Random(42).nextBytes(picture);
+        recipe =
+            new Recipe()
+                .id(1L)
+                .version(3L)
+                .name("Pancakes")
+                .cooking(Cooking.WITH_COOKING)
+                .cookingTime(20.0)
+                .picture(pictureSize > 0 ? picture : null)
+                .pictureContentType(pictureSize > 0 ? "image/png" : null);
+        for (long i = 1; i <= 8; i++) {
+            recipe.addIngredients(new Ingredient().id(i).version(1L).name("Ingredient " + i));
+            recipe.addSteps(new Step().id(i).version(1L).action("Step " + i + " of the recipe"));
+        }
+    }
+
+    @Benchmark
+    public byte[] json() throws JsonProcessingException {
+        return jsonMapper.writeValueAsBytes(recipe);
+    }
+
+    @Benchmark
+    public byte[] cbor() throws JsonProcessingException {
+        return cborMapper.writeValueAsBytes(recipe);
+    }
+
+    @Benchmark
+    public byte[] smile() throws JsonProcessingException {
+        return smileMapper.writeValueAsBytes(recipe);
+    }
+}
@@ -0,0 +1,109 @@
+package fr.lalourche.hellojhipster.gateway.aop.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.core.support.AbstractRepositoryMetadata;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Aspect timing the queries of the Spring Data repositories.
+ * <p>
+ * Reactive queries are timed from their subscription to their termination, in the {@value #METRIC_NAME} timer, tagged
+ * by {@code entity}, {@code repository}, {@code operation} (the repository method) and {@code outcome}
+ * ({@code success}, {@code error} or {@code cancel}).
+ */
+@Aspect
+public class RepositoryMetricsAspect {
+
+    public static final String METRIC_NAME = "repository.queries";
+
+    private final MeterRegistry meterRegistry;
+
+    // the entity and repository names, by repository proxy class
+    private final Map<Class<?>, String[]> repositoryNames = new ConcurrentHashMap<>();
+
+    public RepositoryMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Pointcut that matches all the Spring Data repositories.
+     */
+    @Pointcut("target(org.springframework.data.repository.Repository)")
+    public void repositoryPointcut() {
+        // Method is empty as this is just a Pointcut, the implementations are in the advices.
+    }
+
+    /**
+     * Advice that times the queries of the repositories.
+     *
+     * @param joinPoint join point for advice.
+     * @return result.
+     * @throws Throwable if the repository method throws.
+     */
+    @Around("repositoryPointcut()")
+    public Object timeQuery(ProceedingJoinPoint joinPoint) throws Throwable {
+        String[] names = repositoryNames.computeIfAbsent(joinPoint.getTarget().getClass(), RepositoryMetricsAspect::getNames);
+        String operation = joinPoint.getSignature().getName();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            sample.stop(timer(names, operation, "error"));
+            throw e;
+        }
+        if (result instanceof Mono) {
+            return Mono.defer(
+                () -> {
+                    Timer.Sample querySample = Timer.start(meterRegistry);
+                    return ((Mono<?>) result).doFinally(signal -> querySample.stop(timer(names, operation, signal)));
+                }
+            );
+        }
+        if (result instanceof Flux) {
+            return Flux.defer(
+                () -> {
+                    Timer.Sample querySample = Timer.start(meterRegistry);
+                    return ((Flux<?>) result).doFinally(signal -> querySample.stop(timer(names, operation, signal)));
+                }
+            );
+        }
+        sample.stop(timer(names, operation, "success"));
+        return result;
+    }
+
+    private Timer timer(String[] names, String operation, SignalType signal) {
+        switch (signal) {
+            case ON_ERROR:
+                return timer(names, operation, "error");
+            case CANCEL:
+                return timer(names, operation, "cancel");
+            default:
+                return timer(names, operation, "success");
+        }
+    }
+
+    private Timer timer(String[] names, String operation, String outcome) {
+        return meterRegistry.timer(METRIC_NAME, "entity", names[0], "repository", names[1], "operation", operation, "outcome", outcome);
+    }
+
+    private static String[] getNames(Class<?> proxyClass) {
+        for (Class<?> repositoryInterface : proxyClass.getInterfaces()) {
+            if (Repository.class.isAssignableFrom(repositoryInterface) && repositoryInterface != Repository.class) {
+                Class<?> domainType = AbstractRepositoryMetadata.getMetadata(repositoryInterface).getDomainType();
+                return new String[] { domainType.getSimpleName(), repositoryInterface.getSimpleName() };
+            }
+        }
+        return new String[] { "unknown", proxyClass.getSimpleName() };
+    }
+}
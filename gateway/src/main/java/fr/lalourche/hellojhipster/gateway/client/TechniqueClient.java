@@ -0,0 +1,61 @@
+package fr.lalourche.hellojhipster.gateway.client;
+
+import fr.lalourche.hellojhipster.gateway.service.dto.TechniqueDTO;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import org.springframework.cloud.client.loadbalancer.reactive.ReactorLoadBalancerExchangeFilterFunction;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+/**
+ * Client of the techniques service, found through the service discovery, called with the token of the current user.
+ */
+@Component
+public class TechniqueClient {
+
+    public static final String SERVICE_ID = "techniques";
+
+    private final WebClient webClient;
+
+    public TechniqueClient(WebClient.Builder webClientBuilder, ReactorLoadBalancerExchangeFilterFunction loadBalancerFunction) {
+        this.webClient = webClientBuilder.baseUrl("http://" + SERVICE_ID).filter(loadBalancerFunction).build();
+    }
+
+    /**
+     * Searches the techniques whose description contains any of the given texts.
+     *
+     * @param texts the texts, matched as phrases.
+     * @return the matching techniques, most relevant first.
+     */
+    public Flux<TechniqueDTO> searchByDescription(Collection<String> texts) {
+        String query = texts.stream().map(TechniqueClient::phrase).collect(Collectors.joining(" OR ", "description:(", ")"));
+        return ReactiveSecurityContextHolder
+            .getContext()
+            .map(SecurityContext::getAuthentication)
+            .map(Authentication::getCredentials)
+            .filter(String.class::isInstance)
+            .map(token -> Optional.of((String) token))
+            .defaultIfEmpty(Optional.empty())
+            .flatMapMany(
+                token ->
+                    webClient
+                        .get()
+                        .uri(uri -> uri.path("/api/_search/techniques").queryParam("query", "{query}").build(query))
+                        .headers(headers -> token.ifPresent(headers::setBearerAuth))
+                        .accept(MediaType.APPLICATION_JSON)
+                        .retrieve()
+                        .bodyToFlux(TechniqueDTO.class)
+            );
+    }
+
+    // quoted, so the text isn't parsed as a query
+    private static String phrase(String text) {
+        return '"' + text.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+}
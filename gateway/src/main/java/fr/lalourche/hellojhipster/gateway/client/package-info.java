@@ -0,0 +1,4 @@
+/**
+ * Clients of the microservices.
+ */
+package fr.lalourche.hellojhipster.gateway.client;
@@ -1,6 +1,8 @@
 package fr.lalourche.hellojhipster.gateway.config;
 
+import java.time.Duration;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
 
 /**
  * Properties specific to Gateway.
@@ -9,4 +11,286 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  * See {@link tech.jhipster.config.JHipsterProperties} for a good example.
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
-public class ApplicationProperties {}
+public class ApplicationProperties {
+
+    private final Bulk bulk = new Bulk();
+
+    private final EntityTag entityTag = new EntityTag();
+
+    private final RecipeView recipeView = new RecipeView();
+
+    private final ResponseCache responseCache = new ResponseCache();
+
+    private final RateLimit rateLimit = new RateLimit();
+
+    private final PasswordHashing passwordHashing = new PasswordHashing();
+
+    private final UserCache userCache = new UserCache();
+
+    private final IngredientIndex ingredientIndex = new IngredientIndex();
+
+    public Bulk getBulk() {
+        return bulk;
+    }
+
+    public EntityTag getEntityTag() {
+        return entityTag;
+    }
+
+    public RecipeView getRecipeView() {
+        return recipeView;
+    }
+
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    public RateLimit getRateLimit() {
+        return rateLimit;
+    }
+
+    public PasswordHashing getPasswordHashing() {
+        return passwordHashing;
+    }
+
+    public UserCache getUserCache() {
+        return userCache;
+    }
+
+    public IngredientIndex getIngredientIndex() {
+        return ingredientIndex;
+    }
+
+    public static class Bulk {
+
+        /**
+         * Number of entities written in a single transaction, and indexed in a single Elasticsearch bulk request.
+         */
+        private int batchSize = 1000;
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+    }
+
+    public static class EntityTag {
+
+        /**
+         * Maximum number of entity tags kept in memory per entity, beyond which they are all evicted.
+         */
+        private int maxEntries = 10000;
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+    }
+
+    public static class RecipeView {
+
+        /**
+         * Time given to each database read of the full view of a recipe.
+         */
+        private Duration databaseTimeout = Duration.ofSeconds(2);
+
+        /**
+         * Time given to the search of the techniques related to a recipe, which are left out of its view past it.
+         */
+        private Duration searchTimeout = Duration.ofMillis(500);
+
+        /**
+         * Maximum number of techniques in the view of a recipe.
+         */
+        private int maxTechniques = 10;
+
+        public Duration getDatabaseTimeout() {
+            return databaseTimeout;
+        }
+
+        public void setDatabaseTimeout(Duration databaseTimeout) {
+            this.databaseTimeout = databaseTimeout;
+        }
+
+        public Duration getSearchTimeout() {
+            return searchTimeout;
+        }
+
+        public void setSearchTimeout(Duration searchTimeout) {
+            this.searchTimeout = searchTimeout;
+        }
+
+        public int getMaxTechniques() {
+            return maxTechniques;
+        }
+
+        public void setMaxTechniques(int maxTechniques) {
+            this.maxTechniques = maxTechniques;
+        }
+    }
+
+    public static class ResponseCache {
+
+        /**
+         * Maximum number of responses kept in memory per route, beyond which they are all evicted.
+         */
+        private int maxEntries = 1000;
+
+        /**
+         * Maximum size of the body of a cached response, larger responses being only proxied.
+         */
+        private DataSize maxEntrySize = DataSize.ofKilobytes(256);
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public DataSize getMaxEntrySize() {
+            return maxEntrySize;
+        }
+
+        public void setMaxEntrySize(DataSize maxEntrySize) {
+            this.maxEntrySize = maxEntrySize;
+        }
+    }
+
+    public static class RateLimit {
+
+        /**
+         * Number of requests per second a client may make on a route, unless the route sets its own limits.
+         */
+        private int replenishRate = 50;
+
+        /**
+         * Number of requests a client may make at once on a route, unless the route sets its own limits.
+         */
+        private int burstCapacity = 100;
+
+        /**
+         * Maximum number of clients tracked per route, beyond which the clients which haven't made requests lately are
+         * forgotten.
+         */
+        private int maxClients = 100000;
+
+        public int getReplenishRate() {
+            return replenishRate;
+        }
+
+        public void setReplenishRate(int replenishRate) {
+            this.replenishRate = replenishRate;
+        }
+
+        public int getBurstCapacity() {
+            return burstCapacity;
+        }
+
+        public void setBurstCapacity(int burstCapacity) {
+            this.burstCapacity = burstCapacity;
+        }
+
+        public int getMaxClients() {
+            return maxClients;
+        }
+
+        public void setMaxClients(int maxClients) {
+            this.maxClients = maxClients;
+        }
+    }
+
+    public static class PasswordHashing {
+
+        /**
+         * Number of threads hashing and checking passwords.
+         */
+        private int threads = 4;
+
+        /**
+         * Maximum number of passwords waiting to be hashed or checked, beyond which the requests are rejected.
+         */
+        private int queueCapacity = 100;
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+    }
+
+    public static class UserCache {
+
+        /**
+         * Time a user with its authorities is kept in memory, zero disabling the cache.
+         */
+        private Duration timeToLive = Duration.ofSeconds(10);
+
+        /**
+         * Maximum number of users kept in memory, beyond which they are all evicted.
+         */
+        private int maxEntries = 10000;
+
+        public Duration getTimeToLive() {
+            return timeToLive;
+        }
+
+        public void setTimeToLive(Duration timeToLive) {
+            this.timeToLive = timeToLive;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+    }
+
+    public static class IngredientIndex {
+
+        /**
+         * Time a match waits for the index to be loaded, before answering that it is unavailable.
+         */
+        private Duration loadTimeout = Duration.ofSeconds(5);
+
+        /**
+         * Maximum number of times the load of the index is retried, with an exponential backoff, before giving up.
+         */
+        private int maxLoadRetries = 10;
+
+        public Duration getLoadTimeout() {
+            return loadTimeout;
+        }
+
+        public void setLoadTimeout(Duration loadTimeout) {
+            this.loadTimeout = loadTimeout;
+        }
+
+        public int getMaxLoadRetries() {
+            return maxLoadRetries;
+        }
+
+        public void setMaxLoadRetries(int maxLoadRetries) {
+            this.maxLoadRetries = maxLoadRetries;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package fr.lalourche.hellojhipster.gateway.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Map;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * CBOR encoder writing a {@link Flux} as an indefinite-length CBOR array, element by element, which the
+ * {@link Jackson2CborEncoder} doesn't support: like with the {@link JsonArrayStreamingEncoder}, the memory used to write
+ * a response doesn't depend on the number of elements.
+ * <p>
+ * Single values are encoded as usual.
+ */
+public class CborArrayStreamingEncoder extends Jackson2CborEncoder {
+
+    // an array (major type 4) of indefinite length, ended by the "break" stop code
+    private static final byte[] ARRAY_START = { (byte) 0x9F };
+    private static final byte[] ARRAY_END = { (byte) 0xFF };
+
+    public CborArrayStreamingEncoder(ObjectMapper mapper) {
+        super(mapper);
+    }
+
+    @Override
+    public Flux<DataBuffer> encode(
+        Publisher<?> inputStream,
+        DataBufferFactory bufferFactory,
+        ResolvableType elementType,
+        MimeType mimeType,
+        Map<String, Object> hints
+    ) {
+        if (inputStream instanceof Mono) {
+            return Mono.from(inputStream).map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints)).flux();
+        }
+        // each element is a complete CBOR data item, so the elements of the array are their encodings one after the other
+        Flux<DataBuffer> elements = Flux
+            .from(inputStream)
+            .map(element -> encodeValue(element, bufferFactory, elementType, mimeType, hints));
+        return Flux.concat(
+            Mono.fromSupplier(() -> bufferFactory.wrap(ARRAY_START)),
+            elements,
+            Mono.fromSupplier(() -> bufferFactory.wrap(ARRAY_END))
+        );
+    }
+}
@@ -0,0 +1,120 @@
+package fr.lalourche.hellojhipster.gateway.config;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import fr.lalourche.hellojhipster.gateway.aop.metrics.RepositoryMetricsAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.Wrapped;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+/**
+ * Metrics of the database access, exported with the other metrics on {@code /management/prometheus}.
+ * <p>
+ * The gauges of the R2DBC connection pool ({@code r2dbc.pool.acquired}, {@code r2dbc.pool.idle},
+ * {@code r2dbc.pool.pending}...) are registered by Spring Boot for the pool configured with {@code spring.r2dbc.pool}.
+ * This configuration adds the {@value #ACQUIRE_METRIC_NAME} timer, measuring how long it takes to get a connection from
+ * the pool, and the {@value RepositoryMetricsAspect#METRIC_NAME} timer, measuring the queries of each repository method.
+ */
+@Configuration
+@EnableAspectJAutoProxy
+public class DatabaseMetricsConfiguration {
+
+    public static final String ACQUIRE_METRIC_NAME = "r2dbc.pool.acquire";
+
+    @Bean
+    public RepositoryMetricsAspect repositoryMetricsAspect(MeterRegistry meterRegistry) {
+        return new RepositoryMetricsAspect(meterRegistry);
+    }
+
+    @Bean
+    public static BeanPostProcessor timedConnectionFactoryPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof ConnectionFactory && !(bean instanceof TimedConnectionFactory)) {
+                    return new TimedConnectionFactory((ConnectionFactory) bean, beanName, meterRegistry);
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * A {@link ConnectionFactory} timing the acquisition of its connections. It can be unwrapped, so Spring Boot still
+     * finds the pool it wraps to register its gauges, and disposes of the pool when it is disposed of.
+     */
+    static class TimedConnectionFactory implements ConnectionFactory, Wrapped<ConnectionFactory>, Disposable {
+
+        private final ConnectionFactory delegate;
+        private final String name;
+        private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+        private Timer timer;
+
+        TimedConnectionFactory(ConnectionFactory delegate, String name, ObjectProvider<MeterRegistry> meterRegistryProvider) {
+            this.delegate = delegate;
+            this.name = name;
+            this.meterRegistryProvider = meterRegistryProvider;
+        }
+
+        @Override
+        public Publisher<? extends Connection> create() {
+            return Mono.defer(
+                () -> {
+                    Timer acquireTimer = getTimer();
+                    long start = System.nanoTime();
+                    return Mono
+                        .from(delegate.create())
+                        .doOnSuccess(connection -> acquireTimer.record(System.nanoTime() - start, NANOSECONDS));
+                }
+            );
+        }
+
+        // the registry can't be injected in the post processor, which is created before it
+        private Timer getTimer() {
+            Timer acquireTimer = timer;
+            if (acquireTimer == null) {
+                acquireTimer =
+                    Timer
+                        .builder(ACQUIRE_METRIC_NAME)
+                        .description("Time to acquire a connection")
+                        .tag("name", name)
+                        .register(meterRegistryProvider.getObject());
+                timer = acquireTimer;
+            }
+            return acquireTimer;
+        }
+
+        @Override
+        public ConnectionFactoryMetadata getMetadata() {
+            return delegate.getMetadata();
+        }
+
+        @Override
+        public ConnectionFactory unwrap() {
+            return delegate;
+        }
+
+        @Override
+        public void dispose() {
+            if (delegate instanceof Disposable) {
+                ((Disposable) delegate).dispose();
+            }
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return delegate instanceof Disposable && ((Disposable) delegate).isDisposed();
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package fr.lalourche.hellojhipster.gateway.config;
 
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.springframework.context.annotation.Bean;
@@ -39,4 +41,13 @@ public class JacksonConfiguration {
     public ConstraintViolationProblemModule constraintViolationProblemModule() {
         return new ConstraintViolationProblemModule();
     }
+
+    /**
+     * Factory of the Smile mappers, writing the binary fields raw rather than 7-bit encoded, which Smile only needs to
+     * be embedded in text.
+     * @return the factory.
+     */
+    public static SmileFactory smileFactory() {
+        return SmileFactory.builder().disable(SmileGenerator.Feature.ENCODE_BINARY_AS_7BIT).build();
+    }
 }
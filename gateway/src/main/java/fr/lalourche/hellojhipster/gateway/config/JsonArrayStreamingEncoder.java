@@ -0,0 +1,62 @@
+package fr.lalourche.hellojhipster.gateway.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * JSON encoder writing a {@link Flux} as a JSON array, element by element, instead of collecting it into a
+ * {@link List} first: the memory used to write a response doesn't depend on the number of elements.
+ * <p>
+ * The streaming media types, such as {@code application/x-ndjson}, and single values are encoded as usual.
+ */
+public class JsonArrayStreamingEncoder extends Jackson2JsonEncoder {
+
+    private static final byte[] ARRAY_START = "[".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] SEPARATOR = ",".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] ARRAY_END = "]".getBytes(StandardCharsets.UTF_8);
+
+    public JsonArrayStreamingEncoder(ObjectMapper mapper) {
+        super(mapper);
+    }
+
+    @Override
+    public Flux<DataBuffer> encode(
+        Publisher<?> inputStream,
+        DataBufferFactory bufferFactory,
+        ResolvableType elementType,
+        MimeType mimeType,
+        Map<String, Object> hints
+    ) {
+        if (inputStream instanceof Mono || isStreamingMediaType(mimeType)) {
+            return super.encode(inputStream, bufferFactory, elementType, mimeType, hints);
+        }
+        Flux<DataBuffer> elements = Flux
+            .from(inputStream)
+            .index()
+            .concatMapIterable(
+                element -> {
+                    DataBuffer value = encodeValue(element.getT2(), bufferFactory, elementType, mimeType, hints);
+                    return element.getT1() == 0 ? List.of(value) : List.of(bufferFactory.wrap(SEPARATOR), value);
+                }
+            );
+        return Flux.concat(
+            Mono.fromSupplier(() -> bufferFactory.wrap(ARRAY_START)),
+            elements,
+            Mono.fromSupplier(() -> bufferFactory.wrap(ARRAY_END))
+        );
+    }
+
+    private boolean isStreamingMediaType(MimeType mimeType) {
+        return mimeType != null && getStreamingMediaTypes().stream().anyMatch(mimeType::isCompatibleWith);
+    }
+}
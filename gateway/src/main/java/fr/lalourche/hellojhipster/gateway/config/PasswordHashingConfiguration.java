@@ -0,0 +1,45 @@
+package fr.lalourche.hellojhipster.gateway.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Scheduler of the password hashing, for the logins and the changes of passwords.
+ * <p>
+ * BCrypt is slow by design, so the hashes are computed by a dedicated pool of {@code application.password-hashing.threads}
+ * threads rather than on the shared bounded elastic scheduler, where a burst of logins would starve the other blocking
+ * work. At most {@code queue-capacity} hashes wait for a thread; the following ones are rejected at once, and answered
+ * with {@code 503 (Service Unavailable)}.
+ * <p>
+ * The pool is monitored as the {@value #METRIC_NAME} executor: {@code executor.queued} is the depth of its queue,
+ * {@code executor.idle} the time waited in it and {@code executor} the time spent hashing.
+ */
+@Configuration
+public class PasswordHashingConfiguration {
+
+    public static final String SCHEDULER_NAME = "passwordHashingScheduler";
+
+    public static final String METRIC_NAME = "password.hashing";
+
+    @Bean(name = SCHEDULER_NAME, destroyMethod = "dispose")
+    public Scheduler passwordHashingScheduler(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        ApplicationProperties.PasswordHashing passwordHashing = applicationProperties.getPasswordHashing();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            passwordHashing.getThreads(),
+            passwordHashing.getThreads(),
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(passwordHashing.getQueueCapacity()),
+            new CustomizableThreadFactory("password-hashing-")
+        );
+        return Schedulers.fromExecutorService(ExecutorServiceMetrics.monitor(meterRegistry, executor, METRIC_NAME), METRIC_NAME);
+    }
+}
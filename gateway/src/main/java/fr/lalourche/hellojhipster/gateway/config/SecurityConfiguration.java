@@ -6,6 +6,7 @@ import fr.lalourche.hellojhipster.gateway.security.AuthoritiesConstants;
 import fr.lalourche.hellojhipster.gateway.security.jwt.JWTFilter;
 import fr.lalourche.hellojhipster.gateway.security.jwt.TokenProvider;
 import fr.lalourche.hellojhipster.gateway.web.filter.SpaWebFilter;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.HttpMethod;
@@ -23,6 +24,7 @@ import org.springframework.security.web.server.header.ReferrerPolicyServerHttpHe
 import org.springframework.security.web.server.util.matcher.NegatedServerWebExchangeMatcher;
 import org.springframework.security.web.server.util.matcher.OrServerWebExchangeMatcher;
 import org.zalando.problem.spring.webflux.advice.security.SecurityProblemSupport;
+import reactor.core.scheduler.Scheduler;
 import tech.jhipster.config.JHipsterProperties;
 
 @EnableWebFluxSecurity
@@ -38,16 +40,20 @@ public class SecurityConfiguration {
 
     private final SecurityProblemSupport problemSupport;
 
+    private final Scheduler passwordHashingScheduler;
+
     public SecurityConfiguration(
         ReactiveUserDetailsService userDetailsService,
         TokenProvider tokenProvider,
         JHipsterProperties jHipsterProperties,
-        SecurityProblemSupport problemSupport
+        SecurityProblemSupport problemSupport,
+        @Qualifier(PasswordHashingConfiguration.SCHEDULER_NAME) Scheduler passwordHashingScheduler
     ) {
         this.userDetailsService = userDetailsService;
         this.tokenProvider = tokenProvider;
         this.jHipsterProperties = jHipsterProperties;
         this.problemSupport = problemSupport;
+        this.passwordHashingScheduler = passwordHashingScheduler;
     }
 
     @Bean
@@ -61,6 +67,7 @@ public class SecurityConfiguration {
             userDetailsService
         );
         authenticationManager.setPasswordEncoder(passwordEncoder());
+        authenticationManager.setScheduler(passwordHashingScheduler);
         return authenticationManager;
     }
 
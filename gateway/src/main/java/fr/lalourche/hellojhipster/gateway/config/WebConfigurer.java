@@ -1,6 +1,8 @@
 package fr.lalourche.hellojhipster.gateway.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import fr.lalourche.hellojhipster.gateway.service.Keyset;
 import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,6 +15,11 @@ import org.springframework.core.env.Environment;
 import org.springframework.core.env.Profiles;
 import org.springframework.data.web.ReactivePageableHandlerMethodArgumentResolver;
 import org.springframework.data.web.ReactiveSortHandlerMethodArgumentResolver;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.util.CollectionUtils;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.reactive.CorsWebFilter;
@@ -37,13 +44,39 @@ public class WebConfigurer implements WebFluxConfigurer {
 
     private final JHipsterProperties jHipsterProperties;
 
-    public WebConfigurer(Environment env, JHipsterProperties jHipsterProperties) {
+    private final ObjectMapper objectMapper;
+
+    private final Jackson2ObjectMapperBuilder objectMapperBuilder;
+
+    public WebConfigurer(
+        Environment env,
+        JHipsterProperties jHipsterProperties,
+        ObjectMapper objectMapper,
+        Jackson2ObjectMapperBuilder objectMapperBuilder
+    ) {
         this.jHipsterProperties = jHipsterProperties;
+        this.objectMapper = objectMapper;
+        this.objectMapperBuilder = objectMapperBuilder;
         if (env.acceptsProfiles(Profiles.of(JHipsterConstants.SPRING_PROFILE_DEVELOPMENT))) {
             H2ConfigurationHelper.initH2Console();
         }
     }
 
+    @Override
+    public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+        // write the lists returned as a Flux without collecting them
+        configurer.defaultCodecs().jackson2JsonEncoder(new JsonArrayStreamingEncoder(objectMapper));
+
+        // CBOR and Smile, negotiated by the Accept header, with the configuration and modules of the JSON mapper: unlike
+        // JSON, they write the binary fields, such as the pictures of the recipes, as raw bytes rather than base64
+        ObjectMapper cborMapper = objectMapperBuilder.factory(new CBORFactory()).build();
+        configurer.customCodecs().register(new Jackson2CborDecoder(cborMapper));
+        configurer.customCodecs().register(new CborArrayStreamingEncoder(cborMapper));
+        ObjectMapper smileMapper = objectMapperBuilder.factory(JacksonConfiguration.smileFactory()).build();
+        configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smileMapper));
+        configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(smileMapper));
+    }
+
     @Bean
     public CorsWebFilter corsFilter() {
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -66,7 +99,9 @@ public class WebConfigurer implements WebFluxConfigurer {
     // TODO: remove when this is supported in spring-boot
     @Bean
     HandlerMethodArgumentResolver reactivePageableHandlerMethodArgumentResolver() {
-        return new ReactivePageableHandlerMethodArgumentResolver();
+        ReactivePageableHandlerMethodArgumentResolver resolver = new ReactivePageableHandlerMethodArgumentResolver();
+        resolver.setMaxPageSize(Keyset.MAX_SIZE);
+        return resolver;
     }
 
     // TODO: remove when this is supported in spring-boot
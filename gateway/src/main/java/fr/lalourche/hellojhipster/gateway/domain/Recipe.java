@@ -8,6 +8,7 @@ import java.util.Set;
 import javax.validation.constraints.*;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.Transient;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.elasticsearch.annotations.FieldType;
 import org.springframework.data.relational.core.mapping.Column;
 import org.springframework.data.relational.core.mapping.Table;
@@ -24,6 +25,10 @@ public class Recipe implements Serializable {
     @Id
     private Long id;
 
+    @Version
+    @Column("version")
+    private Long version;
+
     @NotNull(message = "must not be null")
     @Column("name")
     private String name;
@@ -65,6 +70,19 @@ public class Recipe implements Serializable {
         return this;
     }
 
+    public Long getVersion() {
+        return this.version;
+    }
+
+    public Recipe version(Long version) {
+        this.version = version;
+        return this;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getName() {
         return this.name;
     }
@@ -204,6 +222,7 @@ public class Recipe implements Serializable {
     public String toString() {
         return "Recipe{" +
             "id=" + getId() +
+            ", version=" + getVersion() +
             ", name='" + getName() + "'" +
             ", cooking='" + getCooking() + "'" +
             ", cookingTime=" + getCookingTime() +
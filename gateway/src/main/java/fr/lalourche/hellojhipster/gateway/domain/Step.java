@@ -7,6 +7,7 @@ import java.util.Set;
 import javax.validation.constraints.*;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.Transient;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.elasticsearch.annotations.FieldType;
 import org.springframework.data.relational.core.mapping.Column;
 import org.springframework.data.relational.core.mapping.Table;
@@ -23,6 +24,10 @@ public class Step implements Serializable {
     @Id
     private Long id;
 
+    @Version
+    @Column("version")
+    private Long version;
+
     @NotNull(message = "must not be null")
     @Column("action")
     private String action;
@@ -45,6 +50,19 @@ public class Step implements Serializable {
         return this;
     }
 
+    public Long getVersion() {
+        return this.version;
+    }
+
+    public Step version(Long version) {
+        this.version = version;
+        return this;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getAction() {
         return this.action;
     }
@@ -113,6 +131,7 @@ public class Step implements Serializable {
     public String toString() {
         return "Step{" +
             "id=" + getId() +
+            ", version=" + getVersion() +
             ", action='" + getAction() + "'" +
             "}";
     }
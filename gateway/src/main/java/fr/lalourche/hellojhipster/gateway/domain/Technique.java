@@ -4,6 +4,7 @@ import java.io.Serializable;
 import javax.validation.constraints.*;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.Transient;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.elasticsearch.annotations.FieldType;
 import org.springframework.data.relational.core.mapping.Column;
 import org.springframework.data.relational.core.mapping.Table;
@@ -20,6 +21,10 @@ public class Technique implements Serializable {
     @Id
     private Long id;
 
+    @Version
+    @Column("version")
+    private Long version;
+
     @NotNull(message = "must not be null")
     @Column("description")
     private String description;
@@ -38,6 +43,19 @@ public class Technique implements Serializable {
         return this;
     }
 
+    public Long getVersion() {
+        return this.version;
+    }
+
+    public Technique version(Long version) {
+        this.version = version;
+        return this;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getDescription() {
         return this.description;
     }
@@ -75,6 +93,7 @@ public class Technique implements Serializable {
     public String toString() {
         return "Technique{" +
             "id=" + getId() +
+            ", version=" + getVersion() +
             ", description='" + getDescription() + "'" +
             "}";
     }
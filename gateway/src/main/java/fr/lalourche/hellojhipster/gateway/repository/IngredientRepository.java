@@ -1,6 +1,10 @@
 package fr.lalourche.hellojhipster.gateway.repository;
 
 import fr.lalourche.hellojhipster.gateway.domain.Ingredient;
+import fr.lalourche.hellojhipster.gateway.service.Keyset;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
@@ -24,15 +28,28 @@ public interface IngredientRepository extends R2dbcRepository<Ingredient, Long>,
 
     @Override
     <S extends Ingredient> Mono<S> save(S entity);
+
+    @Override
+    Mono<Void> deleteById(Long id);
 }
 
 interface IngredientRepositoryInternal {
     <S extends Ingredient> Mono<S> insert(S entity);
     <S extends Ingredient> Mono<S> save(S entity);
+    // bulk creation: the entities are inserted with a single statement, executed once per entity
+    Flux<Ingredient> insertAll(List<Ingredient> entities);
     Mono<Integer> update(Ingredient entity);
+    // PATCH: only the non null fields are written, the relationships being left untouched
+    Mono<Ingredient> partialUpdate(Ingredient patch);
 
     Flux<Ingredient> findAll();
     Mono<Ingredient> findById(Long id);
     Flux<Ingredient> findAllBy(Pageable pageable);
     Flux<Ingredient> findAllBy(Pageable pageable, Criteria criteria);
+    Flux<Ingredient> findAllBy(Keyset keyset);
+
+    // Sparse fieldsets: only the columns of the given fields are selected, the rows being read as maps by field name
+    Flux<Map<String, Object>> findAllFieldsBy(Pageable pageable, Set<String> fields);
+
+    Mono<Void> deleteById(Long id);
 }
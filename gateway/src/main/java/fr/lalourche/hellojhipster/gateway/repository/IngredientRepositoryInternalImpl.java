@@ -5,7 +5,10 @@ import static org.springframework.data.relational.core.query.Query.query;
 
 import fr.lalourche.hellojhipster.gateway.domain.Ingredient;
 import fr.lalourche.hellojhipster.gateway.repository.rowmapper.IngredientRowMapper;
+import fr.lalourche.hellojhipster.gateway.repository.rowmapper.RowFields;
 import fr.lalourche.hellojhipster.gateway.service.EntityManager;
+import fr.lalourche.hellojhipster.gateway.service.Keyset;
+import fr.lalourche.hellojhipster.gateway.service.RecipeIngredientIndex;
 import io.r2dbc.spi.Row;
 import io.r2dbc.spi.RowMetadata;
 import java.util.ArrayList;
@@ -13,6 +16,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.BiFunction;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
@@ -39,17 +43,22 @@ class IngredientRepositoryInternalImpl implements IngredientRepositoryInternal {
 
     private final IngredientRowMapper ingredientMapper;
 
+    private final RecipeIngredientIndex recipeIngredientIndex;
+
     private static final Table entityTable = Table.aliased("ingredient", EntityManager.ENTITY_ALIAS);
+    private static final List<Expression> columns = IngredientSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
 
     public IngredientRepositoryInternalImpl(
         R2dbcEntityTemplate template,
         EntityManager entityManager,
-        IngredientRowMapper ingredientMapper
+        IngredientRowMapper ingredientMapper,
+        RecipeIngredientIndex recipeIngredientIndex
     ) {
         this.db = template.getDatabaseClient();
         this.r2dbcEntityTemplate = template;
         this.entityManager = entityManager;
         this.ingredientMapper = ingredientMapper;
+        this.recipeIngredientIndex = recipeIngredientIndex;
     }
 
     @Override
@@ -62,27 +71,23 @@ class IngredientRepositoryInternalImpl implements IngredientRepositoryInternal {
         return createQuery(pageable, criteria).all();
     }
 
+    @Override
+    public Flux<Ingredient> findAllBy(Keyset keyset) {
+        return db.sql(entityManager.createSelect(entityTable, columns, Ingredient.class, keyset, null)).map(this::process).all();
+    }
+
+    @Override
+    public Flux<Map<String, Object>> findAllFieldsBy(Pageable pageable, Set<String> fields) {
+        RowFields rowFields = ingredientMapper.fields(fields);
+        List<Expression> fieldColumns = rowFields.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
+        return db
+            .sql(entityManager.createSelect(entityTable, fieldColumns, Ingredient.class, pageable, null))
+            .map((row, metadata) -> rowFields.read(row, EntityManager.ENTITY_ALIAS))
+            .all();
+    }
+
     RowsFetchSpec<Ingredient> createQuery(Pageable pageable, Criteria criteria) {
-        List<Expression> columns = IngredientSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
-        SelectFromAndJoin selectFrom = Select.builder().select(columns).from(entityTable);
-
-        String select = entityManager.createSelect(selectFrom, Ingredient.class, pageable, criteria);
-        String alias = entityTable.getReferenceName().getReference();
-        String selectWhere = Optional
-            .ofNullable(criteria)
-            .map(
-                crit ->
-                    new StringBuilder(select)
-                        .append(" ")
-                        .append("WHERE")
-                        .append(" ")
-                        .append(alias)
-                        .append(".")
-                        .append(crit.toString())
-                        .toString()
-            )
-            .orElse(select); // TODO remove once https://github.com/spring-projects/spring-data-jdbc/issues/907 will be fixed
-        return db.sql(selectWhere).map(this::process);
+        return db.sql(entityManager.createSelect(entityTable, columns, Ingredient.class, pageable, criteria)).map(this::process);
     }
 
     @Override
@@ -110,22 +115,32 @@ class IngredientRepositoryInternalImpl implements IngredientRepositoryInternal {
         if (entity.getId() == null) {
             return insert(entity);
         } else {
-            return update(entity)
-                .map(
-                    numberOfUpdates -> {
-                        if (numberOfUpdates.intValue() <= 0) {
-                            throw new IllegalStateException("Unable to update Ingredient with id = " + entity.getId());
-                        }
-                        return entity;
-                    }
-                );
+            return update(entity).flatMap(numberOfUpdates -> entityManager.requireUpdated(entity, numberOfUpdates));
         }
     }
 
+    @Override
+    public Flux<Ingredient> insertAll(List<Ingredient> entities) {
+        return entityManager.insertAll(entities);
+    }
+
     @Override
     public Mono<Integer> update(Ingredient entity) {
-        //fixme is this the proper way?
-        return r2dbcEntityTemplate.update(entity).thenReturn(1);
+        return entityManager.update(entity);
+    }
+
+    @Override
+    public Mono<Ingredient> partialUpdate(Ingredient patch) {
+        return entityManager.partialUpdate(patch);
+    }
+
+    @Override
+    public Mono<Void> deleteById(Long entityId) {
+        return r2dbcEntityTemplate
+            .delete(Ingredient.class)
+            .matching(query(where("id").is(entityId)))
+            .all()
+            .then(recipeIngredientIndex.removeIngredient(entityId));
     }
 }
 
@@ -134,6 +149,7 @@ class IngredientSqlHelper {
     static List<Expression> getColumns(Table table, String columnPrefix) {
         List<Expression> columns = new ArrayList<>();
         columns.add(Column.aliased("id", table, columnPrefix + "_id"));
+        columns.add(Column.aliased("version", table, columnPrefix + "_version"));
         columns.add(Column.aliased("name", table, columnPrefix + "_name"));
 
         return columns;
@@ -1,6 +1,13 @@
 package fr.lalourche.hellojhipster.gateway.repository;
 
+import fr.lalourche.hellojhipster.gateway.domain.Ingredient;
 import fr.lalourche.hellojhipster.gateway.domain.Recipe;
+import fr.lalourche.hellojhipster.gateway.domain.Step;
+import fr.lalourche.hellojhipster.gateway.service.Keyset;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
@@ -51,18 +58,43 @@ public interface RecipeRepository extends R2dbcRepository<Recipe, Long>, RecipeR
 interface RecipeRepositoryInternal {
     <S extends Recipe> Mono<S> insert(S entity);
     <S extends Recipe> Mono<S> save(S entity);
+    // bulk creation: the entities are inserted with a single statement, executed once per entity
+    Flux<Recipe> insertAll(List<Recipe> entities);
     Mono<Integer> update(Recipe entity);
+    // PATCH: only the non null fields are written, the relationships being left untouched
+    Mono<Recipe> partialUpdate(Recipe patch);
 
     Flux<Recipe> findAll();
     Mono<Recipe> findById(Long id);
     Flux<Recipe> findAllBy(Pageable pageable);
     Flux<Recipe> findAllBy(Pageable pageable, Criteria criteria);
+    Flux<Recipe> findAllBy(Keyset keyset);
+
+    // Summaries are recipes without their picture, which is only read when fetching a single recipe
+    Flux<Recipe> findAllSummaries();
+    Flux<Recipe> findAllSummariesBy(Pageable pageable);
+    Flux<Recipe> findAllSummariesBy(Keyset keyset);
+    Flux<Recipe> findAllSummariesById(Collection<Long> ids);
+
+    // Sparse fieldsets: only the columns of the given fields are selected, the rows being read as maps by field name,
+    // and the ingredients and steps are only fetched if they are some of the fields. Without a page, the ingredients and
+    // steps are read while the recipes are streamed, which can't be done inside a transaction
+    Flux<Map<String, Object>> findAllFieldsBy(Pageable pageable, Set<String> fields);
 
     Mono<Recipe> findOneWithEagerRelationships(Long id);
 
+    // Listings with eager relationships are made of summaries. The unpaged listing reads the ingredients and steps while
+    // the recipes are streamed, which can't be done inside a transaction
     Flux<Recipe> findAllWithEagerRelationships();
 
     Flux<Recipe> findAllWithEagerRelationships(Pageable page);
 
+    Flux<Recipe> findAllWithEagerRelationships(Keyset keyset);
+
+    // The relationships of a single recipe, read on their own so they can be read concurrently with the recipe
+    Flux<Ingredient> findAllIngredientsOf(Long id);
+
+    Flux<Step> findAllStepsOf(Long id);
+
     Mono<Void> deleteById(Long id);
 }
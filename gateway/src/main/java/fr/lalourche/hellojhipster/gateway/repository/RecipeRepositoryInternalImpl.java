@@ -7,17 +7,29 @@ import fr.lalourche.hellojhipster.gateway.domain.Ingredient;
 import fr.lalourche.hellojhipster.gateway.domain.Recipe;
 import fr.lalourche.hellojhipster.gateway.domain.Step;
 import fr.lalourche.hellojhipster.gateway.domain.enumeration.Cooking;
+import fr.lalourche.hellojhipster.gateway.repository.rowmapper.IngredientRowMapper;
 import fr.lalourche.hellojhipster.gateway.repository.rowmapper.RecipeRowMapper;
+import fr.lalourche.hellojhipster.gateway.repository.rowmapper.RowFields;
+import fr.lalourche.hellojhipster.gateway.repository.rowmapper.StepRowMapper;
 import fr.lalourche.hellojhipster.gateway.service.EntityManager;
 import fr.lalourche.hellojhipster.gateway.service.EntityManager.LinkTable;
+import fr.lalourche.hellojhipster.gateway.service.Keyset;
+import fr.lalourche.hellojhipster.gateway.service.RecipeIngredientIndex;
 import io.r2dbc.spi.Row;
 import io.r2dbc.spi.RowMetadata;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.data.relational.core.query.Criteria;
@@ -30,6 +42,7 @@ import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.r2dbc.core.RowsFetchSpec;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuples;
 
 /**
  * Spring Data SQL reactive custom repository implementation for the Recipe entity.
@@ -40,19 +53,54 @@ class RecipeRepositoryInternalImpl implements RecipeRepositoryInternal {
     private final DatabaseClient db;
     private final R2dbcEntityTemplate r2dbcEntityTemplate;
     private final EntityManager entityManager;
+    private final RecipeIngredientIndex recipeIngredientIndex;
 
     private final RecipeRowMapper recipeMapper;
+    private final IngredientRowMapper ingredientMapper;
+    private final StepRowMapper stepMapper;
 
     private static final Table entityTable = Table.aliased("recipe", EntityManager.ENTITY_ALIAS);
+    private static final List<Expression> columns = RecipeSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
+    private static final List<Expression> summaryColumns = RecipeSqlHelper.getSummaryColumns(entityTable, EntityManager.ENTITY_ALIAS);
+    private static final Table ingredientTable = Table.aliased("ingredient", EntityManager.ENTITY_ALIAS);
+    private static final Table stepTable = Table.aliased("step", EntityManager.ENTITY_ALIAS);
+
+    private static final String ID_FIELD = "id";
+    private static final String INGREDIENTS_FIELD = "ingredients";
+    private static final String STEPS_FIELD = "steps";
+
+    // Number of recipes whose relationships are fetched together, with one query per relationship
+    private static final int EAGER_FETCH_BATCH_SIZE = 1000;
 
     private static final EntityManager.LinkTable ingredientsLink = new LinkTable("rel_recipe__ingredients", "recipe_id", "ingredients_id");
     private static final EntityManager.LinkTable stepsLink = new LinkTable("rel_recipe__steps", "recipe_id", "steps_id");
 
-    public RecipeRepositoryInternalImpl(R2dbcEntityTemplate template, EntityManager entityManager, RecipeRowMapper recipeMapper) {
+    private final String ingredientsSelect;
+    private final String stepsSelect;
+
+    public RecipeRepositoryInternalImpl(
+        R2dbcEntityTemplate template,
+        EntityManager entityManager,
+        RecipeIngredientIndex recipeIngredientIndex,
+        RecipeRowMapper recipeMapper,
+        IngredientRowMapper ingredientMapper,
+        StepRowMapper stepMapper
+    ) {
         this.db = template.getDatabaseClient();
         this.r2dbcEntityTemplate = template;
         this.entityManager = entityManager;
+        this.recipeIngredientIndex = recipeIngredientIndex;
         this.recipeMapper = recipeMapper;
+        this.ingredientMapper = ingredientMapper;
+        this.stepMapper = stepMapper;
+        this.ingredientsSelect =
+            entityManager.createLinkedSelect(
+                ingredientsLink,
+                ingredientTable,
+                IngredientSqlHelper.getColumns(ingredientTable, EntityManager.ENTITY_ALIAS)
+            );
+        this.stepsSelect =
+            entityManager.createLinkedSelect(stepsLink, stepTable, StepSqlHelper.getColumns(stepTable, EntityManager.ENTITY_ALIAS));
     }
 
     @Override
@@ -65,27 +113,68 @@ class RecipeRepositoryInternalImpl implements RecipeRepositoryInternal {
         return createQuery(pageable, criteria).all();
     }
 
+    @Override
+    public Flux<Recipe> findAllBy(Keyset keyset) {
+        return db.sql(entityManager.createSelect(entityTable, columns, Recipe.class, keyset, null)).map(this::process).all();
+    }
+
+    @Override
+    public Flux<Recipe> findAllSummaries() {
+        return findAllSummariesBy((Pageable) null);
+    }
+
+    @Override
+    public Flux<Recipe> findAllSummariesBy(Pageable pageable) {
+        return createQuery(pageable, null, summaryColumns, this::processSummary).all();
+    }
+
+    @Override
+    public Flux<Recipe> findAllSummariesBy(Keyset keyset) {
+        return db.sql(entityManager.createSelect(entityTable, summaryColumns, Recipe.class, keyset, null)).map(this::processSummary).all();
+    }
+
+    @Override
+    public Flux<Recipe> findAllSummariesById(Collection<Long> ids) {
+        return createQuery(null, where("id").in(ids), summaryColumns, this::processSummary).all();
+    }
+
+    @Override
+    public Flux<Map<String, Object>> findAllFieldsBy(Pageable pageable, Set<String> fields) {
+        Set<String> columnFields = new LinkedHashSet<>(fields);
+        boolean withIngredients = columnFields.remove(INGREDIENTS_FIELD);
+        boolean withSteps = columnFields.remove(STEPS_FIELD);
+        if ((withIngredients || withSteps) && !columnFields.contains(ID_FIELD)) {
+            throw new IllegalArgumentException("The relationships of the recipes can't be read without their id");
+        }
+        RowFields rowFields = recipeMapper.fields(columnFields);
+        List<Expression> fieldColumns = rowFields.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
+        Flux<Map<String, Object>> recipes = db
+            .sql(entityManager.createSelect(entityTable, fieldColumns, Recipe.class, pageable, null))
+            .map((row, metadata) -> rowFields.read(row, EntityManager.ENTITY_ALIAS))
+            .all();
+        if (!withIngredients && !withSteps) {
+            return recipes;
+        }
+        if (pageable != null) {
+            recipes = recipes.collectList().flatMapIterable(Function.identity());
+        }
+        return recipes.buffer(EAGER_FETCH_BATCH_SIZE).concatMap(batch -> fetchRelationships(batch, withIngredients, withSteps));
+    }
+
     RowsFetchSpec<Recipe> createQuery(Pageable pageable, Criteria criteria) {
-        List<Expression> columns = RecipeSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
-        SelectFromAndJoin selectFrom = Select.builder().select(columns).from(entityTable);
-
-        String select = entityManager.createSelect(selectFrom, Recipe.class, pageable, criteria);
-        String alias = entityTable.getReferenceName().getReference();
-        String selectWhere = Optional
-            .ofNullable(criteria)
-            .map(
-                crit ->
-                    new StringBuilder(select)
-                        .append(" ")
-                        .append("WHERE")
-                        .append(" ")
-                        .append(alias)
-                        .append(".")
-                        .append(crit.toString())
-                        .toString()
-            )
-            .orElse(select); // TODO remove once https://github.com/spring-projects/spring-data-jdbc/issues/907 will be fixed
-        return db.sql(selectWhere).map(this::process);
+        return createQuery(pageable, criteria, columns, this::process);
+    }
+
+    /**
+     * Creates a query selecting only the given columns, which the mapper must not read past.
+     */
+    RowsFetchSpec<Recipe> createQuery(
+        Pageable pageable,
+        Criteria criteria,
+        List<Expression> columns,
+        BiFunction<Row, RowMetadata, Recipe> mapper
+    ) {
+        return db.sql(entityManager.createSelect(entityTable, columns, Recipe.class, pageable, criteria)).map(mapper);
     }
 
     @Override
@@ -100,17 +189,116 @@ class RecipeRepositoryInternalImpl implements RecipeRepositoryInternal {
 
     @Override
     public Mono<Recipe> findOneWithEagerRelationships(Long id) {
-        return findById(id);
+        return fetchRelationships(findById(id).flux()).next();
     }
 
     @Override
     public Flux<Recipe> findAllWithEagerRelationships() {
-        return findAll();
+        return streamRelationships(findAllSummaries());
     }
 
     @Override
     public Flux<Recipe> findAllWithEagerRelationships(Pageable page) {
-        return findAllBy(page);
+        return fetchRelationships(findAllSummariesBy(page));
+    }
+
+    @Override
+    public Flux<Recipe> findAllWithEagerRelationships(Keyset keyset) {
+        return fetchRelationships(findAllSummariesBy(keyset));
+    }
+
+    @Override
+    public Flux<Ingredient> findAllIngredientsOf(Long id) {
+        return db
+            .sql(ingredientsSelect)
+            .bind(EntityManager.LINK_OWNER_IDS, List.of(id))
+            .map((row, metadata) -> ingredientMapper.apply(row, "e"))
+            .all();
+    }
+
+    @Override
+    public Flux<Step> findAllStepsOf(Long id) {
+        return db.sql(stepsSelect).bind(EntityManager.LINK_OWNER_IDS, List.of(id)).map((row, metadata) -> stepMapper.apply(row, "e")).all();
+    }
+
+    /**
+     * Populates the ingredients and steps of the given recipes. The recipes are read up front, as a transaction
+     * runs its statements one after the other on a single connection, then processed in batches of
+     * {@link #EAGER_FETCH_BATCH_SIZE}, each batch costing one query per relationship, whatever its size.
+     */
+    private Flux<Recipe> fetchRelationships(Flux<Recipe> recipes) {
+        return recipes
+            .collectList()
+            .flatMapMany(list -> Flux.fromIterable(list).buffer(EAGER_FETCH_BATCH_SIZE))
+            .concatMap(this::fetchRelationships);
+    }
+
+    /**
+     * Populates the ingredients and steps of the given recipes while they are read, which keeps unbounded listings
+     * out of memory but needs a connection per statement: it must not be subscribed to inside a transaction.
+     */
+    private Flux<Recipe> streamRelationships(Flux<Recipe> recipes) {
+        return recipes.buffer(EAGER_FETCH_BATCH_SIZE).concatMap(this::fetchRelationships);
+    }
+
+    private Flux<Recipe> fetchRelationships(List<Recipe> recipes) {
+        Map<Long, Recipe> recipesById = new HashMap<>();
+        recipes.forEach(recipe -> recipesById.put(recipe.getId(), recipe));
+        List<Long> ids = new ArrayList<>(recipesById.keySet());
+
+        Mono<Void> ingredients = fetchIngredients(ids, (id, ingredient) -> recipesById.get(id).getIngredients().add(ingredient));
+        Mono<Void> steps = fetchSteps(ids, (id, step) -> recipesById.get(id).getSteps().add(step));
+        return ingredients.then(steps).thenMany(Flux.fromIterable(recipes));
+    }
+
+    /**
+     * Populates the ingredients and/or steps of the given recipes, read as maps by field name, the same way as
+     * {@link #fetchRelationships(List)}.
+     */
+    private Flux<Map<String, Object>> fetchRelationships(List<Map<String, Object>> recipes, boolean withIngredients, boolean withSteps) {
+        Map<Long, List<Ingredient>> ingredientsById = new HashMap<>();
+        Map<Long, List<Step>> stepsById = new HashMap<>();
+        for (Map<String, Object> recipe : recipes) {
+            Long id = (Long) recipe.get(ID_FIELD);
+            if (withIngredients) {
+                List<Ingredient> ingredients = new ArrayList<>();
+                ingredientsById.put(id, ingredients);
+                recipe.put(INGREDIENTS_FIELD, ingredients);
+            }
+            if (withSteps) {
+                List<Step> steps = new ArrayList<>();
+                stepsById.put(id, steps);
+                recipe.put(STEPS_FIELD, steps);
+            }
+        }
+
+        Mono<Void> ingredients = withIngredients
+            ? fetchIngredients(new ArrayList<>(ingredientsById.keySet()), (id, ingredient) -> ingredientsById.get(id).add(ingredient))
+            : Mono.empty();
+        Mono<Void> steps = withSteps
+            ? fetchSteps(new ArrayList<>(stepsById.keySet()), (id, step) -> stepsById.get(id).add(step))
+            : Mono.empty();
+        return ingredients.then(steps).thenMany(Flux.fromIterable(recipes));
+    }
+
+    private Mono<Void> fetchIngredients(List<Long> recipeIds, BiConsumer<Long, Ingredient> consumer) {
+        return db
+            .sql(ingredientsSelect)
+            .bind(EntityManager.LINK_OWNER_IDS, recipeIds)
+            .map((row, metadata) -> Tuples.of(row.get(EntityManager.LINK_OWNER_ALIAS, Long.class), ingredientMapper.apply(row, "e")))
+            .all()
+            .doOnNext(link -> consumer.accept(link.getT1(), link.getT2()))
+            .then();
+    }
+
+    private Mono<Void> fetchSteps(List<Long> recipeIds, BiConsumer<Long, Step> consumer) {
+        return db
+            .sql(stepsSelect)
+            .bind(EntityManager.LINK_OWNER_IDS, recipeIds)
+            .map((row, metadata) -> Tuples.of(row.get(EntityManager.LINK_OWNER_ALIAS, Long.class), stepMapper.apply(row, "e")))
+            .all()
+            .doOnNext(link -> consumer.accept(link.getT1(), link.getT2()))
+            .then();
     }
 
     private Recipe process(Row row, RowMetadata metadata) {
@@ -118,6 +306,10 @@ class RecipeRepositoryInternalImpl implements RecipeRepositoryInternal {
         return entity;
     }
 
+    private Recipe processSummary(Row row, RowMetadata metadata) {
+        return recipeMapper.applySummary(row, "e");
+    }
+
     @Override
     public <S extends Recipe> Mono<S> insert(S entity) {
         return entityManager.insert(entity);
@@ -129,40 +321,83 @@ class RecipeRepositoryInternalImpl implements RecipeRepositoryInternal {
             return insert(entity).flatMap(savedEntity -> updateRelations(savedEntity));
         } else {
             return update(entity)
-                .map(
-                    numberOfUpdates -> {
-                        if (numberOfUpdates.intValue() <= 0) {
-                            throw new IllegalStateException("Unable to update Recipe with id = " + entity.getId());
-                        }
-                        return entity;
-                    }
-                )
-                .then(updateRelations(entity));
+                .flatMap(numberOfUpdates -> entityManager.requireUpdated(entity, numberOfUpdates))
+                .flatMap(this::updateRelations);
         }
     }
 
+    @Override
+    public Flux<Recipe> insertAll(List<Recipe> entities) {
+        return entityManager
+            .insertAll(entities)
+            .collectList()
+            .flatMapMany(
+                saved -> {
+                    // the links of all the new recipes are inserted together, one statement per link table
+                    List<Object[]> ingredientLinks = new ArrayList<>();
+                    List<Object[]> stepLinks = new ArrayList<>();
+                    for (Recipe recipe : saved) {
+                        recipe
+                            .getIngredients()
+                            .stream()
+                            .map(Ingredient::getId)
+                            .distinct()
+                            .forEach(ingredientId -> ingredientLinks.add(new Object[] { recipe.getId(), ingredientId }));
+                        recipe
+                            .getSteps()
+                            .stream()
+                            .map(Step::getId)
+                            .distinct()
+                            .forEach(stepId -> stepLinks.add(new Object[] { recipe.getId(), stepId }));
+                    }
+                    return entityManager
+                        .insertIntoLinkTable(ingredientsLink, ingredientLinks)
+                        .then(entityManager.insertIntoLinkTable(stepsLink, stepLinks))
+                        .thenMany(
+                            Flux
+                                .fromIterable(saved)
+                                .concatMap(
+                                    recipe ->
+                                        recipeIngredientIndex
+                                            .update(
+                                                recipe.getId(),
+                                                recipe.getIngredients().stream().map(Ingredient::getId).collect(Collectors.toList())
+                                            )
+                                            .thenReturn(recipe)
+                                )
+                        );
+                }
+            );
+    }
+
     @Override
     public Mono<Integer> update(Recipe entity) {
-        //fixme is this the proper way?
-        return r2dbcEntityTemplate.update(entity).thenReturn(1);
+        return entityManager.update(entity);
+    }
+
+    @Override
+    public Mono<Recipe> partialUpdate(Recipe patch) {
+        return entityManager.partialUpdate(patch);
     }
 
     @Override
     public Mono<Void> deleteById(Long entityId) {
         return deleteRelations(entityId)
-            .then(r2dbcEntityTemplate.delete(Recipe.class).matching(query(where("id").is(entityId))).all().then());
+            .then(r2dbcEntityTemplate.delete(Recipe.class).matching(query(where("id").is(entityId))).all().then())
+            .then(recipeIngredientIndex.remove(entityId));
     }
 
     protected <S extends Recipe> Mono<S> updateRelations(S entity) {
+        List<Long> ingredientIds = entity.getIngredients().stream().map(Ingredient::getId).collect(Collectors.toList());
         Mono<Void> result = entityManager
-            .updateLinkTable(ingredientsLink, entity.getId(), entity.getIngredients().stream().map(Ingredient::getId))
+            .updateLinkTable(ingredientsLink, entity.getId(), ingredientIds.stream())
+            .then(entityManager.updateLinkTable(stepsLink, entity.getId(), entity.getSteps().stream().map(Step::getId)))
             .then();
-        result = result.and(entityManager.updateLinkTable(stepsLink, entity.getId(), entity.getSteps().stream().map(Step::getId)));
-        return result.thenReturn(entity);
+        return result.then(recipeIngredientIndex.update(entity.getId(), ingredientIds)).thenReturn(entity);
     }
 
     protected Mono<Void> deleteRelations(Long entityId) {
-        return entityManager.deleteFromLinkTable(ingredientsLink, entityId).and(entityManager.deleteFromLinkTable(stepsLink, entityId));
+        return entityManager.deleteFromLinkTable(ingredientsLink, entityId).then(entityManager.deleteFromLinkTable(stepsLink, entityId));
     }
 }
 
@@ -171,6 +406,7 @@ class RecipeSqlHelper {
     static List<Expression> getColumns(Table table, String columnPrefix) {
         List<Expression> columns = new ArrayList<>();
         columns.add(Column.aliased("id", table, columnPrefix + "_id"));
+        columns.add(Column.aliased("version", table, columnPrefix + "_version"));
         columns.add(Column.aliased("name", table, columnPrefix + "_name"));
         columns.add(Column.aliased("cooking", table, columnPrefix + "_cooking"));
         columns.add(Column.aliased("cooking_time", table, columnPrefix + "_cooking_time"));
@@ -179,4 +415,20 @@ class RecipeSqlHelper {
 
         return columns;
     }
+
+    /**
+     * The columns of the summary projection, used by the listings: all but the picture blob, whose content type is
+     * kept to tell whether the recipe has a picture.
+     */
+    static List<Expression> getSummaryColumns(Table table, String columnPrefix) {
+        List<Expression> columns = new ArrayList<>();
+        columns.add(Column.aliased("id", table, columnPrefix + "_id"));
+        columns.add(Column.aliased("version", table, columnPrefix + "_version"));
+        columns.add(Column.aliased("name", table, columnPrefix + "_name"));
+        columns.add(Column.aliased("cooking", table, columnPrefix + "_cooking"));
+        columns.add(Column.aliased("cooking_time", table, columnPrefix + "_cooking_time"));
+        columns.add(Column.aliased("picture_content_type", table, columnPrefix + "_picture_content_type"));
+
+        return columns;
+    }
 }
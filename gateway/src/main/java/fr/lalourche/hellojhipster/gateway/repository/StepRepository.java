@@ -1,6 +1,10 @@
 package fr.lalourche.hellojhipster.gateway.repository;
 
 import fr.lalourche.hellojhipster.gateway.domain.Step;
+import fr.lalourche.hellojhipster.gateway.service.Keyset;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
@@ -29,10 +33,18 @@ public interface StepRepository extends R2dbcRepository<Step, Long>, StepReposit
 interface StepRepositoryInternal {
     <S extends Step> Mono<S> insert(S entity);
     <S extends Step> Mono<S> save(S entity);
+    // bulk creation: the entities are inserted with a single statement, executed once per entity
+    Flux<Step> insertAll(List<Step> entities);
     Mono<Integer> update(Step entity);
+    // PATCH: only the non null fields are written, the relationships being left untouched
+    Mono<Step> partialUpdate(Step patch);
 
     Flux<Step> findAll();
     Mono<Step> findById(Long id);
     Flux<Step> findAllBy(Pageable pageable);
     Flux<Step> findAllBy(Pageable pageable, Criteria criteria);
+    Flux<Step> findAllBy(Keyset keyset);
+
+    // Sparse fieldsets: only the columns of the given fields are selected, the rows being read as maps by field name
+    Flux<Map<String, Object>> findAllFieldsBy(Pageable pageable, Set<String> fields);
 }
@@ -4,8 +4,10 @@ import static org.springframework.data.relational.core.query.Criteria.where;
 import static org.springframework.data.relational.core.query.Query.query;
 
 import fr.lalourche.hellojhipster.gateway.domain.Step;
+import fr.lalourche.hellojhipster.gateway.repository.rowmapper.RowFields;
 import fr.lalourche.hellojhipster.gateway.repository.rowmapper.StepRowMapper;
 import fr.lalourche.hellojhipster.gateway.service.EntityManager;
+import fr.lalourche.hellojhipster.gateway.service.Keyset;
 import io.r2dbc.spi.Row;
 import io.r2dbc.spi.RowMetadata;
 import java.util.ArrayList;
@@ -13,6 +15,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.BiFunction;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
@@ -40,6 +43,7 @@ class StepRepositoryInternalImpl implements StepRepositoryInternal {
     private final StepRowMapper stepMapper;
 
     private static final Table entityTable = Table.aliased("step", EntityManager.ENTITY_ALIAS);
+    private static final List<Expression> columns = StepSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
 
     public StepRepositoryInternalImpl(R2dbcEntityTemplate template, EntityManager entityManager, StepRowMapper stepMapper) {
         this.db = template.getDatabaseClient();
@@ -58,27 +62,23 @@ class StepRepositoryInternalImpl implements StepRepositoryInternal {
         return createQuery(pageable, criteria).all();
     }
 
+    @Override
+    public Flux<Step> findAllBy(Keyset keyset) {
+        return db.sql(entityManager.createSelect(entityTable, columns, Step.class, keyset, null)).map(this::process).all();
+    }
+
+    @Override
+    public Flux<Map<String, Object>> findAllFieldsBy(Pageable pageable, Set<String> fields) {
+        RowFields rowFields = stepMapper.fields(fields);
+        List<Expression> fieldColumns = rowFields.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
+        return db
+            .sql(entityManager.createSelect(entityTable, fieldColumns, Step.class, pageable, null))
+            .map((row, metadata) -> rowFields.read(row, EntityManager.ENTITY_ALIAS))
+            .all();
+    }
+
     RowsFetchSpec<Step> createQuery(Pageable pageable, Criteria criteria) {
-        List<Expression> columns = StepSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
-        SelectFromAndJoin selectFrom = Select.builder().select(columns).from(entityTable);
-
-        String select = entityManager.createSelect(selectFrom, Step.class, pageable, criteria);
-        String alias = entityTable.getReferenceName().getReference();
-        String selectWhere = Optional
-            .ofNullable(criteria)
-            .map(
-                crit ->
-                    new StringBuilder(select)
-                        .append(" ")
-                        .append("WHERE")
-                        .append(" ")
-                        .append(alias)
-                        .append(".")
-                        .append(crit.toString())
-                        .toString()
-            )
-            .orElse(select); // TODO remove once https://github.com/spring-projects/spring-data-jdbc/issues/907 will be fixed
-        return db.sql(selectWhere).map(this::process);
+        return db.sql(entityManager.createSelect(entityTable, columns, Step.class, pageable, criteria)).map(this::process);
     }
 
     @Override
@@ -106,22 +106,23 @@ class StepRepositoryInternalImpl implements StepRepositoryInternal {
         if (entity.getId() == null) {
             return insert(entity);
         } else {
-            return update(entity)
-                .map(
-                    numberOfUpdates -> {
-                        if (numberOfUpdates.intValue() <= 0) {
-                            throw new IllegalStateException("Unable to update Step with id = " + entity.getId());
-                        }
-                        return entity;
-                    }
-                );
+            return update(entity).flatMap(numberOfUpdates -> entityManager.requireUpdated(entity, numberOfUpdates));
         }
     }
 
+    @Override
+    public Flux<Step> insertAll(List<Step> entities) {
+        return entityManager.insertAll(entities);
+    }
+
     @Override
     public Mono<Integer> update(Step entity) {
-        //fixme is this the proper way?
-        return r2dbcEntityTemplate.update(entity).thenReturn(1);
+        return entityManager.update(entity);
+    }
+
+    @Override
+    public Mono<Step> partialUpdate(Step patch) {
+        return entityManager.partialUpdate(patch);
     }
 }
 
@@ -130,6 +131,7 @@ class StepSqlHelper {
     static List<Expression> getColumns(Table table, String columnPrefix) {
         List<Expression> columns = new ArrayList<>();
         columns.add(Column.aliased("id", table, columnPrefix + "_id"));
+        columns.add(Column.aliased("version", table, columnPrefix + "_version"));
         columns.add(Column.aliased("action", table, columnPrefix + "_action"));
 
         return columns;
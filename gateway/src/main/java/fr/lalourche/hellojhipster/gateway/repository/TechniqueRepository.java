@@ -1,6 +1,9 @@
 package fr.lalourche.hellojhipster.gateway.repository;
 
 import fr.lalourche.hellojhipster.gateway.domain.Technique;
+import fr.lalourche.hellojhipster.gateway.service.Keyset;
+import java.util.Map;
+import java.util.Set;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
@@ -30,9 +33,15 @@ interface TechniqueRepositoryInternal {
     <S extends Technique> Mono<S> insert(S entity);
     <S extends Technique> Mono<S> save(S entity);
     Mono<Integer> update(Technique entity);
+    // PATCH: only the non null fields are written, the relationships being left untouched
+    Mono<Technique> partialUpdate(Technique patch);
 
     Flux<Technique> findAll();
     Mono<Technique> findById(Long id);
     Flux<Technique> findAllBy(Pageable pageable);
     Flux<Technique> findAllBy(Pageable pageable, Criteria criteria);
+    Flux<Technique> findAllBy(Keyset keyset);
+
+    // Sparse fieldsets: only the columns of the given fields are selected, the rows being read as maps by field name
+    Flux<Map<String, Object>> findAllFieldsBy(Pageable pageable, Set<String> fields);
 }
@@ -3,6 +3,7 @@ package fr.lalourche.hellojhipster.gateway.repository.rowmapper;
 import fr.lalourche.hellojhipster.gateway.domain.Ingredient;
 import fr.lalourche.hellojhipster.gateway.service.ColumnConverter;
 import io.r2dbc.spi.Row;
+import java.util.Set;
 import java.util.function.BiFunction;
 import org.springframework.stereotype.Service;
 
@@ -12,10 +13,16 @@ import org.springframework.stereotype.Service;
 @Service
 public class IngredientRowMapper implements BiFunction<Row, String, Ingredient> {
 
-    private final ColumnConverter converter;
+    private final RowReader<Ingredient> reader;
 
     public IngredientRowMapper(ColumnConverter converter) {
-        this.converter = converter;
+        this.reader =
+            RowReader
+                .builder(converter, Ingredient::new)
+                .column("_id", Long.class, Ingredient::setId)
+                .column("_version", Long.class, Ingredient::setVersion)
+                .column("_name", String.class, Ingredient::setName)
+                .build();
     }
 
     /**
@@ -24,9 +31,16 @@ public class IngredientRowMapper implements BiFunction<Row, String, Ingredient>
      */
     @Override
     public Ingredient apply(Row row, String prefix) {
-        Ingredient entity = new Ingredient();
-        entity.setId(converter.fromRow(row, prefix + "_id", Long.class));
-        entity.setName(converter.fromRow(row, prefix + "_name", String.class));
-        return entity;
+        return reader.read(row, prefix);
+    }
+
+    /**
+     * Creates a reader of some of the fields of the Ingredient.
+     * @param fields the names of the fields.
+     * @return the reader.
+     * @throws IllegalArgumentException if a field isn't a column of the Ingredient.
+     */
+    public RowFields fields(Set<String> fields) {
+        return reader.fields(fields);
     }
 }
@@ -4,6 +4,7 @@ import fr.lalourche.hellojhipster.gateway.domain.Recipe;
 import fr.lalourche.hellojhipster.gateway.domain.enumeration.Cooking;
 import fr.lalourche.hellojhipster.gateway.service.ColumnConverter;
 import io.r2dbc.spi.Row;
+import java.util.Set;
 import java.util.function.BiFunction;
 import org.springframework.stereotype.Service;
 
@@ -13,10 +14,20 @@ import org.springframework.stereotype.Service;
 @Service
 public class RecipeRowMapper implements BiFunction<Row, String, Recipe> {
 
-    private final ColumnConverter converter;
+    private final RowReader<Recipe> summaryReader;
+    private final RowReader<Recipe> reader;
 
     public RecipeRowMapper(ColumnConverter converter) {
-        this.converter = converter;
+        RowReader.Builder<Recipe> builder = RowReader
+            .builder(converter, Recipe::new)
+            .column("_id", Long.class, Recipe::setId)
+            .column("_version", Long.class, Recipe::setVersion)
+            .column("_name", String.class, Recipe::setName)
+            .column("_cooking", Cooking.class, Recipe::setCooking)
+            .column("_cooking_time", Double.class, Recipe::setCookingTime)
+            .column("_picture_content_type", String.class, Recipe::setPictureContentType);
+        this.summaryReader = builder.build();
+        this.reader = builder.column("_picture", byte[].class, Recipe::setPicture).build();
     }
 
     /**
@@ -25,13 +36,25 @@ public class RecipeRowMapper implements BiFunction<Row, String, Recipe> {
      */
     @Override
     public Recipe apply(Row row, String prefix) {
-        Recipe entity = new Recipe();
-        entity.setId(converter.fromRow(row, prefix + "_id", Long.class));
-        entity.setName(converter.fromRow(row, prefix + "_name", String.class));
-        entity.setCooking(converter.fromRow(row, prefix + "_cooking", Cooking.class));
-        entity.setCookingTime(converter.fromRow(row, prefix + "_cooking_time", Double.class));
-        entity.setPictureContentType(converter.fromRow(row, prefix + "_picture_content_type", String.class));
-        entity.setPicture(converter.fromRow(row, prefix + "_picture", byte[].class));
-        return entity;
+        return reader.read(row, prefix);
+    }
+
+    /**
+     * Take a {@link Row} and a column prefix, and extract all the fields but the picture, which is not part of the
+     * summary projection.
+     * @return the {@link Recipe} stored in the database, without its picture.
+     */
+    public Recipe applySummary(Row row, String prefix) {
+        return summaryReader.read(row, prefix);
+    }
+
+    /**
+     * Creates a reader of some of the fields of the Recipe, the picture being only read if it is one of them.
+     * @param fields the names of the fields.
+     * @return the reader.
+     * @throws IllegalArgumentException if a field isn't a column of the Recipe.
+     */
+    public RowFields fields(Set<String> fields) {
+        return reader.fields(fields);
     }
 }
@@ -0,0 +1,66 @@
+package fr.lalourche.hellojhipster.gateway.repository.rowmapper;
+
+import fr.lalourche.hellojhipster.gateway.service.ColumnConverter.ColumnReader;
+import io.r2dbc.spi.Row;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.data.relational.core.sql.Column;
+import org.springframework.data.relational.core.sql.Expression;
+import org.springframework.data.relational.core.sql.Table;
+
+/**
+ * Reads some of the fields of an entity from {@link Row}s, as a map by field name, so a query selecting only their
+ * columns doesn't allocate the entity, nor its other fields.
+ */
+public final class RowFields {
+
+    private final String[] fieldNames;
+    private final String[] suffixes;
+    private final ColumnReader<?>[] readers;
+
+    // the column names, by column prefix
+    private final Map<String, String[]> columnNames = new ConcurrentHashMap<>();
+
+    RowFields(String[] fieldNames, String[] suffixes, ColumnReader<?>[] readers) {
+        this.fieldNames = fieldNames;
+        this.suffixes = suffixes;
+        this.readers = readers;
+    }
+
+    /**
+     * @param table the table of the entity.
+     * @param columnPrefix the column prefix.
+     * @return the columns of the fields, to select.
+     */
+    public List<Expression> getColumns(Table table, String columnPrefix) {
+        List<Expression> columns = new ArrayList<>();
+        for (String suffix : suffixes) {
+            columns.add(Column.aliased(suffix.substring(1), table, columnPrefix + suffix));
+        }
+        return columns;
+    }
+
+    /**
+     * Take a {@link Row} and a column prefix, and extract the fields.
+     * @return the fields, by name, in the order of the columns.
+     */
+    public Map<String, Object> read(Row row, String prefix) {
+        String[] names = columnNames.computeIfAbsent(prefix, this::getColumnNames);
+        Map<String, Object> fields = new LinkedHashMap<>();
+        for (int i = 0; i < readers.length; i++) {
+            fields.put(fieldNames[i], readers[i].read(row, names[i]));
+        }
+        return fields;
+    }
+
+    private String[] getColumnNames(String prefix) {
+        String[] names = new String[suffixes.length];
+        for (int i = 0; i < suffixes.length; i++) {
+            names[i] = prefix + suffixes[i];
+        }
+        return names;
+    }
+}
@@ -0,0 +1,158 @@
+package fr.lalourche.hellojhipster.gateway.repository.rowmapper;
+
+import fr.lalourche.hellojhipster.gateway.service.ColumnConverter;
+import fr.lalourche.hellojhipster.gateway.service.ColumnConverter.ColumnReader;
+import io.r2dbc.spi.Row;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Reads entities from {@link Row}s, with the column names and conversions resolved once, so mapping a row doesn't
+ * allocate anything but the entity itself.
+ * @param <E> the type of the entity.
+ */
+final class RowReader<E> {
+
+    private final Supplier<E> factory;
+    private final String[] fieldNames;
+    private final String[] suffixes;
+    private final ColumnReader<?>[] readers;
+    private final BiConsumer<E, Object>[] setters;
+
+    // the column names, by column prefix
+    private final Map<String, String[]> columnNames = new ConcurrentHashMap<>();
+
+    private RowReader(
+        Supplier<E> factory,
+        String[] fieldNames,
+        String[] suffixes,
+        ColumnReader<?>[] readers,
+        BiConsumer<E, Object>[] setters
+    ) {
+        this.factory = factory;
+        this.fieldNames = fieldNames;
+        this.suffixes = suffixes;
+        this.readers = readers;
+        this.setters = setters;
+    }
+
+    static <E> Builder<E> builder(ColumnConverter converter, Supplier<E> factory) {
+        return new Builder<>(converter, factory);
+    }
+
+    /**
+     * Take a {@link Row} and a column prefix, and extract all the fields.
+     * @return the entity stored in the database.
+     */
+    E read(Row row, String prefix) {
+        String[] names = columnNames.get(prefix);
+        if (names == null) {
+            names = getColumnNames(prefix);
+        }
+        E entity = factory.get();
+        for (int i = 0; i < readers.length; i++) {
+            setters[i].accept(entity, readers[i].read(row, names[i]));
+        }
+        return entity;
+    }
+
+    /**
+     * Creates a reader of some of the fields only, in the order of the columns.
+     * @param fields the names of the fields.
+     * @return the reader.
+     * @throws IllegalArgumentException if a field isn't read from a column.
+     */
+    RowFields fields(Set<String> fields) {
+        List<Integer> indexes = new ArrayList<>();
+        for (int i = 0; i < fieldNames.length; i++) {
+            if (fields.contains(fieldNames[i])) {
+                indexes.add(i);
+            }
+        }
+        if (indexes.size() < fields.size()) {
+            List<String> unknownFields = new ArrayList<>(fields);
+            unknownFields.removeAll(List.of(fieldNames));
+            throw new IllegalArgumentException("Unknown fields: " + unknownFields);
+        }
+        String[] selectedFieldNames = new String[indexes.size()];
+        String[] selectedSuffixes = new String[indexes.size()];
+        ColumnReader<?>[] selectedReaders = new ColumnReader<?>[indexes.size()];
+        for (int i = 0; i < selectedFieldNames.length; i++) {
+            selectedFieldNames[i] = fieldNames[indexes.get(i)];
+            selectedSuffixes[i] = suffixes[indexes.get(i)];
+            selectedReaders[i] = readers[indexes.get(i)];
+        }
+        return new RowFields(selectedFieldNames, selectedSuffixes, selectedReaders);
+    }
+
+    private String[] getColumnNames(String prefix) {
+        String[] names = new String[suffixes.length];
+        for (int i = 0; i < suffixes.length; i++) {
+            names[i] = prefix + suffixes[i];
+        }
+        String[] previous = columnNames.putIfAbsent(prefix, names);
+        return previous != null ? previous : names;
+    }
+
+    static final class Builder<E> {
+
+        private final ColumnConverter converter;
+        private final Supplier<E> factory;
+        private final List<String> fieldNames = new ArrayList<>();
+        private final List<String> suffixes = new ArrayList<>();
+        private final List<ColumnReader<?>> readers = new ArrayList<>();
+        private final List<BiConsumer<E, Object>> setters = new ArrayList<>();
+
+        private Builder(ColumnConverter converter, Supplier<E> factory) {
+            this.converter = converter;
+            this.factory = factory;
+        }
+
+        /**
+         * Adds a column to read, whose field is named after the column ({@code _cooking_time} is {@code cookingTime}).
+         * @param suffix the name of the column, appended to the column prefix.
+         * @param type the type of the field.
+         * @param setter the setter of the field.
+         * @return this builder.
+         */
+        @SuppressWarnings("unchecked")
+        <T> Builder<E> column(String suffix, Class<T> type, BiConsumer<E, T> setter) {
+            fieldNames.add(toFieldName(suffix));
+            suffixes.add(suffix);
+            readers.add(converter.createReader(type));
+            setters.add((BiConsumer<E, Object>) setter);
+            return this;
+        }
+
+        @SuppressWarnings("unchecked")
+        RowReader<E> build() {
+            return new RowReader<>(
+                factory,
+                fieldNames.toArray(new String[0]),
+                suffixes.toArray(new String[0]),
+                readers.toArray(new ColumnReader<?>[0]),
+                setters.toArray(new BiConsumer[0])
+            );
+        }
+
+        private static String toFieldName(String suffix) {
+            StringBuilder fieldName = new StringBuilder(suffix.length());
+            boolean upperCase = false;
+            for (int i = 1; i < suffix.length(); i++) {
+                char c = suffix.charAt(i);
+                if (c == '_') {
+                    upperCase = true;
+                } else {
+                    fieldName.append(upperCase ? Character.toUpperCase(c) : c);
+                    upperCase = false;
+                }
+            }
+            return fieldName.toString();
+        }
+    }
+}
@@ -3,6 +3,7 @@ package fr.lalourche.hellojhipster.gateway.repository.rowmapper;
 import fr.lalourche.hellojhipster.gateway.domain.Step;
 import fr.lalourche.hellojhipster.gateway.service.ColumnConverter;
 import io.r2dbc.spi.Row;
+import java.util.Set;
 import java.util.function.BiFunction;
 import org.springframework.stereotype.Service;
 
@@ -12,10 +13,16 @@ import org.springframework.stereotype.Service;
 @Service
 public class StepRowMapper implements BiFunction<Row, String, Step> {
 
-    private final ColumnConverter converter;
+    private final RowReader<Step> reader;
 
     public StepRowMapper(ColumnConverter converter) {
-        this.converter = converter;
+        this.reader =
+            RowReader
+                .builder(converter, Step::new)
+                .column("_id", Long.class, Step::setId)
+                .column("_version", Long.class, Step::setVersion)
+                .column("_action", String.class, Step::setAction)
+                .build();
     }
 
     /**
@@ -24,9 +31,16 @@ public class StepRowMapper implements BiFunction<Row, String, Step> {
      */
     @Override
     public Step apply(Row row, String prefix) {
-        Step entity = new Step();
-        entity.setId(converter.fromRow(row, prefix + "_id", Long.class));
-        entity.setAction(converter.fromRow(row, prefix + "_action", String.class));
-        return entity;
+        return reader.read(row, prefix);
+    }
+
+    /**
+     * Creates a reader of some of the fields of the Step.
+     * @param fields the names of the fields.
+     * @return the reader.
+     * @throws IllegalArgumentException if a field isn't a column of the Step.
+     */
+    public RowFields fields(Set<String> fields) {
+        return reader.fields(fields);
     }
 }
@@ -3,6 +3,7 @@ package fr.lalourche.hellojhipster.gateway.repository.rowmapper;
 import fr.lalourche.hellojhipster.gateway.domain.Technique;
 import fr.lalourche.hellojhipster.gateway.service.ColumnConverter;
 import io.r2dbc.spi.Row;
+import java.util.Set;
 import java.util.function.BiFunction;
 import org.springframework.stereotype.Service;
 
@@ -12,10 +13,16 @@ import org.springframework.stereotype.Service;
 @Service
 public class TechniqueRowMapper implements BiFunction<Row, String, Technique> {
 
-    private final ColumnConverter converter;
+    private final RowReader<Technique> reader;
 
     public TechniqueRowMapper(ColumnConverter converter) {
-        this.converter = converter;
+        this.reader =
+            RowReader
+                .builder(converter, Technique::new)
+                .column("_id", Long.class, Technique::setId)
+                .column("_version", Long.class, Technique::setVersion)
+                .column("_description", String.class, Technique::setDescription)
+                .build();
     }
 
     /**
@@ -24,9 +31,16 @@ public class TechniqueRowMapper implements BiFunction<Row, String, Technique> {
      */
     @Override
     public Technique apply(Row row, String prefix) {
-        Technique entity = new Technique();
-        entity.setId(converter.fromRow(row, prefix + "_id", Long.class));
-        entity.setDescription(converter.fromRow(row, prefix + "_description", String.class));
-        return entity;
+        return reader.read(row, prefix);
+    }
+
+    /**
+     * Creates a reader of some of the fields of the Technique.
+     * @param fields the names of the fields.
+     * @return the reader.
+     * @throws IllegalArgumentException if a field isn't a column of the Technique.
+     */
+    public RowFields fields(Set<String> fields) {
+        return reader.fields(fields);
     }
 }
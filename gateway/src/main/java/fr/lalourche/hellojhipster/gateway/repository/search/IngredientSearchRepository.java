@@ -3,11 +3,12 @@ package fr.lalourche.hellojhipster.gateway.repository.search;
 import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
 
 import fr.lalourche.hellojhipster.gateway.domain.Ingredient;
+import java.util.Map;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.elasticsearch.core.ReactiveElasticsearchTemplate;
-import org.springframework.data.elasticsearch.core.SearchHit;
-import org.springframework.data.elasticsearch.core.query.NativeSearchQuery;
 import org.springframework.data.elasticsearch.repository.ReactiveElasticsearchRepository;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 /**
  * Spring Data Elasticsearch repository for the {@link Ingredient} entity.
@@ -15,20 +16,44 @@ import reactor.core.publisher.Flux;
 public interface IngredientSearchRepository extends ReactiveElasticsearchRepository<Ingredient, Long>, IngredientSearchRepositoryInternal {}
 
 interface IngredientSearchRepositoryInternal {
-    Flux<Ingredient> search(String query);
+    Mono<SearchSlice<Ingredient>> search(String query, Pageable pageable, String after);
+
+    Flux<Ingredient> searchAsStream(String query);
+
+    Mono<Long> countSearch(String query);
+
+    // Merges the non null fields of the entity into its document
+    Mono<Void> updatePartially(Ingredient entity);
 }
 
 class IngredientSearchRepositoryInternalImpl implements IngredientSearchRepositoryInternal {
 
-    private final ReactiveElasticsearchTemplate reactiveElasticsearchTemplate;
+    private final SearchAfterSupport<Ingredient> searchAfterSupport;
+
+    private final PartialUpdateSupport<Ingredient> partialUpdateSupport;
 
     IngredientSearchRepositoryInternalImpl(ReactiveElasticsearchTemplate reactiveElasticsearchTemplate) {
-        this.reactiveElasticsearchTemplate = reactiveElasticsearchTemplate;
+        this.searchAfterSupport = new SearchAfterSupport<>(reactiveElasticsearchTemplate, Ingredient.class, Map.of("name", "name.keyword"));
+        this.partialUpdateSupport = new PartialUpdateSupport<>(reactiveElasticsearchTemplate, Ingredient.class);
+    }
+
+    @Override
+    public Mono<SearchSlice<Ingredient>> search(String query, Pageable pageable, String after) {
+        return searchAfterSupport.search(queryStringQuery(query), pageable, after);
+    }
+
+    @Override
+    public Flux<Ingredient> searchAsStream(String query) {
+        return searchAfterSupport.stream(queryStringQuery(query));
+    }
+
+    @Override
+    public Mono<Long> countSearch(String query) {
+        return searchAfterSupport.count(queryStringQuery(query));
     }
 
     @Override
-    public Flux<Ingredient> search(String query) {
-        NativeSearchQuery nativeSearchQuery = new NativeSearchQuery(queryStringQuery(query));
-        return reactiveElasticsearchTemplate.search(nativeSearchQuery, Ingredient.class).map(SearchHit::getContent);
+    public Mono<Void> updatePartially(Ingredient entity) {
+        return partialUpdateSupport.update(entity);
     }
 }
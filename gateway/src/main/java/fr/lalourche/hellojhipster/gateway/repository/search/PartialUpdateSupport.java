@@ -0,0 +1,49 @@
+package fr.lalourche.hellojhipster.gateway.repository.search;
+
+import java.util.Objects;
+import org.springframework.data.elasticsearch.core.ReactiveElasticsearchTemplate;
+import org.springframework.data.elasticsearch.core.convert.ElasticsearchConverter;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.query.UpdateQuery;
+import reactor.core.publisher.Mono;
+
+/**
+ * Partial updates of the documents of an entity: only the non null fields of the entity are sent, and merged into the
+ * indexed document by Elasticsearch, so the document doesn't need to be read, nor the entity to be complete.
+ *
+ * @param <T> the type of the entity.
+ */
+final class PartialUpdateSupport<T> {
+
+    private final ReactiveElasticsearchTemplate reactiveElasticsearchTemplate;
+
+    private final Class<T> entityType;
+
+    PartialUpdateSupport(ReactiveElasticsearchTemplate reactiveElasticsearchTemplate, Class<T> entityType) {
+        this.reactiveElasticsearchTemplate = reactiveElasticsearchTemplate;
+        this.entityType = entityType;
+    }
+
+    /**
+     * Merges the non null fields of an entity into its document, which is created if it doesn't exist.
+     *
+     * @param entity the entity, with at least its id.
+     * @return a {@link Mono} completing once the document is updated.
+     */
+    Mono<Void> update(T entity) {
+        return Mono.defer(
+            () -> {
+                ElasticsearchConverter converter = reactiveElasticsearchTemplate.getElasticsearchConverter();
+                Object id = converter
+                    .getMappingContext()
+                    .getRequiredPersistentEntity(entityType)
+                    .getIdentifierAccessor(entity)
+                    .getRequiredIdentifier();
+                Document document = converter.mapObject(entity);
+                document.values().removeIf(Objects::isNull);
+                UpdateQuery query = UpdateQuery.builder(id.toString()).withDocument(document).withDocAsUpsert(true).build();
+                return reactiveElasticsearchTemplate.update(query, reactiveElasticsearchTemplate.getIndexCoordinatesFor(entityType)).then();
+            }
+        );
+    }
+}
@@ -3,11 +3,12 @@ package fr.lalourche.hellojhipster.gateway.repository.search;
 import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
 
 import fr.lalourche.hellojhipster.gateway.domain.Recipe;
+import java.util.Map;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.elasticsearch.core.ReactiveElasticsearchTemplate;
-import org.springframework.data.elasticsearch.core.SearchHit;
-import org.springframework.data.elasticsearch.core.query.NativeSearchQuery;
 import org.springframework.data.elasticsearch.repository.ReactiveElasticsearchRepository;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 /**
  * Spring Data Elasticsearch repository for the {@link Recipe} entity.
@@ -15,20 +16,50 @@ import reactor.core.publisher.Flux;
 public interface RecipeSearchRepository extends ReactiveElasticsearchRepository<Recipe, Long>, RecipeSearchRepositoryInternal {}
 
 interface RecipeSearchRepositoryInternal {
-    Flux<Recipe> search(String query);
+    Mono<SearchSlice<Recipe>> search(String query, Pageable pageable, String after);
+
+    Flux<Recipe> searchAsStream(String query);
+
+    Mono<Long> countSearch(String query);
+
+    // Merges the non null fields of the entity into its document
+    Mono<Void> updatePartially(Recipe entity);
 }
 
 class RecipeSearchRepositoryInternalImpl implements RecipeSearchRepositoryInternal {
 
-    private final ReactiveElasticsearchTemplate reactiveElasticsearchTemplate;
+    private final SearchAfterSupport<Recipe> searchAfterSupport;
+
+    private final PartialUpdateSupport<Recipe> partialUpdateSupport;
 
     RecipeSearchRepositoryInternalImpl(ReactiveElasticsearchTemplate reactiveElasticsearchTemplate) {
-        this.reactiveElasticsearchTemplate = reactiveElasticsearchTemplate;
+        // The pictures are only served by the single recipe endpoints
+        this.searchAfterSupport = new SearchAfterSupport<>(
+            reactiveElasticsearchTemplate,
+            Recipe.class,
+            Map.of("name", "name.keyword", "cooking", "cooking.keyword", "cookingTime", "cookingTime"),
+            "picture"
+        );
+        this.partialUpdateSupport = new PartialUpdateSupport<>(reactiveElasticsearchTemplate, Recipe.class);
+    }
+
+    @Override
+    public Mono<SearchSlice<Recipe>> search(String query, Pageable pageable, String after) {
+        return searchAfterSupport.search(queryStringQuery(query), pageable, after);
+    }
+
+    @Override
+    public Flux<Recipe> searchAsStream(String query) {
+        return searchAfterSupport.stream(queryStringQuery(query));
+    }
+
+    @Override
+    public Mono<Long> countSearch(String query) {
+        return searchAfterSupport.count(queryStringQuery(query));
     }
 
     @Override
-    public Flux<Recipe> search(String query) {
-        NativeSearchQuery nativeSearchQuery = new NativeSearchQuery(queryStringQuery(query));
-        return reactiveElasticsearchTemplate.search(nativeSearchQuery, Recipe.class).map(SearchHit::getContent);
+    public Mono<Void> updatePartially(Recipe entity) {
+        return partialUpdateSupport.update(entity);
     }
 }
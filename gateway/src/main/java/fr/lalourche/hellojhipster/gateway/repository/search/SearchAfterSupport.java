@@ -0,0 +1,203 @@
+package fr.lalourche.hellojhipster.gateway.repository.search;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.FieldSortBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.sort.SortOrder;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.elasticsearch.core.ReactiveElasticsearchTemplate;
+import org.springframework.data.elasticsearch.core.document.DocumentAdapters;
+import org.springframework.data.elasticsearch.core.query.NativeSearchQuery;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Paginated and streamed searches of the documents of an entity, resumed after the sort values of the last hit read
+ * ({@code search_after}) rather than skipping the hits already read.
+ * <p>
+ * The hits are sorted by the requested sort, or by relevance, then by id, so the order is total. Only the sortable
+ * properties of the entity may be requested, each sorted by its own field of the index. Elasticsearch doesn't count the
+ * hits of these searches: counting them is a separate request, only made when the total is needed.
+ * <p>
+ * A page is only read by its number within the first {@value #MAX_RESULT_WINDOW} hits, the default result window of
+ * the indices; beyond them, the continuation token of the previous page is required.
+ *
+ * @param <T> the type of the entity.
+ */
+final class SearchAfterSupport<T> {
+
+    /**
+     * The number of hits read per request when streaming the results of a search.
+     */
+    static final int STREAM_CHUNK_SIZE = 500;
+
+    /**
+     * The number of hits a page can be read from without a continuation token.
+     */
+    static final int MAX_RESULT_WINDOW = 10000;
+
+    private static final String ID_FIELD = "id";
+
+    private static final ObjectMapper TOKEN_MAPPER = new ObjectMapper();
+
+    private final ReactiveElasticsearchTemplate reactiveElasticsearchTemplate;
+
+    private final Class<T> entityType;
+
+    private final Map<String, String> sortFields;
+
+    private final String[] excludedFields;
+
+    /**
+     * @param reactiveElasticsearchTemplate the template.
+     * @param entityType the type of the entity.
+     * @param sortFields the field of the index each sortable property, but the id, is sorted by; the strings being
+     * indexed as text, they are sorted by their {@code keyword} sub-field.
+     * @param excludedFields the fields not read from the hits.
+     */
+    SearchAfterSupport(
+        ReactiveElasticsearchTemplate reactiveElasticsearchTemplate,
+        Class<T> entityType,
+        Map<String, String> sortFields,
+        String... excludedFields
+    ) {
+        this.reactiveElasticsearchTemplate = reactiveElasticsearchTemplate;
+        this.entityType = entityType;
+        this.sortFields = sortFields;
+        this.excludedFields = excludedFields;
+    }
+
+    /**
+     * Searches a page of results.
+     *
+     * @param query the query.
+     * @param pageable the size and sort of the page, and its number when there is no continuation token.
+     * @param after the continuation token of the page, as returned with the previous page, or null.
+     * @return the page, or an {@link IllegalArgumentException} if the token or the sort is invalid, or if the page is
+     * beyond the result window without a token.
+     */
+    Mono<SearchSlice<T>> search(QueryBuilder query, Pageable pageable, String after) {
+        return Mono.defer(
+            () -> {
+                SearchSourceBuilder source = createSource(query, pageable.getSort(), pageable.getPageSize());
+                if (after != null && !after.isEmpty()) {
+                    Object[] sortValues = decodeToken(after);
+                    if (sortValues.length != source.sorts().size()) {
+                        throw new IllegalArgumentException("Invalid continuation token");
+                    }
+                    source.searchAfter(sortValues);
+                } else {
+                    if (pageable.getOffset() + pageable.getPageSize() > MAX_RESULT_WINDOW) {
+                        throw new IllegalArgumentException(
+                            "Page beyond the first " + MAX_RESULT_WINDOW + " results, continue from the previous page"
+                        );
+                    }
+                    source.from((int) pageable.getOffset());
+                }
+                return execute(source)
+                    .collectList()
+                    .map(
+                        hits ->
+                            new SearchSlice<>(
+                                hits.stream().map(this::read).collect(Collectors.toList()),
+                                hits.size() < pageable.getPageSize() ? null : encodeToken(hits.get(hits.size() - 1).getSortValues())
+                            )
+                    );
+            }
+        );
+    }
+
+    /**
+     * Streams all the results, read in chunks of {@value #STREAM_CHUNK_SIZE} hits, the next chunk being only requested
+     * once the previous one has been consumed.
+     *
+     * @param query the query.
+     * @return the results, sorted by relevance.
+     */
+    Flux<T> stream(QueryBuilder query) {
+        return readChunk(query, null)
+            .expand(
+                hits ->
+                    hits.size() < STREAM_CHUNK_SIZE ? Mono.empty() : readChunk(query, hits.get(hits.size() - 1).getSortValues())
+            )
+            .concatMapIterable(hits -> hits, 1)
+            .map(this::read);
+    }
+
+    /**
+     * Counts the results.
+     *
+     * @param query the query.
+     * @return the number of results.
+     */
+    Mono<Long> count(QueryBuilder query) {
+        return reactiveElasticsearchTemplate.count(new NativeSearchQuery(query), entityType);
+    }
+
+    private Mono<List<SearchHit>> readChunk(QueryBuilder query, Object[] after) {
+        SearchSourceBuilder source = createSource(query, Sort.unsorted(), STREAM_CHUNK_SIZE);
+        if (after != null) {
+            source.searchAfter(after);
+        }
+        return execute(source).collectList();
+    }
+
+    private SearchSourceBuilder createSource(QueryBuilder query, Sort sort, int size) {
+        SearchSourceBuilder source = new SearchSourceBuilder().query(query).size(size).trackTotalHits(false);
+        if (sort.isUnsorted()) {
+            source.sort(SortBuilders.scoreSort());
+        }
+        for (Sort.Order order : sort) {
+            String field = ID_FIELD.equals(order.getProperty()) ? ID_FIELD : sortFields.get(order.getProperty());
+            if (field == null) {
+                throw new IllegalArgumentException("Invalid sort property: " + order.getProperty());
+            }
+            FieldSortBuilder fieldSort = SortBuilders.fieldSort(field);
+            source.sort(fieldSort.order(order.isAscending() ? SortOrder.ASC : SortOrder.DESC));
+        }
+        if (sort.getOrderFor(ID_FIELD) == null) {
+            source.sort(SortBuilders.fieldSort(ID_FIELD).order(SortOrder.ASC));
+        }
+        if (excludedFields.length > 0) {
+            source.fetchSource(null, excludedFields);
+        }
+        return source;
+    }
+
+    private Flux<SearchHit> execute(SearchSourceBuilder source) {
+        SearchRequest request = new SearchRequest(reactiveElasticsearchTemplate.getIndexCoordinatesFor(entityType).getIndexNames())
+            .source(source);
+        return reactiveElasticsearchTemplate.execute(client -> client.search(request));
+    }
+
+    private T read(SearchHit hit) {
+        return reactiveElasticsearchTemplate.getElasticsearchConverter().read(entityType, DocumentAdapters.from(hit));
+    }
+
+    private static String encodeToken(Object[] sortValues) {
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(TOKEN_MAPPER.writeValueAsBytes(sortValues));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not write the sort values of a hit", e);
+        }
+    }
+
+    private static Object[] decodeToken(String token) {
+        try {
+            return TOKEN_MAPPER.readValue(Base64.getUrlDecoder().decode(token), Object[].class);
+        } catch (IllegalArgumentException | IOException e) {
+            throw new IllegalArgumentException("Invalid continuation token", e);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package fr.lalourche.hellojhipster.gateway.repository.search;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A page of search results, with the continuation token of the next page, which resumes the search after the last
+ * result of this one ({@code search_after}), so its cost doesn't depend on how deep the results have been read.
+ *
+ * @param <T> the type of the results.
+ */
+public class SearchSlice<T> {
+
+    private final List<T> content;
+
+    private final String next;
+
+    public SearchSlice(List<T> content, String next) {
+        this.content = Collections.unmodifiableList(content);
+        this.next = next;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    /**
+     * @return the continuation token of the next page, or null if this page is the last one.
+     */
+    public String getNext() {
+        return next;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "SearchSlice{" +
+            "content=" + content +
+            ", next='" + next + "'" +
+            "}";
+    }
+}
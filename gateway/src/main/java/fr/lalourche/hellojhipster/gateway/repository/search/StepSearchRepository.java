@@ -3,11 +3,12 @@ package fr.lalourche.hellojhipster.gateway.repository.search;
 import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
 
 import fr.lalourche.hellojhipster.gateway.domain.Step;
+import java.util.Map;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.elasticsearch.core.ReactiveElasticsearchTemplate;
-import org.springframework.data.elasticsearch.core.SearchHit;
-import org.springframework.data.elasticsearch.core.query.NativeSearchQuery;
 import org.springframework.data.elasticsearch.repository.ReactiveElasticsearchRepository;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 /**
  * Spring Data Elasticsearch repository for the {@link Step} entity.
@@ -15,20 +16,44 @@ import reactor.core.publisher.Flux;
 public interface StepSearchRepository extends ReactiveElasticsearchRepository<Step, Long>, StepSearchRepositoryInternal {}
 
 interface StepSearchRepositoryInternal {
-    Flux<Step> search(String query);
+    Mono<SearchSlice<Step>> search(String query, Pageable pageable, String after);
+
+    Flux<Step> searchAsStream(String query);
+
+    Mono<Long> countSearch(String query);
+
+    // Merges the non null fields of the entity into its document
+    Mono<Void> updatePartially(Step entity);
 }
 
 class StepSearchRepositoryInternalImpl implements StepSearchRepositoryInternal {
 
-    private final ReactiveElasticsearchTemplate reactiveElasticsearchTemplate;
+    private final SearchAfterSupport<Step> searchAfterSupport;
+
+    private final PartialUpdateSupport<Step> partialUpdateSupport;
 
     StepSearchRepositoryInternalImpl(ReactiveElasticsearchTemplate reactiveElasticsearchTemplate) {
-        this.reactiveElasticsearchTemplate = reactiveElasticsearchTemplate;
+        this.searchAfterSupport = new SearchAfterSupport<>(reactiveElasticsearchTemplate, Step.class, Map.of("action", "action.keyword"));
+        this.partialUpdateSupport = new PartialUpdateSupport<>(reactiveElasticsearchTemplate, Step.class);
+    }
+
+    @Override
+    public Mono<SearchSlice<Step>> search(String query, Pageable pageable, String after) {
+        return searchAfterSupport.search(queryStringQuery(query), pageable, after);
+    }
+
+    @Override
+    public Flux<Step> searchAsStream(String query) {
+        return searchAfterSupport.stream(queryStringQuery(query));
+    }
+
+    @Override
+    public Mono<Long> countSearch(String query) {
+        return searchAfterSupport.count(queryStringQuery(query));
     }
 
     @Override
-    public Flux<Step> search(String query) {
-        NativeSearchQuery nativeSearchQuery = new NativeSearchQuery(queryStringQuery(query));
-        return reactiveElasticsearchTemplate.search(nativeSearchQuery, Step.class).map(SearchHit::getContent);
+    public Mono<Void> updatePartially(Step entity) {
+        return partialUpdateSupport.update(entity);
     }
 }
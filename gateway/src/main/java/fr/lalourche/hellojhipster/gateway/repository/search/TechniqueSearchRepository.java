@@ -3,11 +3,12 @@ package fr.lalourche.hellojhipster.gateway.repository.search;
 import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
 
 import fr.lalourche.hellojhipster.gateway.domain.Technique;
+import java.util.Map;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.elasticsearch.core.ReactiveElasticsearchTemplate;
-import org.springframework.data.elasticsearch.core.SearchHit;
-import org.springframework.data.elasticsearch.core.query.NativeSearchQuery;
 import org.springframework.data.elasticsearch.repository.ReactiveElasticsearchRepository;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 /**
  * Spring Data Elasticsearch repository for the {@link Technique} entity.
@@ -15,20 +16,48 @@ import reactor.core.publisher.Flux;
 public interface TechniqueSearchRepository extends ReactiveElasticsearchRepository<Technique, Long>, TechniqueSearchRepositoryInternal {}
 
 interface TechniqueSearchRepositoryInternal {
-    Flux<Technique> search(String query);
+    Mono<SearchSlice<Technique>> search(String query, Pageable pageable, String after);
+
+    Flux<Technique> searchAsStream(String query);
+
+    Mono<Long> countSearch(String query);
+
+    // Merges the non null fields of the entity into its document
+    Mono<Void> updatePartially(Technique entity);
 }
 
 class TechniqueSearchRepositoryInternalImpl implements TechniqueSearchRepositoryInternal {
 
-    private final ReactiveElasticsearchTemplate reactiveElasticsearchTemplate;
+    private final SearchAfterSupport<Technique> searchAfterSupport;
+
+    private final PartialUpdateSupport<Technique> partialUpdateSupport;
 
     TechniqueSearchRepositoryInternalImpl(ReactiveElasticsearchTemplate reactiveElasticsearchTemplate) {
-        this.reactiveElasticsearchTemplate = reactiveElasticsearchTemplate;
+        this.searchAfterSupport = new SearchAfterSupport<>(
+            reactiveElasticsearchTemplate,
+            Technique.class,
+            Map.of("description", "description.keyword")
+        );
+        this.partialUpdateSupport = new PartialUpdateSupport<>(reactiveElasticsearchTemplate, Technique.class);
+    }
+
+    @Override
+    public Mono<SearchSlice<Technique>> search(String query, Pageable pageable, String after) {
+        return searchAfterSupport.search(queryStringQuery(query), pageable, after);
+    }
+
+    @Override
+    public Flux<Technique> searchAsStream(String query) {
+        return searchAfterSupport.stream(queryStringQuery(query));
+    }
+
+    @Override
+    public Mono<Long> countSearch(String query) {
+        return searchAfterSupport.count(queryStringQuery(query));
     }
 
     @Override
-    public Flux<Technique> search(String query) {
-        NativeSearchQuery nativeSearchQuery = new NativeSearchQuery(queryStringQuery(query));
-        return reactiveElasticsearchTemplate.search(nativeSearchQuery, Technique.class).map(SearchHit::getContent);
+    public Mono<Void> updatePartially(Technique entity) {
+        return partialUpdateSupport.update(entity);
     }
 }
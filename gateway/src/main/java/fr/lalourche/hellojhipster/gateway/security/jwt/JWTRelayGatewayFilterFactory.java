@@ -2,39 +2,49 @@ package fr.lalourche.hellojhipster.gateway.security.jwt;
 
 import static fr.lalourche.hellojhipster.gateway.security.jwt.JWTFilter.AUTHORIZATION_HEADER;
 
+import java.util.List;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
 import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
-
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * Relays the token of the caller to the microservices.
+ * <p>
+ * The token has already been verified by the {@link JWTFilter}, which keeps it as the credentials of the
+ * {@link Authentication} of the request, so it is taken from the security context rather than parsed again. The request
+ * is only rebuilt when its {@code Authorization} header isn't already the one to relay, and the anonymous requests are
+ * proxied as they are.
+ */
 @Component
 public class JWTRelayGatewayFilterFactory extends AbstractGatewayFilterFactory<Object> {
 
-    private final TokenProvider tokenProvider;
-
-    public JWTRelayGatewayFilterFactory(TokenProvider tokenProvider) {
-        this.tokenProvider = tokenProvider;
-    }
-
     @Override
     public GatewayFilter apply(Object config) {
-        return (exchange, chain) -> {
-            String token = this.extractJWTToken(exchange.getRequest());
-            if (StringUtils.hasText(token) && this.tokenProvider.validateToken(token)) {
-                ServerHttpRequest request = exchange.getRequest().mutate().header(AUTHORIZATION_HEADER, "Bearer " + token).build();
-
-                return chain.filter(exchange.mutate().request(request).build());
-            }
-            return chain.filter(exchange);
-        };
+        return (exchange, chain) ->
+            ReactiveSecurityContextHolder
+                .getContext()
+                .map(SecurityContext::getAuthentication)
+                .filter(authentication -> authentication.getCredentials() instanceof String)
+                .map(authentication -> relay(exchange, (String) authentication.getCredentials()))
+                .defaultIfEmpty(exchange)
+                .flatMap(chain::filter);
     }
 
-    private String extractJWTToken(ServerHttpRequest request) {
-        String bearerToken = request.getHeaders().getFirst(AUTHORIZATION_HEADER);
-        if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
-            return bearerToken.substring(7);
+    private ServerWebExchange relay(ServerWebExchange exchange, String token) {
+        if (!StringUtils.hasText(token)) {
+            return exchange;
+        }
+        String bearerToken = "Bearer " + token;
+        if (List.of(bearerToken).equals(exchange.getRequest().getHeaders().get(AUTHORIZATION_HEADER))) {
+            return exchange;
         }
-        throw new IllegalArgumentException("Invalid token in Authorization header");
+        ServerHttpRequest request = exchange.getRequest().mutate().header(AUTHORIZATION_HEADER, bearerToken).build();
+        return exchange.mutate().request(request).build();
     }
 }
@@ -0,0 +1,339 @@
+package fr.lalourche.hellojhipster.gateway.security.jwt;
+
+import static fr.lalourche.hellojhipster.gateway.security.jwt.JWTFilter.AUTHORIZATION_HEADER;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+import fr.lalourche.hellojhipster.gateway.config.ApplicationProperties;
+import fr.lalourche.hellojhipster.gateway.web.util.EntityTagUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Caches the responses to the {@code GET} requests proxied by a route, in a bounded in-memory store, so repeated reads
+ * are answered without leaving the gateway.
+ * <p>
+ * The responses are cached by route, path, query, {@code Accept} header and authorities of the caller, which are all
+ * the microservices vary their responses on. Requests with an invalid token are only proxied.
+ * <p>
+ * A response is only kept if the microservice allows it with the private {@value #TIME_TO_LIVE_HEADER} header, for
+ * that many seconds, at most for the configured time to live. It is not kept if it sets a cookie, or if the request
+ * has {@code no-store}. A request with {@code no-cache} is proxied and refreshes the cache. The header is removed from
+ * all the responses sent to the clients, whose {@code Cache-Control} is left as the microservice wrote it, so the
+ * browsers and the other caches don't store the responses of the authenticated callers. A cached response carrying an
+ * {@code ETag} answers a matching {@code If-None-Match} with {@code 304 (Not Modified)}.
+ * <p>
+ * The representations of the entities of a microservice embed each other, so a {@code POST}, {@code PUT},
+ * {@code PATCH} or {@code DELETE} passing through a route evicts all its cached responses, once when it is proxied and
+ * once again when it completes. A response is only stored if no eviction of its route happened while it was read.
+ * <p>
+ * The lookups are counted in the {@value #METRIC_NAME} counter, tagged by {@code route} and by {@code outcome}
+ * ({@code hit} or {@code miss}).
+ */
+@Component
+public class ResponseCacheGatewayFilterFactory extends AbstractGatewayFilterFactory<ResponseCacheGatewayFilterFactory.Config> {
+
+    public static final String METRIC_NAME = "gateway.response.cache";
+
+    public static final String TIME_TO_LIVE_HEADER = "X-Gateway-Cache-TTL";
+
+    private static final Set<HttpMethod> WRITE_METHODS = EnumSet.of(HttpMethod.POST, HttpMethod.PUT, HttpMethod.PATCH, HttpMethod.DELETE);
+
+    private static final String WEAK_PREFIX = "W/";
+
+    private final TokenProvider tokenProvider;
+
+    private final MeterRegistry meterRegistry;
+
+    private final int maxEntries;
+
+    private final long maxEntrySize;
+
+    private final Map<String, RouteEntries> entriesByRoute = new ConcurrentHashMap<>();
+
+    public ResponseCacheGatewayFilterFactory(
+        TokenProvider tokenProvider,
+        MeterRegistry meterRegistry,
+        ApplicationProperties applicationProperties
+    ) {
+        super(Config.class);
+        this.tokenProvider = tokenProvider;
+        this.meterRegistry = meterRegistry;
+        this.maxEntries = applicationProperties.getResponseCache().getMaxEntries();
+        this.maxEntrySize = applicationProperties.getResponseCache().getMaxEntrySize().toBytes();
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("timeToLive");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return (exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+            String routeId = route == null ? "" : route.getId();
+            RouteEntries entries = entriesByRoute.computeIfAbsent(routeId, id -> new RouteEntries());
+            // read by the caching response before the headers are written, but never sent to the client
+            ServerHttpResponse clientResponse = exchange.getResponse();
+            clientResponse.beforeCommit(() -> Mono.fromRunnable(() -> clientResponse.getHeaders().remove(TIME_TO_LIVE_HEADER)));
+            if (WRITE_METHODS.contains(request.getMethod())) {
+                entries.clear();
+                return chain.filter(exchange).doFinally(signal -> entries.clear());
+            }
+            Map<String, String> requestDirectives = parseDirectives(request.getHeaders().getCacheControl());
+            if (request.getMethod() != HttpMethod.GET || requestDirectives.containsKey("no-store")) {
+                return chain.filter(exchange);
+            }
+            String key = createKey(request);
+            if (key == null) {
+                return chain.filter(exchange);
+            }
+            if (!requestDirectives.containsKey("no-cache")) {
+                CachedResponse cached = entries.get(key);
+                if (cached != null) {
+                    meterRegistry.counter(METRIC_NAME, "route", routeId, "outcome", "hit").increment();
+                    return write(exchange, cached);
+                }
+            }
+            meterRegistry.counter(METRIC_NAME, "route", routeId, "outcome", "miss").increment();
+            long stamp = entries.evictions.get();
+            CachingResponse response = new CachingResponse(
+                exchange.getResponse(),
+                config.getTimeToLive(),
+                cached -> entries.put(key, cached, stamp)
+            );
+            return chain.filter(exchange.mutate().response(response).build());
+        };
+    }
+
+    // null if the caller has an invalid token, whose response mustn't be shared
+    private String createKey(ServerHttpRequest request) {
+        String authorities = "";
+        String bearerToken = request.getHeaders().getFirst(AUTHORIZATION_HEADER);
+        if (StringUtils.hasText(bearerToken)) {
+            Optional<Authentication> authentication = bearerToken.startsWith("Bearer ")
+                ? tokenProvider.verify(bearerToken.substring(7))
+                : Optional.empty();
+            if (authentication.isEmpty()) {
+                return null;
+            }
+            authorities =
+                authentication
+                    .get()
+                    .getAuthorities()
+                    .stream()
+                    .map(GrantedAuthority::getAuthority)
+                    .sorted()
+                    .collect(Collectors.joining(","));
+        }
+        return new StringBuilder(request.getURI().getRawPath())
+            .append('?')
+            .append(StringUtils.hasText(request.getURI().getRawQuery()) ? request.getURI().getRawQuery() : "")
+            .append('\n')
+            .append(String.join(",", request.getHeaders().getOrEmpty(HttpHeaders.ACCEPT)))
+            .append('\n')
+            .append(authorities)
+            .toString();
+    }
+
+    private static Mono<Void> write(ServerWebExchange exchange, CachedResponse cached) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.getHeaders().putAll(cached.headers);
+        if (cached.eTag != null && EntityTagUtil.matches(exchange.getRequest().getHeaders().getIfNoneMatch(), cached.eTag)) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            response.getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+            return response.setComplete();
+        }
+        response.setStatusCode(HttpStatus.OK);
+        response.getHeaders().setContentLength(cached.body.length);
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(cached.body)));
+    }
+
+    // the directives of a Cache-Control header, by lower case name, with their unquoted value or an empty string
+    static Map<String, String> parseDirectives(String cacheControl) {
+        Map<String, String> directives = new HashMap<>();
+        if (cacheControl == null) {
+            return directives;
+        }
+        for (String directive : cacheControl.split(",")) {
+            int separator = directive.indexOf('=');
+            String name = (separator < 0 ? directive : directive.substring(0, separator)).trim().toLowerCase(Locale.ROOT);
+            String value = separator < 0 ? "" : directive.substring(separator + 1).trim();
+            if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+                value = value.substring(1, value.length() - 1);
+            }
+            if (!name.isEmpty()) {
+                directives.putIfAbsent(name, value);
+            }
+        }
+        return directives;
+    }
+
+    public static class Config {
+
+        /**
+         * Longest time a response is kept, whatever its {@code X-Gateway-Cache-TTL} header.
+         */
+        private Duration timeToLive = Duration.ofSeconds(30);
+
+        public Duration getTimeToLive() {
+            return timeToLive;
+        }
+
+        public void setTimeToLive(Duration timeToLive) {
+            this.timeToLive = timeToLive;
+        }
+    }
+
+    private static final class CachedResponse {
+
+        private final HttpHeaders headers;
+        private final byte[] body;
+        private final String eTag;
+        private final long expiresAt;
+
+        CachedResponse(HttpHeaders headers, byte[] body, Duration timeToLive) {
+            this.headers = HttpHeaders.readOnlyHttpHeaders(headers);
+            this.body = body;
+            String tag = headers.getETag();
+            this.eTag = tag != null && tag.startsWith(WEAK_PREFIX) ? tag.substring(WEAK_PREFIX.length()) : tag;
+            this.expiresAt = System.nanoTime() + timeToLive.toNanos();
+        }
+
+        boolean isExpired() {
+            return System.nanoTime() - expiresAt >= 0;
+        }
+    }
+
+    private final class RouteEntries {
+
+        private final Map<String, CachedResponse> byKey = new ConcurrentHashMap<>();
+
+        private final AtomicLong evictions = new AtomicLong();
+
+        CachedResponse get(String key) {
+            CachedResponse cached = byKey.get(key);
+            if (cached != null && cached.isExpired()) {
+                byKey.remove(key, cached);
+                return null;
+            }
+            return cached;
+        }
+
+        // same scheme as the entity tags: the response isn't kept if the route has been evicted since it was requested
+        void put(String key, CachedResponse cached, long stamp) {
+            if (byKey.size() >= maxEntries) {
+                byKey.clear();
+            }
+            byKey.put(key, cached);
+            if (evictions.get() != stamp) {
+                byKey.remove(key, cached);
+            }
+        }
+
+        void clear() {
+            evictions.incrementAndGet();
+            byKey.clear();
+        }
+    }
+
+    /**
+     * Copies the body of a cacheable response while it is written, and stores it once it has been fully written. Only
+     * the responses written at once are cached, not the streamed ones.
+     */
+    private final class CachingResponse extends ServerHttpResponseDecorator {
+
+        private final Duration maxTimeToLive;
+
+        private final Consumer<CachedResponse> store;
+
+        // the copy of the body, null once it's too large to be cached
+        private ByteArrayOutputStream copy;
+
+        CachingResponse(ServerHttpResponse delegate, Duration maxTimeToLive, Consumer<CachedResponse> store) {
+            super(delegate);
+            this.maxTimeToLive = maxTimeToLive;
+            this.store = store;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            Duration timeToLive = getTimeToLive();
+            if (timeToLive == null) {
+                return super.writeWith(body);
+            }
+            copy = new ByteArrayOutputStream();
+            Flux<DataBuffer> copiedBody = Flux
+                .from(body)
+                .doOnNext(
+                    buffer -> {
+                        if (copy != null && copy.size() + buffer.readableByteCount() <= maxEntrySize) {
+                            ByteBuffer bytes = buffer.asByteBuffer();
+                            byte[] chunk = new byte[bytes.remaining()];
+                            bytes.get(chunk);
+                            copy.writeBytes(chunk);
+                        } else {
+                            copy = null;
+                        }
+                    }
+                )
+                .doOnComplete(
+                    () -> {
+                        if (copy != null) {
+                            HttpHeaders headers = new HttpHeaders();
+                            headers.putAll(getDelegate().getHeaders());
+                            store.accept(new CachedResponse(headers, copy.toByteArray(), timeToLive));
+                        }
+                    }
+                );
+            return super.writeWith(copiedBody);
+        }
+
+        // null if the response mustn't be cached
+        private Duration getTimeToLive() {
+            HttpHeaders headers = getDelegate().getHeaders();
+            if (getStatusCode() != HttpStatus.OK || headers.containsKey(HttpHeaders.SET_COOKIE)) {
+                return null;
+            }
+            long seconds = NumberUtils.toLong(headers.getFirst(TIME_TO_LIVE_HEADER));
+            if (seconds <= 0) {
+                return null;
+            }
+            Duration timeToLive = Duration.ofSeconds(seconds);
+            return timeToLive.compareTo(maxTimeToLive) < 0 ? timeToLive : maxTimeToLive;
+        }
+    }
+}
@@ -4,12 +4,21 @@ import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.jackson.io.JacksonSerializer;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
@@ -17,6 +26,7 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.stereotype.Component;
 import org.springframework.util.ObjectUtils;
+import org.springframework.util.StringUtils;
 import tech.jhipster.config.JHipsterProperties;
 
 @Component
@@ -26,6 +36,14 @@ public class TokenProvider {
 
     private static final String AUTHORITIES_KEY = "auth";
 
+    public static final String VERIFICATION_METRIC_NAME = "security.jwt.verification";
+
+    public static final String CACHE_METRIC_NAME = "security.jwt.cache";
+
+    private static final int MAX_VERIFIED_TOKENS = 10000;
+
+    private static final int MAX_AUTHORITY_SETS = 1000;
+
     private final Key key;
 
     private final JwtParser jwtParser;
@@ -34,7 +52,20 @@ public class TokenProvider {
 
     private final long tokenValidityInMillisecondsForRememberMe;
 
-    public TokenProvider(JHipsterProperties jHipsterProperties) {
+    // Verified tokens, by SHA-256 digest, until they expire
+    private final Map<ByteBuffer, VerifiedToken> verifiedTokens = new ConcurrentHashMap<>();
+
+    private int maxVerifiedTokens = MAX_VERIFIED_TOKENS;
+
+    private final Map<String, Collection<GrantedAuthority>> authoritiesByClaim = new ConcurrentHashMap<>();
+
+    private final Timer verificationTimer;
+
+    private final Counter cacheHits;
+
+    private final Counter cacheMisses;
+
+    public TokenProvider(JHipsterProperties jHipsterProperties, MeterRegistry meterRegistry) {
         byte[] keyBytes;
         String secret = jHipsterProperties.getSecurity().getAuthentication().getJwt().getSecret();
         if (!ObjectUtils.isEmpty(secret)) {
@@ -52,6 +83,9 @@ public class TokenProvider {
         this.tokenValidityInMilliseconds = 1000 * jHipsterProperties.getSecurity().getAuthentication().getJwt().getTokenValidityInSeconds();
         this.tokenValidityInMillisecondsForRememberMe =
             1000 * jHipsterProperties.getSecurity().getAuthentication().getJwt().getTokenValidityInSecondsForRememberMe();
+        this.verificationTimer = meterRegistry.timer(VERIFICATION_METRIC_NAME);
+        this.cacheHits = meterRegistry.counter(CACHE_METRIC_NAME, "outcome", "hit");
+        this.cacheMisses = meterRegistry.counter(CACHE_METRIC_NAME, "outcome", "miss");
     }
 
     public String createToken(Authentication authentication, boolean rememberMe) {
@@ -75,28 +109,118 @@ public class TokenProvider {
             .compact();
     }
 
+    /**
+     * Verifies a token and builds its authentication, in a single parse.
+     * <p>
+     * The principals and authorities of the verified tokens are kept until they expire, by digest, so the following
+     * requests with the same token neither check its signature nor decode its claims again, each of them getting its
+     * own authentication. When too many tokens are kept, the expired ones are evicted first, then those expiring first.
+     * The lookups are counted in the {@value #CACHE_METRIC_NAME} counter, tagged by {@code outcome} ({@code hit} or
+     * {@code miss}), and the parses are timed in the {@value #VERIFICATION_METRIC_NAME} timer.
+     *
+     * @param token the token.
+     * @return the authentication of the token, or an empty {@link Optional} if the token is invalid.
+     */
+    public Optional<Authentication> verify(String token) {
+        if (!StringUtils.hasText(token)) {
+            return Optional.empty();
+        }
+        ByteBuffer digest = digest(token);
+        VerifiedToken verified = verifiedTokens.get(digest);
+        if (verified != null) {
+            if (System.currentTimeMillis() < verified.expiresAt) {
+                cacheHits.increment();
+                return Optional.of(new UsernamePasswordAuthenticationToken(verified.principal, token, verified.authorities));
+            }
+            verifiedTokens.remove(digest, verified);
+        }
+        cacheMisses.increment();
+        Claims claims;
+        long start = System.nanoTime();
+        try {
+            claims = jwtParser.parseClaimsJws(token).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            log.info("Invalid JWT token.");
+            log.trace("Invalid JWT token trace.", e);
+            return Optional.empty();
+        } finally {
+            verificationTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        Collection<GrantedAuthority> authorities = getAuthorities(claims.get(AUTHORITIES_KEY).toString());
+        User principal = new User(claims.getSubject(), "", authorities);
+        // the tokens without expiration are verified each time
+        if (claims.getExpiration() != null) {
+            if (verifiedTokens.size() >= maxVerifiedTokens) {
+                evictVerifiedTokens();
+            }
+            verifiedTokens.put(digest, new VerifiedToken(principal, authorities, claims.getExpiration().getTime()));
+        }
+        return Optional.of(new UsernamePasswordAuthenticationToken(principal, token, authorities));
+    }
+
     public Authentication getAuthentication(String token) {
-        Claims claims = jwtParser.parseClaimsJws(token).getBody();
+        return verify(token).orElseThrow(() -> new BadCredentialsException("Invalid JWT token"));
+    }
 
-        Collection<? extends GrantedAuthority> authorities = Arrays
-            .stream(claims.get(AUTHORITIES_KEY).toString().split(","))
-            .filter(auth -> !auth.trim().isEmpty())
-            .map(SimpleGrantedAuthority::new)
-            .collect(Collectors.toList());
+    public boolean validateToken(String authToken) {
+        return verify(authToken).isPresent();
+    }
 
-        User principal = new User(claims.getSubject(), "", authorities);
+    // the tokens carry a handful of combinations of authorities, each parsed once into a collection shared by its tokens
+    private Collection<GrantedAuthority> getAuthorities(String claim) {
+        Collection<GrantedAuthority> authorities = authoritiesByClaim.get(claim);
+        if (authorities == null) {
+            authorities =
+                Arrays
+                    .stream(claim.split(","))
+                    .filter(auth -> !auth.trim().isEmpty())
+                    .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+                    .collect(Collectors.toUnmodifiableList());
+            if (authoritiesByClaim.size() >= MAX_AUTHORITY_SETS) {
+                authoritiesByClaim.clear();
+            }
+            authoritiesByClaim.put(claim, authorities);
+        }
+        return authorities;
+    }
 
-        return new UsernamePasswordAuthenticationToken(principal, token, authorities);
+    // the tokens of the other users are kept, rather than all being verified again at once
+    private void evictVerifiedTokens() {
+        long now = System.currentTimeMillis();
+        verifiedTokens.values().removeIf(verified -> verified.expiresAt <= now);
+        int excess = verifiedTokens.size() - maxVerifiedTokens * 9 / 10;
+        if (excess > 0) {
+            verifiedTokens
+                .entrySet()
+                .stream()
+                .sorted(Comparator.comparingLong(entry -> entry.getValue().expiresAt))
+                .limit(excess)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList())
+                .forEach(verifiedTokens::remove);
+        }
     }
 
-    public boolean validateToken(String authToken) {
+    private static ByteBuffer digest(String token) {
         try {
-            jwtParser.parseClaimsJws(authToken);
-            return true;
-        } catch (JwtException | IllegalArgumentException e) {
-            log.info("Invalid JWT token.");
-            log.trace("Invalid JWT token trace.", e);
+            return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static final class VerifiedToken {
+
+        private final User principal;
+
+        private final Collection<GrantedAuthority> authorities;
+
+        private final long expiresAt;
+
+        VerifiedToken(User principal, Collection<GrantedAuthority> authorities, long expiresAt) {
+            this.principal = principal;
+            this.authorities = authorities;
+            this.expiresAt = expiresAt;
         }
-        return false;
     }
 }
@@ -0,0 +1,183 @@
+package fr.lalourche.hellojhipster.gateway.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.lalourche.hellojhipster.gateway.config.ApplicationProperties;
+import fr.lalourche.hellojhipster.gateway.service.dto.BulkItemResultDTO;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+/**
+ * Service class for creating entities in bulk.
+ * <p>
+ * The entities are written in batches of {@code application.bulk.batch-size}, each in its own transaction with a single
+ * insert statement, then indexed with a single Elasticsearch bulk request per batch. The next batch is only read once the results of the
+ * previous one have been emitted, so a slow client slows the import down instead of filling the memory.
+ * <p>
+ * Each line is decoded on its own, so a malformed line is only reported in its own result. A batch being written in a single
+ * transaction, an entity which can't be written, e.g. because of a missing relationship, rolls the whole batch back, all its
+ * entities being reported as {@value #ERR_WRITE_FAILED}.
+ */
+@Service
+public class BulkService {
+
+    /**
+     * Error key of the entities which couldn't be written, the details being only logged.
+     */
+    public static final String ERR_WRITE_FAILED = "error.writeFailed";
+
+    /**
+     * Error key of the entities written but which couldn't be indexed, the details being only logged.
+     */
+    public static final String ERR_INDEX_FAILED = "error.indexFailed";
+
+    private final Logger log = LoggerFactory.getLogger(BulkService.class);
+
+    private final Validator validator;
+
+    private final ObjectMapper objectMapper;
+
+    private final TransactionalOperator transactionalOperator;
+
+    private final ApplicationProperties applicationProperties;
+
+    public BulkService(
+        Validator validator,
+        ObjectMapper objectMapper,
+        ReactiveTransactionManager transactionManager,
+        ApplicationProperties applicationProperties
+    ) {
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.transactionalOperator = TransactionalOperator.create(transactionManager);
+        this.applicationProperties = applicationProperties;
+    }
+
+    /**
+     * Creates the entities of the given lines.
+     *
+     * @param lines the lines of the request, each holding a JSON entity to create, which must not have an id; the blank lines are skipped.
+     * @param type the type of the entities.
+     * @param getId the id getter of the entities.
+     * @param saveAll inserts a batch of entities in the database, returning them in the same order.
+     * @param index indexes the saved entities in Elasticsearch.
+     * @param <T> the type of the entities.
+     * @return the result of the creation of each entity, in the order of the entities.
+     */
+    public <T> Flux<BulkItemResultDTO> createAll(
+        Flux<String> lines,
+        Class<T> type,
+        Function<T, Long> getId,
+        Function<List<T>, Flux<T>> saveAll,
+        Function<List<T>, Flux<T>> index
+    ) {
+        int batchSize = applicationProperties.getBulk().getBatchSize();
+        return lines
+            .filter(StringUtils::hasText)
+            .index()
+            .buffer(batchSize)
+            .concatMap(batch -> createBatch(batch, type, getId, saveAll, index), 1);
+    }
+
+    private <T> Flux<BulkItemResultDTO> createBatch(
+        List<Tuple2<Long, String>> batch,
+        Class<T> type,
+        Function<T, Long> getId,
+        Function<List<T>, Flux<T>> saveAll,
+        Function<List<T>, Flux<T>> index
+    ) {
+        List<BulkItemResultDTO> rejected = new ArrayList<>();
+        List<Tuple2<Long, T>> accepted = new ArrayList<>();
+        for (Tuple2<Long, String> line : batch) {
+            T entity = null;
+            String error;
+            try {
+                entity = objectMapper.readValue(line.getT2(), type);
+                error = entity == null ? "Malformed JSON: an object is expected" : validate(entity, getId);
+            } catch (JsonProcessingException e) {
+                error = "Malformed JSON: " + e.getOriginalMessage();
+            }
+            if (error != null) {
+                rejected.add(new BulkItemResultDTO(line.getT1(), null, HttpStatus.BAD_REQUEST.value(), error));
+            } else {
+                accepted.add(Tuples.of(line.getT1(), entity));
+            }
+        }
+        if (accepted.isEmpty()) {
+            return Flux.fromIterable(rejected);
+        }
+
+        Mono<List<BulkItemResultDTO>> created = saveAll
+            .apply(accepted.stream().map(Tuple2::getT2).collect(Collectors.toList()))
+            .zipWithIterable(accepted, (entity, item) -> Tuples.of(item.getT1(), entity))
+            .as(transactionalOperator::transactional)
+            .collectList()
+            .flatMap(
+                saved ->
+                    index
+                        .apply(saved.stream().map(Tuple2::getT2).collect(Collectors.toList()))
+                        .then(Mono.fromSupplier(() -> toResults(saved, getId, HttpStatus.CREATED.value(), null)))
+                        .onErrorResume(
+                            e -> {
+                                log.warn("Could not index a batch of {} entities", saved.size(), e);
+                                return Mono.just(toResults(saved, getId, HttpStatus.INTERNAL_SERVER_ERROR.value(), ERR_INDEX_FAILED));
+                            }
+                        )
+            )
+            .onErrorResume(
+                e -> {
+                    log.warn("Could not write a batch of {} entities", accepted.size(), e);
+                    // the transaction was rolled back, so none of the entities has been created
+                    return Mono.just(toResults(accepted, entity -> null, HttpStatus.INTERNAL_SERVER_ERROR.value(), ERR_WRITE_FAILED));
+                }
+            );
+
+        return created.flatMapIterable(
+            results -> {
+                List<BulkItemResultDTO> all = new ArrayList<>(results);
+                all.addAll(rejected);
+                all.sort(Comparator.comparingLong(BulkItemResultDTO::getIndex));
+                return all;
+            }
+        );
+    }
+
+    private <T> String validate(T entity, Function<T, Long> getId) {
+        if (getId.apply(entity) != null) {
+            return "A new entity cannot already have an ID";
+        }
+        Set<ConstraintViolation<T>> violations = validator.validate(entity);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations
+            .stream()
+            .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+            .sorted()
+            .collect(Collectors.joining(", "));
+    }
+
+    private static <T> List<BulkItemResultDTO> toResults(List<Tuple2<Long, T>> items, Function<T, Long> getId, int status, String error) {
+        return items
+            .stream()
+            .map(item -> new BulkItemResultDTO(item.getT1(), getId.apply(item.getT2()), status, error))
+            .collect(Collectors.toList());
+    }
+}
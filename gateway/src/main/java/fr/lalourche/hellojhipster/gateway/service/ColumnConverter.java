@@ -1,6 +1,9 @@
 package fr.lalourche.hellojhipster.gateway.service;
 
 import io.r2dbc.spi.Row;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
 import org.springframework.core.convert.ConversionService;
 import org.springframework.data.r2dbc.convert.R2dbcConverter;
 import org.springframework.data.r2dbc.convert.R2dbcCustomConversions;
@@ -47,20 +50,88 @@ public class ColumnConverter {
     }
 
     /**
-     * Convert a value from the {@link Row} to a type - throws an exception, it it's impossible.
-     * @param row which contains the column values.
+     * Creates a reader of the values of a column, converted to the target class. Unlike converting each value, the
+     * reader resolves once whether the driver converts the column values itself or if the {@link ConversionService}
+     * is needed, and looks enum constants up by name in a precomputed table.
      * @param target class.
-     * @param columnName the name of the column which to convert.
      * @param <T> the parameter for the intended type.
-     * @return the value which can be constructed from the input.
+     * @return the reader, which should be created once per column and reused for every row.
      */
-    public <T> T fromRow(Row row, String columnName, Class<T> target) {
-        try {
-            // try, directly the driver
-            return row.get(columnName, target);
-        } catch (Exception e) {
-            Object obj = row.get(columnName);
-            return convert(obj, target);
+    public <T> ColumnReader<T> createReader(Class<T> target) {
+        return new ColumnReader<>(target, createConversion(target));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Function<Object, T> createConversion(Class<T> target) {
+        if (Enum.class.isAssignableFrom(target) && !conversions.hasCustomReadTarget(String.class, target)) {
+            Map<String, T> constants = new HashMap<>();
+            for (T constant : target.getEnumConstants()) {
+                constants.put(((Enum<?>) constant).name(), constant);
+            }
+            return value -> {
+                if (value == null || target.isInstance(value)) {
+                    return (T) value;
+                }
+                T constant = constants.get(value.toString());
+                if (constant == null) {
+                    throw new IllegalArgumentException("No enum constant " + target.getCanonicalName() + "." + value);
+                }
+                return constant;
+            };
+        }
+        return value -> convert(value, target);
+    }
+
+    /**
+     * Reads the values of a column from {@link Row}s, converted to a target class.
+     * @param <T> the parameter for the intended type.
+     */
+    public static final class ColumnReader<T> {
+
+        private final Class<T> target;
+        private final Function<Object, T> conversion;
+
+        // null until a non null value has been read, then whether the driver converts the values itself
+        private Boolean driverConversion;
+
+        private ColumnReader(Class<T> target, Function<Object, T> conversion) {
+            this.target = target;
+            this.conversion = conversion;
+        }
+
+        /**
+         * Reads the value of the column from the {@link Row}.
+         * @param row which contains the column values.
+         * @param columnName the name of the column.
+         * @return the value of the column, converted to the target class.
+         */
+        public T read(Row row, String columnName) {
+            Boolean driver = driverConversion;
+            if (driver == null) {
+                return resolve(row, columnName);
+            }
+            return driver ? row.get(columnName, target) : conversion.apply(row.get(columnName));
+        }
+
+        private T resolve(Row row, String columnName) {
+            Object value = row.get(columnName);
+            if (value == null) {
+                return null;
+            }
+            if (target.isInstance(value)) {
+                driverConversion = false;
+                return conversion.apply(value);
+            }
+            T converted;
+            try {
+                // only happens once per column, to find out whether the driver can convert it
+                converted = row.get(columnName, target);
+            } catch (Exception e) {
+                driverConversion = false;
+                return conversion.apply(value);
+            }
+            driverConversion = true;
+            return converted;
         }
     }
 }
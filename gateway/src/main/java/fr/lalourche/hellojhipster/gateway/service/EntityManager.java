@@ -1,21 +1,42 @@
 package fr.lalourche.hellojhipster.gateway.service;
 
+import io.r2dbc.spi.Statement;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.PersistentPropertyAccessor;
 import org.springframework.data.r2dbc.convert.R2dbcConverter;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.core.ReactiveDataAccessStrategy;
 import org.springframework.data.r2dbc.core.StatementMapper;
+import org.springframework.data.r2dbc.dialect.PostgresDialect;
+import org.springframework.data.r2dbc.dialect.R2dbcDialect;
 import org.springframework.data.r2dbc.mapping.OutboundRow;
+import org.springframework.data.r2dbc.query.BoundCondition;
 import org.springframework.data.r2dbc.query.UpdateMapper;
 import org.springframework.data.relational.core.mapping.RelationalPersistentEntity;
+import org.springframework.data.relational.core.mapping.RelationalPersistentProperty;
 import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.CriteriaDefinition;
+import org.springframework.data.relational.core.query.Query;
+import org.springframework.data.relational.core.sql.Column;
 import org.springframework.data.relational.core.sql.Conditions;
+import org.springframework.data.relational.core.sql.Expression;
 import org.springframework.data.relational.core.sql.OrderByField;
 import org.springframework.data.relational.core.sql.Select;
 import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoin;
@@ -24,7 +45,13 @@ import org.springframework.data.relational.core.sql.SelectBuilder.SelectOrdered;
 import org.springframework.data.relational.core.sql.SqlIdentifier;
 import org.springframework.data.relational.core.sql.Table;
 import org.springframework.data.relational.core.sql.render.SqlRenderer;
+import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.r2dbc.core.Parameter;
+import org.springframework.r2dbc.core.PreparedOperation;
+import org.springframework.r2dbc.core.binding.BindMarker;
+import org.springframework.r2dbc.core.binding.BindMarkers;
+import org.springframework.r2dbc.core.binding.BindTarget;
+import org.springframework.r2dbc.core.binding.Bindings;
 import org.springframework.stereotype.Service;
 import org.springframework.util.Assert;
 import reactor.core.publisher.Flux;
@@ -32,13 +59,16 @@ import reactor.core.publisher.Mono;
 
 /**
  * Helper class to create SQL selects based on the entity, paging parameters and criteria.
- *
+ * The selects are parameterized, and their rendered SQL is cached by shape, so the database can reuse its statements.
  */
 @Service
 public class EntityManager {
 
     public static final String ENTITY_ALIAS = "e";
     public static final String ALIAS_PREFIX = "e_";
+    public static final String LINK_ALIAS = "l";
+    public static final String LINK_OWNER_ALIAS = "l_owner_id";
+    public static final String LINK_OWNER_IDS = "ownerIds";
 
     public static class LinkTable {
 
@@ -56,96 +86,461 @@ public class EntityManager {
         }
     }
 
+    private enum Paging {
+        NONE,
+        OFFSET,
+        KEYSET,
+    }
+
+    /**
+     * Identifies the shape of a select, which is enough to reuse its rendered SQL.
+     */
+    private static final class SelectKey {
+
+        private final Class<?> entityType;
+        private final List<Expression> columns;
+        private final Sort sort;
+        private final Paging paging;
+        private final String criteria;
+
+        SelectKey(Class<?> entityType, List<Expression> columns, Sort sort, Paging paging, String criteria) {
+            this.entityType = entityType;
+            this.columns = columns;
+            this.sort = sort;
+            this.paging = paging;
+            this.criteria = criteria;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SelectKey)) {
+                return false;
+            }
+            SelectKey other = (SelectKey) o;
+            return (
+                paging == other.paging &&
+                entityType.equals(other.entityType) &&
+                columns.equals(other.columns) &&
+                sort.equals(other.sort) &&
+                criteria.equals(other.criteria)
+            );
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(entityType, columns, sort, paging, criteria);
+        }
+    }
+
+    /**
+     * A rendered select, with the values to bind to its parameters.
+     */
+    private static final class PreparedSelect implements PreparedOperation<String> {
+
+        private final String sql;
+        private final Bindings bindings;
+        private final BindMarker limitMarker;
+        private final Integer limit;
+        private final BindMarker offsetMarker;
+        private final Long offset;
+
+        PreparedSelect(String sql, Bindings bindings, BindMarker limitMarker, Integer limit, BindMarker offsetMarker, Long offset) {
+            this.sql = sql;
+            this.bindings = bindings;
+            this.limitMarker = limitMarker;
+            this.limit = limit;
+            this.offsetMarker = offsetMarker;
+            this.offset = offset;
+        }
+
+        @Override
+        public String getSource() {
+            return sql;
+        }
+
+        @Override
+        public void bindTo(BindTarget target) {
+            if (bindings != null) {
+                bindings.apply(target);
+            }
+            if (limitMarker != null) {
+                limitMarker.bind(target, limit);
+            }
+            if (offsetMarker != null) {
+                offsetMarker.bind(target, offset);
+            }
+        }
+
+        @Override
+        public String toQuery() {
+            return sql;
+        }
+    }
+
     private final SqlRenderer sqlRenderer;
     private final UpdateMapper updateMapper;
     private final R2dbcEntityTemplate r2dbcEntityTemplate;
     private final StatementMapper statementMapper;
+    private final R2dbcDialect dialect;
 
-    public EntityManager(SqlRenderer sqlRenderer, UpdateMapper updateMapper, R2dbcEntityTemplate r2dbcEntityTemplate) {
+    // Rendered selects, by shape of query
+    private static final int MAX_CACHED_SELECTS = 1024;
+    private final Map<SelectKey, String> selectCache = new ConcurrentHashMap<>();
+
+    public EntityManager(
+        SqlRenderer sqlRenderer,
+        UpdateMapper updateMapper,
+        R2dbcEntityTemplate r2dbcEntityTemplate,
+        R2dbcDialect dialect
+    ) {
         this.sqlRenderer = sqlRenderer;
         this.updateMapper = updateMapper;
         this.r2dbcEntityTemplate = r2dbcEntityTemplate;
         this.statementMapper = r2dbcEntityTemplate.getDataAccessStrategy().getStatementMapper();
+        this.dialect = dialect;
     }
 
     /**
-     * Creates an SQL select statement from the given fragment and pagination parameters.
-     * @param selectFrom a representation of a select statement.
+     * Creates a parameterized SQL select statement from the given columns, pagination parameters and criteria.
+     * The criteria values, the limit and the offset are passed as bind parameters, so the generated SQL only depends on
+     * the shape of the query, and is rendered once then cached. The columns are expected to be a constant list.
+     * @param table the table of the entity, aliased with {@link #ENTITY_ALIAS}.
+     * @param columns the columns to select.
      * @param entityType the entity type which holds the table name.
      * @param pageable page parameter, or null, if everything needs to be returned
-     * @return sql select statement
+     * @param criteria the criteria to filter the entities, or null, if everything needs to be returned
+     * @return the sql select statement, with its bindings
      */
-    public String createSelect(SelectFromAndJoin selectFrom, Class<?> entityType, Pageable pageable, Criteria criteria) {
-        if (pageable != null) {
-            if (criteria != null) {
-                return createSelectImpl(
-                    selectFrom.limitOffset(pageable.getPageSize(), pageable.getOffset()).where(Conditions.just(criteria.toString())),
-                    entityType,
-                    pageable.getSort()
-                );
-            } else {
-                return createSelectImpl(
-                    selectFrom.limitOffset(pageable.getPageSize(), pageable.getOffset()),
-                    entityType,
-                    pageable.getSort()
-                );
+    public PreparedOperation<String> createSelect(
+        Table table,
+        List<Expression> columns,
+        Class<?> entityType,
+        Pageable pageable,
+        Criteria criteria
+    ) {
+        if (pageable == null || pageable.isUnpaged()) {
+            Sort sort = pageable != null ? pageable.getSort() : Sort.unsorted();
+            return createSelectImpl(table, columns, entityType, Paging.NONE, sort, criteria, null, null);
+        }
+        return createSelectImpl(
+            table,
+            columns,
+            entityType,
+            Paging.OFFSET,
+            pageable.getSort(),
+            criteria,
+            pageable.getPageSize(),
+            pageable.getOffset()
+        );
+    }
+
+    /**
+     * Creates a parameterized SQL select statement which returns the page of entities following the given keyset.
+     * The entities are filtered on their sort key, instead of skipping an offset, so every page costs the same.
+     * @param table the table of the entity, aliased with {@link #ENTITY_ALIAS}.
+     * @param columns the columns to select.
+     * @param entityType the entity type which holds the table name.
+     * @param keyset the position of the page.
+     * @param criteria the criteria to filter the entities, or null, if everything needs to be returned
+     * @return the sql select statement, with its bindings
+     */
+    public PreparedOperation<String> createSelect(
+        Table table,
+        List<Expression> columns,
+        Class<?> entityType,
+        Keyset keyset,
+        Criteria criteria
+    ) {
+        Criteria seek = createSeekCriteria(keyset);
+        Criteria where = seek == null ? criteria : criteria == null || criteria.isEmpty() ? seek : criteria.and(seek);
+        return createSelectImpl(table, columns, entityType, Paging.KEYSET, keyset.getSort(), where, keyset.getSize(), null);
+    }
+
+    private PreparedOperation<String> createSelectImpl(
+        Table table,
+        List<Expression> columns,
+        Class<?> entityType,
+        Paging paging,
+        Sort sort,
+        Criteria criteria,
+        Integer limit,
+        Long offset
+    ) {
+        RelationalPersistentEntity<?> entity = getPersistentEntity(entityType);
+
+        BindMarkers bindMarkers = dialect.getBindMarkersFactory().create();
+        BoundCondition boundCondition = criteria != null && !criteria.isEmpty()
+            ? updateMapper.getMappedObject(bindMarkers, criteria, table, entity)
+            : null;
+        BindMarker limitMarker = limit != null ? bindMarkers.next() : null;
+        BindMarker offsetMarker = offset != null ? bindMarkers.next() : null;
+
+        SelectKey key = new SelectKey(entityType, columns, sort, paging, describe(criteria));
+        String sql = selectCache.get(key);
+        if (sql == null) {
+            sql = renderSelect(table, columns, entity, paging, sort, boundCondition, limitMarker, offsetMarker);
+            if (selectCache.size() < MAX_CACHED_SELECTS) {
+                selectCache.putIfAbsent(key, sql);
             }
-        } else {
-            if (criteria != null) {
-                return createSelectImpl(selectFrom.where(Conditions.just(criteria.toString())), entityType, null);
-            } else {
-                return createSelectImpl(selectFrom, entityType, null);
+        }
+        return new PreparedSelect(
+            sql,
+            boundCondition != null ? boundCondition.getBindings() : null,
+            limitMarker,
+            limit,
+            offsetMarker,
+            offset
+        );
+    }
+
+    private String renderSelect(
+        Table table,
+        List<Expression> columns,
+        RelationalPersistentEntity<?> entity,
+        Paging paging,
+        Sort sortParameter,
+        BoundCondition boundCondition,
+        BindMarker limitMarker,
+        BindMarker offsetMarker
+    ) {
+        SelectFromAndJoin selectFrom = Select.builder().select(columns).from(table);
+        SelectOrdered selectOrdered = boundCondition != null ? selectFrom.where(boundCondition.getCondition()) : selectFrom;
+        Sort sort = sortParameter.isSorted() && entity != null ? updateMapper.getMappedObject(sortParameter, entity) : Sort.unsorted();
+        if (paging != Paging.KEYSET && sort.isSorted()) {
+            selectOrdered = selectOrdered.orderBy(createOrderByFields(table, sort));
+        }
+        StringBuilder sql = new StringBuilder(createSelect(selectOrdered.build()));
+        if (paging == Paging.KEYSET) {
+            // nulls are explicitly sorted last, as the seek criteria expect it whatever the database default is
+            sql.append(" ORDER BY ");
+            String separator = "";
+            for (Sort.Order order : sort) {
+                sql.append(separator).append(ENTITY_ALIAS).append('.').append(order.getProperty());
+                sql.append(order.isAscending() ? " ASC" : " DESC").append(" NULLS LAST");
+                separator = ", ";
             }
         }
+        // the limit and offset are bound, instead of being rendered as literals by the dialect
+        if (limitMarker != null) {
+            sql.append(" LIMIT ").append(limitMarker.getPlaceholder());
+        }
+        if (offsetMarker != null) {
+            sql.append(" OFFSET ").append(offsetMarker.getPlaceholder());
+        }
+        return sql.toString();
     }
 
     /**
-     * Creates an SQL select statement from the given fragment and pagination parameters.
-     * @param selectFrom a representation of a select statement.
-     * @param entityType the entity type which holds the table name.
-     * @param pageable page parameter, or null, if everything needs to be returned
-     * @return sql select statement
+     * Creates the criteria matching the entities after the given keyset, with nulls sorted last:
+     * {@code (a > :a) OR (a = :a AND b > :b) OR ... }
      */
-    public String createSelect(SelectFromAndJoinCondition selectFrom, Class<?> entityType, Pageable pageable, Criteria criteria) {
-        if (pageable != null) {
-            if (criteria != null) {
-                return createSelectImpl(
-                    selectFrom.limitOffset(pageable.getPageSize(), pageable.getOffset()).where(Conditions.just(criteria.toString())),
-                    entityType,
-                    pageable.getSort()
-                );
-            } else {
-                return createSelectImpl(
-                    selectFrom.limitOffset(pageable.getPageSize(), pageable.getOffset()),
-                    entityType,
-                    pageable.getSort()
-                );
+    private static Criteria createSeekCriteria(Keyset keyset) {
+        if (keyset.isFirst()) {
+            return null;
+        }
+        List<Sort.Order> orders = keyset.getSort().toList();
+        List<Object> values = keyset.getValues();
+        Criteria seek = null;
+        for (int i = 0; i < orders.size(); i++) {
+            Sort.Order order = orders.get(i);
+            Object value = values.get(i);
+            if (value == null) {
+                // nothing sorts after a null value, except rows with the same prefix, which are matched by the next terms
+                continue;
             }
-        } else {
-            if (criteria != null) {
-                return createSelectImpl(selectFrom.where(Conditions.just(criteria.toString())), entityType, null);
-            } else {
-                return createSelectImpl(selectFrom, entityType, null);
+            Criteria term = null;
+            for (int j = 0; j < i; j++) {
+                String property = orders.get(j).getProperty();
+                Criteria equal = values.get(j) == null ? Criteria.where(property).isNull() : Criteria.where(property).is(values.get(j));
+                term = term == null ? equal : term.and(equal);
             }
+            Criteria after = order.isAscending()
+                ? Criteria.where(order.getProperty()).greaterThan(value)
+                : Criteria.where(order.getProperty()).lessThan(value);
+            after = after.or(order.getProperty()).isNull();
+            term = term == null ? after : term.and(after);
+            seek = seek == null ? term : seek.or(term);
+        }
+        return seek;
+    }
+
+    /**
+     * Creates the keyset of a page, from the requested sort or from the continuation token of the previous page.
+     * @param entityType the entity type which holds the sorted properties.
+     * @param sort the requested sort, only used for the first page, as the next pages keep the sort of their token.
+     * @param after the continuation token returned with the previous page, or null or empty for the first page.
+     * @param size the maximum number of entities in the page, lowered to {@link Keyset#MAX_SIZE}.
+     * @return the keyset of the page.
+     * @throws IllegalArgumentException if the token is invalid, or if the sort refers to an unknown property.
+     */
+    public Keyset createKeyset(Class<?> entityType, Sort sort, String after, int size) {
+        Assert.isTrue(size > 0, "size must be positive");
+        size = Math.min(size, Keyset.MAX_SIZE);
+        RelationalPersistentEntity<?> entity = getRequiredPersistentEntity(entityType);
+        if (after == null || after.isEmpty()) {
+            return new Keyset(completeSort(entity, sort), Collections.emptyList(), size);
+        }
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(after), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid continuation token", e);
+        }
+        List<Sort.Order> orders = new ArrayList<>();
+        List<Object> values = new ArrayList<>();
+        for (String part : decoded.split(",")) {
+            String[] fields = part.split("\\.", -1);
+            if (fields.length != 3) {
+                throw new IllegalArgumentException("Invalid continuation token");
+            }
+            RelationalPersistentProperty property = getSortableProperty(entity, fields[0]);
+            orders.add("D".equals(fields[1]) ? Sort.Order.desc(fields[0]) : Sort.Order.asc(fields[0]));
+            values.add(NULL_TOKEN_VALUE.equals(fields[2]) ? null : decodeTokenValue(fields[2], property.getType()));
+        }
+        Sort tokenSort = Sort.by(orders);
+        if (!tokenSort.equals(completeSort(entity, tokenSort))) {
+            throw new IllegalArgumentException("Invalid continuation token");
+        }
+        return new Keyset(tokenSort, values, size);
+    }
+
+    /**
+     * Creates the continuation token of the page following the given entity, in the listing described by the keyset.
+     * @param keyset the keyset of the current page.
+     * @param lastEntity the last entity of the current page.
+     * @return the opaque continuation token.
+     */
+    public String createContinuationToken(Keyset keyset, Object lastEntity) {
+        RelationalPersistentEntity<?> entity = getRequiredPersistentEntity(lastEntity.getClass());
+        PersistentPropertyAccessor<Object> accessor = entity.getPropertyAccessor(lastEntity);
+        StringBuilder token = new StringBuilder();
+        for (Sort.Order order : keyset.getSort()) {
+            Object value = accessor.getProperty(getSortableProperty(entity, order.getProperty()));
+            if (token.length() > 0) {
+                token.append(',');
+            }
+            token.append(order.getProperty()).append('.').append(order.isAscending() ? 'A' : 'D').append('.');
+            token.append(value == null ? NULL_TOKEN_VALUE : encodeTokenValue(value));
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static final String NULL_TOKEN_VALUE = "~";
+
+    private String encodeTokenValue(Object value) {
+        String text = r2dbcEntityTemplate.getConverter().getConversionService().convert(value, String.class);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Object decodeTokenValue(String value, Class<?> type) {
+        try {
+            String text = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            return r2dbcEntityTemplate.getConverter().getConversionService().convert(text, type);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid continuation token", e);
+        }
+    }
+
+    /**
+     * Appends the id to the sort, if it isn't already part of it, so the sort is a total order.
+     */
+    private static Sort completeSort(RelationalPersistentEntity<?> entity, Sort sort) {
+        String idProperty = entity.getRequiredIdProperty().getName();
+        Sort completed = sort == null ? Sort.unsorted() : sort;
+        completed.forEach(order -> getSortableProperty(entity, order.getProperty()));
+        if (completed.getOrderFor(idProperty) == null) {
+            completed = completed.and(Sort.by(idProperty));
+        }
+        return completed;
+    }
+
+    private static RelationalPersistentProperty getSortableProperty(RelationalPersistentEntity<?> entity, String name) {
+        RelationalPersistentProperty property = entity.getPersistentProperty(name);
+        if (property == null || property.isTransient() || property.isEntity()) {
+            throw new IllegalArgumentException("Unknown sort property " + name);
+        }
+        return property;
+    }
+
+    /**
+     * Describes the shape of the given criteria - columns, comparators and number of bound values - without its values.
+     */
+    private static String describe(CriteriaDefinition criteria) {
+        if (criteria == null || criteria.isEmpty()) {
+            return "";
         }
+        StringBuilder shape = new StringBuilder();
+        describe(criteria, shape);
+        return shape.toString();
     }
 
-    private String createSelectImpl(SelectOrdered selectFrom, Class<?> entityType, Sort sortParameter) {
-        if (sortParameter != null && sortParameter.isSorted()) {
-            RelationalPersistentEntity<?> entity = getPersistentEntity(entityType);
-            if (entity != null) {
-                Sort sort = updateMapper.getMappedObject(sortParameter, entity);
-                selectFrom =
-                    selectFrom.orderBy(createOrderByFields(Table.create(entity.getTableName()).as(EntityManager.ENTITY_ALIAS), sort));
+    private static void describe(CriteriaDefinition criteria, StringBuilder shape) {
+        if (criteria.hasPrevious()) {
+            describe(criteria.getPrevious(), shape);
+        }
+        if (criteria.isEmpty()) {
+            return;
+        }
+        shape.append(' ').append(criteria.getCombinator()).append(' ');
+        if (criteria.isGroup()) {
+            shape.append('(');
+            criteria.getGroup().forEach(member -> describe(member, shape));
+            shape.append(')');
+        } else {
+            shape.append(criteria.getColumn()).append(' ').append(criteria.getComparator());
+            if (criteria.isIgnoreCase()) {
+                shape.append(" ignoreCase");
+            }
+            if (criteria.getValue() instanceof Collection) {
+                shape.append(" [").append(((Collection<?>) criteria.getValue()).size()).append(']');
             }
         }
-        return createSelect(selectFrom.build());
     }
 
     private RelationalPersistentEntity<?> getPersistentEntity(Class<?> entityType) {
         return r2dbcEntityTemplate.getConverter().getMappingContext().getPersistentEntity(entityType);
     }
 
+    private RelationalPersistentEntity<?> getRequiredPersistentEntity(Class<?> entityType) {
+        return r2dbcEntityTemplate.getConverter().getMappingContext().getRequiredPersistentEntity(entityType);
+    }
+
+    /**
+     * Creates an SQL select which loads the entities referred through the given link table, for a batch of owning entities.
+     * The ids of the owning entities must be bound as a collection to the {@link #LINK_OWNER_IDS} parameter, and the id of
+     * the owning entity of each row is returned in the {@link #LINK_OWNER_ALIAS} column.
+     * @param table describes the link table.
+     * @param referencedTable the table of the referred entities, aliased with {@link #ENTITY_ALIAS}.
+     * @param columns the columns of the referred entities to select.
+     * @return sql select statement
+     */
+    public String createLinkedSelect(LinkTable table, Table referencedTable, List<Expression> columns) {
+        Table linkTable = Table.aliased(table.tableName, LINK_ALIAS);
+        List<Expression> linkedColumns = new ArrayList<>(columns);
+        linkedColumns.add(Column.aliased(table.idColumn, linkTable, LINK_OWNER_ALIAS));
+        Select select = Select
+            .builder()
+            .select(linkedColumns)
+            .from(referencedTable)
+            .join(linkTable)
+            .on(Column.create("id", referencedTable))
+            .equals(Column.create(table.referenceColumn, linkTable))
+            .build();
+        // the where clause is appended by hand, see https://github.com/spring-projects/spring-data-jdbc/issues/907
+        return new StringBuilder(createSelect(select))
+            .append(" WHERE ")
+            .append(LINK_ALIAS)
+            .append(".")
+            .append(table.idColumn)
+            .append(" IN (:")
+            .append(LINK_OWNER_IDS)
+            .append(")")
+            .toString();
+    }
+
     /**
      * Delete all the entity with the given type, and return the number of deletions.
      * @param entityType the entity type which holds the table name.
@@ -184,39 +579,338 @@ public class EntityManager {
         return r2dbcEntityTemplate.insert(entity);
     }
 
+    /**
+     * Inserts the given entities, of the same type, with a single statement executed once per entity, whose bindings are
+     * sent to the database together - and sets their ids, and their versions if they have none.
+     * @param <S> the type of the persisted entities.
+     * @param entities the entities to be inserted into the database.
+     * @return the persisted entities, in the order of the given ones.
+     */
+    @SuppressWarnings("unchecked")
+    public <S> Flux<S> insertAll(List<S> entities) {
+        if (entities.isEmpty()) {
+            return Flux.empty();
+        }
+        RelationalPersistentEntity<S> persistentEntity = (RelationalPersistentEntity<S>) getRequiredPersistentEntity(
+            entities.get(0).getClass()
+        );
+        RelationalPersistentProperty idProperty = persistentEntity.getRequiredIdProperty();
+        RelationalPersistentProperty versionProperty = persistentEntity.getVersionProperty();
+        ReactiveDataAccessStrategy dataAccessStrategy = r2dbcEntityTemplate.getDataAccessStrategy();
+        List<OutboundRow> rows = new ArrayList<>(entities.size());
+        for (S entity : entities) {
+            PersistentPropertyAccessor<S> accessor = persistentEntity.getPropertyAccessor(entity);
+            if (versionProperty != null && accessor.getProperty(versionProperty) == null) {
+                accessor.setProperty(
+                    versionProperty,
+                    r2dbcEntityTemplate.getConverter().getConversionService().convert(0L, versionProperty.getType())
+                );
+            }
+            OutboundRow row = dataAccessStrategy.getOutboundRow(entity);
+            row.remove(idProperty.getColumnName());
+            rows.add(row);
+        }
+
+        // the bind markers of the supported dialects are indexed, so the values are bound in the order of their markers
+        List<SqlIdentifier> columns = new ArrayList<>(rows.get(0).keySet());
+        BindMarkers bindMarkers = dialect.getBindMarkersFactory().create();
+        StringJoiner names = new StringJoiner(", ");
+        StringJoiner markers = new StringJoiner(", ");
+        for (SqlIdentifier column : columns) {
+            names.add(dataAccessStrategy.toSql(column));
+            markers.add(bindMarkers.next().getPlaceholder());
+        }
+        String insert = new StringBuilder("INSERT INTO ")
+            .append(dataAccessStrategy.toSql(persistentEntity.getTableName()))
+            .append(" (")
+            .append(names)
+            .append(") VALUES (")
+            .append(markers)
+            .append(")")
+            .toString();
+        String idColumn = dataAccessStrategy.toSql(idProperty.getColumnName());
+
+        Flux<Object> ids = r2dbcEntityTemplate
+            .getDatabaseClient()
+            .inConnectionMany(
+                connection -> {
+                    Statement statement = connection.createStatement(insert).returnGeneratedValues(idColumn);
+                    for (int i = 0; i < rows.size(); i++) {
+                        if (i > 0) {
+                            statement.add();
+                        }
+                        for (int j = 0; j < columns.size(); j++) {
+                            Parameter value = rows.get(i).get(columns.get(j));
+                            if (value.hasValue()) {
+                                statement.bind(j, value.getValue());
+                            } else {
+                                statement.bindNull(j, value.getType());
+                            }
+                        }
+                    }
+                    return Flux
+                        .from(statement.execute())
+                        .concatMap(result -> result.map((row, metadata) -> row.get(0, idProperty.getType())));
+                }
+            );
+        return ids.zipWithIterable(
+            entities,
+            (id, entity) -> {
+                persistentEntity.getPropertyAccessor(entity).setProperty(idProperty, id);
+                return entity;
+            }
+        );
+    }
+
+    /**
+     * Updates the given entity with a single conditional statement, {@code UPDATE ... WHERE id = ? AND version = ?},
+     * without reading it first. When a row is updated, the version of the entity is incremented.
+     * @param <S> the type of the persisted entity, which must have a {@link org.springframework.data.annotation.Version} property.
+     * @param entity the entity to update, which must hold its id and its version.
+     * @return the number of updated rows: 0 if the entity doesn't exist, or if it has been modified since it was read.
+     */
+    @SuppressWarnings("unchecked")
+    public <S> Mono<Integer> update(S entity) {
+        RelationalPersistentEntity<S> persistentEntity = (RelationalPersistentEntity<S>) getRequiredPersistentEntity(entity.getClass());
+        RelationalPersistentProperty idProperty = persistentEntity.getRequiredIdProperty();
+        RelationalPersistentProperty versionProperty = persistentEntity.getRequiredVersionProperty();
+        PersistentPropertyAccessor<S> accessor = persistentEntity.getPropertyAccessor(entity);
+        Object id = accessor.getProperty(idProperty);
+        Number version = (Number) accessor.getProperty(versionProperty);
+        Assert.notNull(id, "id is null");
+        Assert.notNull(version, "version is null");
+
+        ReactiveDataAccessStrategy dataAccessStrategy = r2dbcEntityTemplate.getDataAccessStrategy();
+        OutboundRow columns = dataAccessStrategy.getOutboundRow(entity);
+        columns.remove(idProperty.getColumnName());
+        columns.remove(versionProperty.getColumnName());
+
+        // the bind markers of the supported dialects are indexed, so the values are bound in the order of their markers
+        BindMarkers bindMarkers = dialect.getBindMarkersFactory().create();
+        List<Parameter> values = new ArrayList<>();
+        StringJoiner assignments = new StringJoiner(", ");
+        columns.forEach(
+            (column, value) -> {
+                assignments.add(dataAccessStrategy.toSql(column) + " = " + bindMarkers.next().getPlaceholder());
+                values.add(value);
+            }
+        );
+        String table = dataAccessStrategy.toSql(persistentEntity.getTableName());
+        String idColumn = dataAccessStrategy.toSql(idProperty.getColumnName());
+        String versionColumn = dataAccessStrategy.toSql(versionProperty.getColumnName());
+        assignments.add(versionColumn + " = " + versionColumn + " + 1");
+        String sql = "UPDATE " + table + " SET " + assignments + " WHERE " + idColumn + " = " + bindMarkers.next().getPlaceholder();
+        sql += " AND " + versionColumn + " = " + bindMarkers.next().getPlaceholder();
+        values.add(Parameter.from(id));
+        values.add(Parameter.from(version));
+
+        DatabaseClient.GenericExecuteSpec statement = r2dbcEntityTemplate.getDatabaseClient().sql(sql);
+        for (int i = 0; i < values.size(); i++) {
+            Parameter value = values.get(i);
+            statement = value.hasValue() ? statement.bind(i, value.getValue()) : statement.bindNull(i, value.getType());
+        }
+        Object nextVersion = r2dbcEntityTemplate
+            .getConverter()
+            .getConversionService()
+            .convert(version.longValue() + 1, versionProperty.getType());
+        return statement
+            .fetch()
+            .rowsUpdated()
+            .doOnNext(
+                updated -> {
+                    if (updated > 0) {
+                        accessor.setProperty(versionProperty, nextVersion);
+                    }
+                }
+            );
+    }
+
+    /**
+     * Updates the non null properties of the given entity with a single statement, without reading it first:
+     * {@code UPDATE ... SET a = ?, ..., version = version + 1 WHERE id = ?}, also conditioned on the version when the
+     * entity carries one. The updated row is returned by the statement itself where the database supports it
+     * ({@code RETURNING *}), and read right after the update otherwise.
+     * @param <S> the type of the persisted entity, which must have a {@link org.springframework.data.annotation.Version} property.
+     * @param patch the entity holding the id, the version or null, and the values of the properties to update, the others being null.
+     * @return the updated entity, without its relationships, or an empty {@link Mono} if it doesn't exist, or an {@link OptimisticLockingFailureException} if it has been modified since the given version.
+     */
+    @SuppressWarnings("unchecked")
+    public <S> Mono<S> partialUpdate(S patch) {
+        Class<S> entityType = (Class<S>) patch.getClass();
+        RelationalPersistentEntity<?> persistentEntity = getRequiredPersistentEntity(entityType);
+        RelationalPersistentProperty idProperty = persistentEntity.getRequiredIdProperty();
+        RelationalPersistentProperty versionProperty = persistentEntity.getRequiredVersionProperty();
+        PersistentPropertyAccessor<S> accessor = ((RelationalPersistentEntity<S>) persistentEntity).getPropertyAccessor(patch);
+        Object id = accessor.getProperty(idProperty);
+        Object version = accessor.getProperty(versionProperty);
+        Assert.notNull(id, "id is null");
+
+        ReactiveDataAccessStrategy dataAccessStrategy = r2dbcEntityTemplate.getDataAccessStrategy();
+        OutboundRow columns = dataAccessStrategy.getOutboundRow(patch);
+        columns.remove(idProperty.getColumnName());
+        columns.remove(versionProperty.getColumnName());
+
+        // the bind markers of the supported dialects are indexed, so the values are bound in the order of their markers
+        BindMarkers bindMarkers = dialect.getBindMarkersFactory().create();
+        List<Object> values = new ArrayList<>();
+        StringJoiner assignments = new StringJoiner(", ");
+        columns.forEach(
+            (column, value) -> {
+                if (value.hasValue()) {
+                    assignments.add(dataAccessStrategy.toSql(column) + " = " + bindMarkers.next().getPlaceholder());
+                    values.add(value.getValue());
+                }
+            }
+        );
+        String versionColumn = dataAccessStrategy.toSql(versionProperty.getColumnName());
+        assignments.add(versionColumn + " = COALESCE(" + versionColumn + ", 0) + 1");
+        StringBuilder sql = new StringBuilder("UPDATE ")
+            .append(dataAccessStrategy.toSql(persistentEntity.getTableName()))
+            .append(" SET ")
+            .append(assignments)
+            .append(" WHERE ")
+            .append(dataAccessStrategy.toSql(idProperty.getColumnName()))
+            .append(" = ")
+            .append(bindMarkers.next().getPlaceholder());
+        values.add(id);
+        if (version != null) {
+            sql.append(" AND ").append(versionColumn).append(" = ").append(bindMarkers.next().getPlaceholder());
+            values.add(version);
+        }
+        boolean returning = dialect instanceof PostgresDialect;
+        if (returning) {
+            sql.append(" RETURNING *");
+        }
+
+        DatabaseClient.GenericExecuteSpec statement = r2dbcEntityTemplate.getDatabaseClient().sql(sql.toString());
+        for (int i = 0; i < values.size(); i++) {
+            statement = statement.bind(i, values.get(i));
+        }
+        if (returning) {
+            R2dbcConverter converter = r2dbcEntityTemplate.getConverter();
+            return statement
+                .map((row, metadata) -> converter.read(entityType, row, metadata))
+                .one()
+                .switchIfEmpty(Mono.defer(() -> requireUpdated(patch, 0)));
+        }
+        return statement
+            .fetch()
+            .rowsUpdated()
+            .flatMap(
+                numberOfUpdates ->
+                    numberOfUpdates > 0
+                        ? r2dbcEntityTemplate.selectOne(Query.query(Criteria.where(idProperty.getName()).is(id)), entityType)
+                        : requireUpdated(patch, 0)
+            );
+    }
+
+    /**
+     * Interprets the number of rows updated by {@link #update(Object)}. Only when no row was updated, the existence of
+     * the entity is checked, to tell a missing entity from a concurrent modification.
+     * @param <S> the type of the persisted entity.
+     * @param entity the updated entity.
+     * @param numberOfUpdates the number of updated rows.
+     * @return the updated entity, or an empty {@link Mono} if it doesn't exist, or an {@link OptimisticLockingFailureException} if it has been modified since it was read.
+     */
+    public <S> Mono<S> requireUpdated(S entity, int numberOfUpdates) {
+        if (numberOfUpdates > 0) {
+            return Mono.just(entity);
+        }
+        RelationalPersistentEntity<?> persistentEntity = getRequiredPersistentEntity(entity.getClass());
+        RelationalPersistentProperty idProperty = persistentEntity.getRequiredIdProperty();
+        Object id = persistentEntity.getIdentifierAccessor(entity).getRequiredIdentifier();
+        return r2dbcEntityTemplate
+            .exists(Query.query(Criteria.where(idProperty.getName()).is(id)), entity.getClass())
+            .flatMap(
+                exists -> {
+                    if (!exists) {
+                        return Mono.empty();
+                    }
+                    return Mono.error(
+                        new OptimisticLockingFailureException(
+                            "Unable to update " + entity.getClass().getSimpleName() + " with id = " + id + ", it has been modified"
+                        )
+                    );
+                }
+            );
+    }
+
     /**
      * Updates the table, which links the entity with the referred entities.
+     * Only the difference with the links currently stored is written: the missing links are inserted with a single
+     * multi-row insert, and the stale ones are removed with a single delete, so an unchanged entity costs no write at all.
      * @param table describes the link table, it contains a table name, the column name for the id, and for the referred entity id.
      * @param entityId the id of the entity, for which the links are created.
      * @param referencedIds the id of the referred entities.
-     * @return the number of inserted rows.
+     * @return the number of inserted and deleted rows.
      */
     public Mono<Integer> updateLinkTable(LinkTable table, Long entityId, Stream<Long> referencedIds) {
-        return deleteFromLinkTable(table, entityId)
-            .then(
-                Flux
-                    .fromStream(referencedIds)
-                    .flatMap(
-                        (Long referenceId) -> {
-                            StatementMapper.InsertSpec insert = r2dbcEntityTemplate
-                                .getDataAccessStrategy()
-                                .getStatementMapper()
-                                .createInsert(table.tableName)
-                                .withColumn(table.idColumn, Parameter.from(entityId))
-                                .withColumn(table.referenceColumn, Parameter.from(referenceId));
-
-                            return r2dbcEntityTemplate
-                                .getDatabaseClient()
-                                .sql(statementMapper.getMappedObject(insert))
-                                .fetch()
-                                .rowsUpdated();
-                        }
-                    )
-                    .collectList()
-                    .map((List<Integer> updates) -> updates.stream().reduce(Integer::sum).orElse(0))
+        Assert.notNull(entityId, "entityId is null");
+        Set<Long> wantedIds = referencedIds.collect(Collectors.toCollection(LinkedHashSet::new));
+        return findLinkedIds(table, entityId)
+            .collect(Collectors.toSet())
+            .flatMap(
+                (Set<Long> currentIds) -> {
+                    List<Object[]> addedLinks = wantedIds
+                        .stream()
+                        .filter(referenceId -> !currentIds.contains(referenceId))
+                        .map(referenceId -> new Object[] { entityId, referenceId })
+                        .collect(Collectors.toList());
+                    List<Long> removedIds = currentIds
+                        .stream()
+                        .filter(referenceId -> !wantedIds.contains(referenceId))
+                        .collect(Collectors.toList());
+                    // one statement after the other, as they may share the connection of the current transaction
+                    return insertIntoLinkTable(table, addedLinks)
+                        .flatMap(inserted -> deleteFromLinkTable(table, entityId, removedIds).map(deleted -> inserted + deleted));
+                }
             );
     }
 
+    private Flux<Long> findLinkedIds(LinkTable table, Long entityId) {
+        StatementMapper.SelectSpec selectSpec = statementMapper
+            .createSelect(table.tableName)
+            .withProjection(table.referenceColumn)
+            .withCriteria(Criteria.where(table.idColumn).is(entityId));
+        return r2dbcEntityTemplate
+            .getDatabaseClient()
+            .sql(statementMapper.getMappedObject(selectSpec))
+            .map(row -> row.get(table.referenceColumn, Long.class))
+            .all();
+    }
+
+    /**
+     * Inserts links into the table, which links the entities with the referred entities, with a single multi-row insert.
+     * @param table describes the link table, it contains a table name, the column name for the id, and for the referred entity id.
+     * @param links the (entity id, referred entity id) pairs to insert.
+     * @return the number of inserted rows.
+     */
+    public Mono<Integer> insertIntoLinkTable(LinkTable table, List<Object[]> links) {
+        if (links.isEmpty()) {
+            return Mono.just(0);
+        }
+        // the list of (id, referenceId) pairs is expanded by the client into a multi-row VALUES clause
+        String insert = new StringBuilder("INSERT INTO ")
+            .append(table.tableName)
+            .append(" (")
+            .append(table.idColumn)
+            .append(", ")
+            .append(table.referenceColumn)
+            .append(") VALUES :links")
+            .toString();
+        return r2dbcEntityTemplate.getDatabaseClient().sql(insert).bind("links", links).fetch().rowsUpdated();
+    }
+
+    private Mono<Integer> deleteFromLinkTable(LinkTable table, Long entityId, List<Long> referencedIds) {
+        if (referencedIds.isEmpty()) {
+            return Mono.just(0);
+        }
+        StatementMapper.DeleteSpec deleteSpec = statementMapper
+            .createDelete(table.tableName)
+            .withCriteria(Criteria.where(table.idColumn).is(entityId).and(table.referenceColumn).in(referencedIds));
+        return r2dbcEntityTemplate.getDatabaseClient().sql(statementMapper.getMappedObject(deleteSpec)).fetch().rowsUpdated();
+    }
+
     public Mono<Void> deleteFromLinkTable(LinkTable table, Long entityId) {
         Assert.notNull(entityId, "entityId is null");
         StatementMapper.DeleteSpec deleteSpec = r2dbcEntityTemplate
@@ -0,0 +1,134 @@
+package fr.lalourche.hellojhipster.gateway.service;
+
+import fr.lalourche.hellojhipster.gateway.config.ApplicationProperties;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+
+/**
+ * In-memory map of the entity tags (ETags) of the entities last read, by entity type and id, so a conditional request
+ * for an entity which hasn't changed is answered without reading it.
+ * <p>
+ * The tags are evicted by the write paths, once when the entity is written and once again when the transaction
+ * completes. A tag is only stored if no tag of the same type has been evicted since the entity was read, so a read
+ * racing with a write can't store the tag of the version it replaces.
+ */
+@Service
+public class EntityTagCache {
+
+    private final Map<Class<?>, Tags> tagsByType = new ConcurrentHashMap<>();
+
+    private final int maxEntries;
+
+    public EntityTagCache(ApplicationProperties applicationProperties) {
+        this.maxEntries = applicationProperties.getEntityTag().getMaxEntries();
+    }
+
+    /**
+     * @param type the type of the entity.
+     * @param id the id of the entity.
+     * @return the tag of the entity, or null if it isn't known.
+     */
+    public String get(Class<?> type, Long id) {
+        return tags(type).byId.get(id);
+    }
+
+    /**
+     * Takes a stamp of the evictions of a type of entities, before reading one of them.
+     *
+     * @param type the type of the entity.
+     * @return the stamp, to give to {@link #put(Class, Long, String, long)}.
+     */
+    public long stamp(Class<?> type) {
+        return tags(type).evictions.get();
+    }
+
+    /**
+     * Stores the tag of an entity, unless a tag of the same type has been evicted since it was read.
+     *
+     * @param type the type of the entity.
+     * @param id the id of the entity.
+     * @param tag the tag of the entity.
+     * @param stamp the stamp taken before reading the entity.
+     */
+    public void put(Class<?> type, Long id, String tag, long stamp) {
+        Tags tags = tags(type);
+        if (tags.byId.size() >= maxEntries) {
+            tags.byId.clear();
+        }
+        tags.byId.put(id, tag);
+        if (tags.evictions.get() != stamp) {
+            tags.byId.remove(id, tag);
+        }
+    }
+
+    /**
+     * Evicts the tag of an entity which is being written, now and when the current transaction completes.
+     *
+     * @param type the type of the entity.
+     * @param id the id of the entity.
+     * @return a {@link Mono} completing once the tag is evicted.
+     */
+    public Mono<Void> evict(Class<?> type, Long id) {
+        return evictNowAndAfterCompletion(
+            () -> {
+                Tags tags = tags(type);
+                tags.evictions.incrementAndGet();
+                tags.byId.remove(id);
+            }
+        );
+    }
+
+    /**
+     * Evicts the tags of all the entities of a type, whose representation embeds an entity which is being written, now
+     * and when the current transaction completes.
+     *
+     * @param type the type of the entities.
+     * @return a {@link Mono} completing once the tags are evicted.
+     */
+    public Mono<Void> evictAll(Class<?> type) {
+        return evictNowAndAfterCompletion(
+            () -> {
+                Tags tags = tags(type);
+                tags.evictions.incrementAndGet();
+                tags.byId.clear();
+            }
+        );
+    }
+
+    private Mono<Void> evictNowAndAfterCompletion(Runnable eviction) {
+        return Mono
+            .fromRunnable(eviction)
+            .then(TransactionSynchronizationManager.forCurrentTransaction())
+            .filter(TransactionSynchronizationManager::isSynchronizationActive)
+            .doOnNext(
+                manager ->
+                    manager.registerSynchronization(
+                        new TransactionSynchronization() {
+                            @Override
+                            public Mono<Void> afterCompletion(int status) {
+                                return Mono.fromRunnable(eviction);
+                            }
+                        }
+                    )
+            )
+            .onErrorResume(NoTransactionException.class, e -> Mono.empty())
+            .then();
+    }
+
+    private Tags tags(Class<?> type) {
+        return tagsByType.computeIfAbsent(type, t -> new Tags());
+    }
+
+    private static final class Tags {
+
+        private final Map<Long, String> byId = new ConcurrentHashMap<>();
+
+        private final AtomicLong evictions = new AtomicLong();
+    }
+}
@@ -0,0 +1,67 @@
+package fr.lalourche.hellojhipster.gateway.service;
+
+import java.util.Collections;
+import java.util.List;
+import org.springframework.data.domain.Sort;
+
+/**
+ * A position in a listing, for keyset (seek) pagination: the next page is made of the {@code size} entities which
+ * come after the given sort key values, so its cost doesn't depend on how deep the listing has been read.
+ *
+ * Keysets are created by {@link EntityManager#createKeyset(Class, Sort, String, int)}, and passed from one page to the
+ * other as opaque continuation tokens.
+ */
+public class Keyset {
+
+    /**
+     * The maximum number of entities in a page, as for the pages read by their number.
+     */
+    public static final int MAX_SIZE = 2000;
+
+    private final Sort sort;
+
+    private final List<Object> values;
+
+    private final int size;
+
+    Keyset(Sort sort, List<Object> values, int size) {
+        this.sort = sort;
+        this.values = Collections.unmodifiableList(values);
+        this.size = size;
+    }
+
+    /**
+     * @return the sort of the listing, which always ends with the entity id, so the order is total.
+     */
+    public Sort getSort() {
+        return sort;
+    }
+
+    /**
+     * @return the sort key values of the last entity of the previous page, in the order of the sort, or an empty list for the first page.
+     */
+    public List<Object> getValues() {
+        return values;
+    }
+
+    /**
+     * @return the maximum number of entities in the page.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    public boolean isFirst() {
+        return values.isEmpty();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "Keyset{" +
+            "sort=" + sort +
+            ", values=" + values +
+            ", size=" + size +
+            "}";
+    }
+}
@@ -0,0 +1,387 @@
+package fr.lalourche.hellojhipster.gateway.service;
+
+import fr.lalourche.hellojhipster.gateway.config.ApplicationProperties;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.roaringbitmap.longlong.LongIterator;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+import reactor.util.retry.Retry;
+
+/**
+ * In-memory inverted index of the ingredients of the recipes: for each ingredient, the compressed bitmap of the ids of
+ * the recipes using it.
+ * <p>
+ * The index is loaded from {@code rel_recipe__ingredients} once the application is ready, then kept up to date by the
+ * recipe repository on every save and delete, once its transaction is committed, so matching recipes never reads the
+ * link table. It is only used to find the ids of the matching recipes, which are then read from the database: a recipe
+ * which no longer exists is skipped. A deleted ingredient is removed as well, although the foreign key of the link
+ * table only lets the ingredients which no recipe uses be deleted.
+ */
+@Service
+public class RecipeIngredientIndex {
+
+    /**
+     * How the recipes are matched against the requested ingredients.
+     */
+    public enum MatchMode {
+        /**
+         * The recipes using all the ingredients, those using the fewest other ingredients first.
+         */
+        ALL,
+        /**
+         * The recipes using at least one of the ingredients, those using the most of them first.
+         */
+        ANY,
+        /**
+         * The recipes using at least one of the ingredients, those missing the fewest other ingredients first, so the
+         * recipes which can be cooked with the ingredients alone come first.
+         */
+        BEST,
+    }
+
+    /**
+     * A recipe matching the requested ingredients.
+     */
+    public static final class Match {
+
+        private final long recipeId;
+        private final int matchedIngredients;
+        private final int missingIngredients;
+
+        Match(long recipeId, int matchedIngredients, int missingIngredients) {
+            this.recipeId = recipeId;
+            this.matchedIngredients = matchedIngredients;
+            this.missingIngredients = missingIngredients;
+        }
+
+        public long getRecipeId() {
+            return recipeId;
+        }
+
+        /**
+         * @return the number of requested ingredients the recipe uses.
+         */
+        public int getMatchedIngredients() {
+            return matchedIngredients;
+        }
+
+        /**
+         * @return the number of ingredients of the recipe which weren't requested.
+         */
+        public int getMissingIngredients() {
+            return missingIngredients;
+        }
+    }
+
+    private static final Comparator<Match> BY_COVERAGE = Comparator
+        .comparingInt(Match::getMatchedIngredients)
+        .reversed()
+        .thenComparingInt(Match::getMissingIngredients)
+        .thenComparingLong(Match::getRecipeId);
+
+    private static final Comparator<Match> BY_MISSING_INGREDIENTS = Comparator
+        .comparingInt(Match::getMissingIngredients)
+        .thenComparing(Comparator.comparingInt(Match::getMatchedIngredients).reversed())
+        .thenComparingLong(Match::getRecipeId);
+
+    private static final Roaring64NavigableMap NO_RECIPES = new Roaring64NavigableMap();
+
+    private final Logger log = LoggerFactory.getLogger(RecipeIngredientIndex.class);
+
+    private final DatabaseClient db;
+
+    private final Duration loadTimeout;
+
+    private final int maxLoadRetries;
+
+    // writes are rare compared to reads, and only mutate the bitmaps of the ingredients of a single recipe
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // the recipes using each ingredient
+    private final Map<Long, Roaring64NavigableMap> recipesByIngredient = new HashMap<>();
+
+    // the ingredients of each recipe, to remove the recipe from their bitmaps when it changes
+    private final Map<Long, long[]> ingredientsByRecipe = new HashMap<>();
+
+    // the recipes saved or deleted while the index is loading, whose links read by the load may be outdated
+    private final Set<Long> changedWhileLoading = new HashSet<>();
+
+    private boolean loading = true;
+
+    private final Sinks.Empty<Void> loaded = Sinks.empty();
+
+    public RecipeIngredientIndex(DatabaseClient db, ApplicationProperties applicationProperties) {
+        this.db = db;
+        this.loadTimeout = applicationProperties.getIngredientIndex().getLoadTimeout();
+        this.maxLoadRetries = applicationProperties.getIngredientIndex().getMaxLoadRetries();
+    }
+
+    /**
+     * Loads the index from the link table. The changes made while it is loading are kept, as they are more recent.
+     * The load is retried a bounded number of times, the recipes being matched once it has succeeded.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        db
+            .sql("SELECT recipe_id, ingredients_id FROM rel_recipe__ingredients")
+            .map((row, metadata) -> Tuples.of(row.get("recipe_id", Long.class), row.get("ingredients_id", Long.class)))
+            .all()
+            .collectMultimap(Tuple2::getT1, Tuple2::getT2)
+            // the schema may still be being created by Liquibase, or the database be unavailable for a while
+            .retryWhen(
+                Retry
+                    .backoff(maxLoadRetries, Duration.ofSeconds(1))
+                    .maxBackoff(Duration.ofMinutes(1))
+                    .doBeforeRetry(signal -> log.warn("Could not index the ingredients of the recipes, retrying", signal.failure()))
+            )
+            .subscribe(
+                links -> {
+                    lock.writeLock().lock();
+                    try {
+                        links.forEach(
+                            (recipeId, ingredientIds) -> {
+                                if (!changedWhileLoading.contains(recipeId)) {
+                                    index(recipeId, ingredientIds);
+                                }
+                            }
+                        );
+                        recipesByIngredient.values().forEach(Roaring64NavigableMap::runOptimize);
+                        changedWhileLoading.clear();
+                        loading = false;
+                    } finally {
+                        lock.writeLock().unlock();
+                    }
+                    log.info("Indexed the ingredients of {} recipes", links.size());
+                    loaded.tryEmitEmpty();
+                },
+                e -> {
+                    log.error("Could not index the ingredients of the recipes, which can't be matched", e);
+                    loaded.tryEmitError(e);
+                }
+            );
+    }
+
+    /**
+     * Sets the ingredients of a recipe, once the transaction saving it is committed, or right away outside of a transaction.
+     *
+     * @param recipeId the id of the recipe.
+     * @param ingredientIds the ids of all its ingredients.
+     * @return a {@link Mono} completing once the change is applied or registered.
+     */
+    public Mono<Void> update(Long recipeId, Collection<Long> ingredientIds) {
+        return afterCommit(
+            () -> {
+                lock.writeLock().lock();
+                try {
+                    unindex(recipeId);
+                    index(recipeId, ingredientIds);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        );
+    }
+
+    /**
+     * Removes a recipe, once the transaction deleting it is committed, or right away outside of a transaction.
+     *
+     * @param recipeId the id of the recipe.
+     * @return a {@link Mono} completing once the change is applied or registered.
+     */
+    public Mono<Void> remove(Long recipeId) {
+        return afterCommit(
+            () -> {
+                lock.writeLock().lock();
+                try {
+                    unindex(recipeId);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        );
+    }
+
+    /**
+     * Removes an ingredient, once the transaction deleting it is committed, or right away outside of a transaction.
+     *
+     * @param ingredientId the id of the ingredient.
+     * @return a {@link Mono} completing once the change is applied or registered.
+     */
+    public Mono<Void> removeIngredient(Long ingredientId) {
+        return afterCommit(
+            () -> {
+                lock.writeLock().lock();
+                try {
+                    unindexIngredient(ingredientId);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        );
+    }
+
+    private Mono<Void> afterCommit(Runnable change) {
+        return TransactionSynchronizationManager
+            .forCurrentTransaction()
+            .filter(TransactionSynchronizationManager::isSynchronizationActive)
+            .onErrorResume(NoTransactionException.class, e -> Mono.empty())
+            .doOnNext(
+                manager ->
+                    manager.registerSynchronization(
+                        new TransactionSynchronization() {
+                            @Override
+                            public Mono<Void> afterCommit() {
+                                return Mono.fromRunnable(change);
+                            }
+                        }
+                    )
+            )
+            .switchIfEmpty(Mono.fromRunnable(change))
+            .then();
+    }
+
+    /**
+     * Finds the recipes matching the given ingredients, waiting for the index to be loaded.
+     *
+     * @param ingredientIds the ids of the requested ingredients, which must not be empty.
+     * @param mode how the recipes are matched and ranked.
+     * @param limit the maximum number of recipes to return.
+     * @return the best ranked recipes, in the order of their rank, or a {@link java.util.concurrent.TimeoutException}
+     * if the index isn't loaded in time, or the error which made its load give up.
+     */
+    public Mono<List<Match>> match(Collection<Long> ingredientIds, MatchMode mode, int limit) {
+        return loaded.asMono().timeout(loadTimeout).then(Mono.fromSupplier(() -> matchLoaded(ingredientIds, mode, limit)));
+    }
+
+    private List<Match> matchLoaded(Collection<Long> ingredientIds, MatchMode mode, int limit) {
+        Comparator<Match> order = mode == MatchMode.BEST ? BY_MISSING_INGREDIENTS : BY_COVERAGE;
+        // the worst of the best ranked recipes is at the head of the queue, to be replaced by a better one
+        PriorityQueue<Match> best = new PriorityQueue<>(limit, order.reversed());
+
+        lock.readLock().lock();
+        try {
+            Roaring64NavigableMap[] bitmaps = ingredientIds
+                .stream()
+                .distinct()
+                .map(ingredientId -> recipesByIngredient.getOrDefault(ingredientId, NO_RECIPES))
+                .toArray(Roaring64NavigableMap[]::new);
+            Roaring64NavigableMap recipes = mode == MatchMode.ALL ? and(bitmaps) : or(bitmaps);
+
+            LongIterator it = recipes.getLongIterator();
+            while (it.hasNext()) {
+                long recipe = it.next();
+                int matched = mode == MatchMode.ALL ? bitmaps.length : countContaining(bitmaps, recipe);
+                int missing = ingredientsByRecipe.get(recipe).length - matched;
+                Match match = new Match(recipe, matched, missing);
+                if (best.size() < limit) {
+                    best.add(match);
+                } else if (order.compare(match, best.peek()) < 0) {
+                    best.poll();
+                    best.add(match);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Match> matches = new ArrayList<>(best);
+        matches.sort(order);
+        return matches;
+    }
+
+    private static Roaring64NavigableMap and(Roaring64NavigableMap[] bitmaps) {
+        Roaring64NavigableMap result = new Roaring64NavigableMap();
+        result.or(bitmaps[0]);
+        for (int i = 1; i < bitmaps.length && !result.isEmpty(); i++) {
+            result.and(bitmaps[i]);
+        }
+        return result;
+    }
+
+    private static Roaring64NavigableMap or(Roaring64NavigableMap[] bitmaps) {
+        Roaring64NavigableMap result = new Roaring64NavigableMap();
+        for (Roaring64NavigableMap bitmap : bitmaps) {
+            result.or(bitmap);
+        }
+        return result;
+    }
+
+    private static int countContaining(Roaring64NavigableMap[] bitmaps, long recipe) {
+        int count = 0;
+        for (Roaring64NavigableMap bitmap : bitmaps) {
+            if (bitmap.contains(recipe)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void index(long recipe, Collection<Long> ingredientIds) {
+        long[] ingredients = ingredientIds.stream().distinct().mapToLong(Long::longValue).toArray();
+        if (ingredients.length == 0) {
+            return;
+        }
+        ingredientsByRecipe.put(recipe, ingredients);
+        for (long ingredient : ingredients) {
+            recipesByIngredient.computeIfAbsent(ingredient, id -> new Roaring64NavigableMap()).addLong(recipe);
+        }
+    }
+
+    private void unindexIngredient(long ingredient) {
+        Roaring64NavigableMap recipes = recipesByIngredient.remove(ingredient);
+        if (recipes == null) {
+            return;
+        }
+        LongIterator it = recipes.getLongIterator();
+        while (it.hasNext()) {
+            long recipe = it.next();
+            long[] ingredients = Arrays.stream(ingredientsByRecipe.get(recipe)).filter(id -> id != ingredient).toArray();
+            if (ingredients.length == 0) {
+                ingredientsByRecipe.remove(recipe);
+            } else {
+                ingredientsByRecipe.put(recipe, ingredients);
+            }
+        }
+    }
+
+    private void unindex(long recipe) {
+        if (loading) {
+            changedWhileLoading.add(recipe);
+        }
+        long[] ingredients = ingredientsByRecipe.remove(recipe);
+        if (ingredients == null) {
+            return;
+        }
+        for (long ingredient : ingredients) {
+            Roaring64NavigableMap recipes = recipesByIngredient.get(ingredient);
+            recipes.removeLong(recipe);
+            if (recipes.isEmpty()) {
+                recipesByIngredient.remove(ingredient);
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package fr.lalourche.hellojhipster.gateway.service;
+
+import fr.lalourche.hellojhipster.gateway.client.TechniqueClient;
+import fr.lalourche.hellojhipster.gateway.config.ApplicationProperties;
+import fr.lalourche.hellojhipster.gateway.domain.Ingredient;
+import fr.lalourche.hellojhipster.gateway.domain.Recipe;
+import fr.lalourche.hellojhipster.gateway.domain.Step;
+import fr.lalourche.hellojhipster.gateway.repository.RecipeRepository;
+import fr.lalourche.hellojhipster.gateway.service.dto.RecipeViewDTO;
+import fr.lalourche.hellojhipster.gateway.service.dto.TechniqueDTO;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Service class for composing the full view of a recipe.
+ * <p>
+ * The recipe, its ingredients and its steps are read concurrently, each on its own connection, and the techniques
+ * related to the steps are searched as soon as the steps are read, so the view takes as long as the slowest of these
+ * reads rather than their sum. The techniques are searched in the techniques service, by the actions of the steps.
+ * Each read is given {@code application.recipe-view.database-timeout}, or
+ * {@code search-timeout} for the techniques: past it, or if it fails, the part is left empty and reported as missing,
+ * except for the recipe itself.
+ */
+@Service
+public class RecipeViewService {
+
+    private static final String INGREDIENTS = "ingredients";
+    private static final String STEPS = "steps";
+    private static final String TECHNIQUES = "techniques";
+
+    private final Logger log = LoggerFactory.getLogger(RecipeViewService.class);
+
+    private final RecipeRepository recipeRepository;
+
+    private final TechniqueClient techniqueClient;
+
+    private final ApplicationProperties applicationProperties;
+
+    public RecipeViewService(
+        RecipeRepository recipeRepository,
+        TechniqueClient techniqueClient,
+        ApplicationProperties applicationProperties
+    ) {
+        this.recipeRepository = recipeRepository;
+        this.techniqueClient = techniqueClient;
+        this.applicationProperties = applicationProperties;
+    }
+
+    /**
+     * Get the full view of a recipe.
+     *
+     * @param id the id of the recipe.
+     * @return the view, empty if the recipe doesn't exist, or a {@link java.util.concurrent.TimeoutException} if the
+     * recipe couldn't be read in time.
+     */
+    public Mono<RecipeViewDTO> getRecipeView(Long id) {
+        ApplicationProperties.RecipeView properties = applicationProperties.getRecipeView();
+        Duration databaseTimeout = properties.getDatabaseTimeout();
+
+        Mono<Recipe> recipe = recipeRepository.findById(id).timeout(databaseTimeout);
+        Mono<Optional<List<Ingredient>>> ingredients = partial(
+            INGREDIENTS,
+            id,
+            recipeRepository.findAllIngredientsOf(id).collectList(),
+            databaseTimeout
+        );
+        // read once, for the recipe and for the search of the techniques
+        Mono<Optional<List<Step>>> steps = partial(STEPS, id, recipeRepository.findAllStepsOf(id).collectList(), databaseTimeout).cache();
+        Mono<Optional<List<TechniqueDTO>>> techniques = steps.flatMap(
+            optionalSteps -> {
+                if (optionalSteps.isEmpty()) {
+                    return Mono.just(Optional.<List<TechniqueDTO>>empty());
+                }
+                if (optionalSteps.get().isEmpty()) {
+                    return Mono.just(Optional.of(List.<TechniqueDTO>of()));
+                }
+                List<String> actions = optionalSteps.get().stream().map(Step::getAction).collect(Collectors.toList());
+                Mono<List<TechniqueDTO>> related = techniqueClient
+                    .searchByDescription(actions)
+                    .take(properties.getMaxTechniques())
+                    .collectList();
+                return partial(TECHNIQUES, id, related, properties.getSearchTimeout());
+            }
+        );
+
+        return Mono
+            .zip(recipe, ingredients, steps, techniques)
+            .map(
+                view -> {
+                    List<String> missing = new ArrayList<>();
+                    view.getT2().ifPresentOrElse(view.getT1().getIngredients()::addAll, () -> missing.add(INGREDIENTS));
+                    view.getT3().ifPresentOrElse(view.getT1().getSteps()::addAll, () -> missing.add(STEPS));
+                    if (view.getT4().isEmpty()) {
+                        missing.add(TECHNIQUES);
+                    }
+                    return new RecipeViewDTO(view.getT1(), view.getT4().orElse(List.of()), missing);
+                }
+            );
+    }
+
+    /**
+     * @return the part of the view, or an empty {@link Optional} if it couldn't be read in time.
+     */
+    private <T> Mono<Optional<T>> partial(String part, Long id, Mono<T> read, Duration timeout) {
+        return read
+            .timeout(timeout)
+            .map(Optional::of)
+            .onErrorResume(
+                e -> {
+                    log.warn("Could not read the {} of the Recipe {}, left out of its view: {}", part, id, e.toString());
+                    return Mono.just(Optional.<T>empty());
+                }
+            );
+    }
+}
@@ -0,0 +1,73 @@
+package fr.lalourche.hellojhipster.gateway.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+/**
+ * Coalesces concurrent identical reads: while a read is in flight, the requests for the same key subscribe to it,
+ * instead of running their own, and get the same result. Nothing is kept once the read has completed, so this is not a
+ * cache: it only saves the duplicate reads of a stampede.
+ * <p>
+ * The reads are counted in the {@value #METRIC_NAME} counter, tagged by {@code flight} and by {@code outcome}:
+ * {@code executed} for the reads actually run, {@code merged} for the requests which joined a read in flight.
+ * <p>
+ * The results are shared, so they must not be modified by the callers. A read runs without the context of the request
+ * which started it, so it isn't bound to its transaction, nor cancelled with it.
+ */
+@Service
+public class SingleFlight {
+
+    public static final String METRIC_NAME = "single.flight.requests";
+
+    private final Map<List<Object>, Mono<?>> inFlight = new ConcurrentHashMap<>();
+
+    private final MeterRegistry meterRegistry;
+
+    public SingleFlight(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Runs a read, or joins the identical read in flight.
+     *
+     * @param flight the name of the read, for instance the entity and the operation.
+     * @param key the parameters of the read, with {@code equals} and {@code hashCode}.
+     * @param reader runs the read.
+     * @param <T> the type of the result.
+     * @return the result of the read.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> execute(String flight, Object key, Supplier<Mono<T>> reader) {
+        return Mono.defer(
+            () -> {
+                List<Object> flightKey = List.of(flight, key);
+                Mono<?> joined = inFlight.get(flightKey);
+                if (joined == null) {
+                    Mono<T> started = reader
+                        .get()
+                        .contextWrite(context -> Context.empty())
+                        .doFinally(signal -> inFlight.remove(flightKey))
+                        .cache();
+                    joined = inFlight.putIfAbsent(flightKey, started);
+                    if (joined == null) {
+                        counter(flight, "executed").increment();
+                        return started;
+                    }
+                }
+                counter(flight, "merged").increment();
+                return (Mono<T>) joined;
+            }
+        );
+    }
+
+    private Counter counter(String flight, String outcome) {
+        return meterRegistry.counter(METRIC_NAME, "flight", flight, "outcome", outcome);
+    }
+}
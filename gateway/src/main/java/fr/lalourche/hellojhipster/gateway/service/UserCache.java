@@ -0,0 +1,164 @@
+package fr.lalourche.hellojhipster.gateway.service;
+
+import fr.lalourche.hellojhipster.gateway.config.ApplicationProperties;
+import fr.lalourche.hellojhipster.gateway.domain.User;
+import fr.lalourche.hellojhipster.gateway.repository.UserRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+
+/**
+ * In-memory cache of the users with their authorities, by login and by email, for the lookups made on each login and
+ * each load of the account. The cached users are shared, and mustn't be modified.
+ * <p>
+ * A user is kept for {@code application.user-cache.time-to-live}, a time to live of zero disabling the cache. The
+ * {@link UserService} evicts the users it writes, once when they are written and once again when the transaction
+ * completes, and, as for the {@link EntityTagCache}, a user is only stored if no user has been evicted since it was
+ * read.
+ */
+@Service
+public class UserCache {
+
+    private static final String LOGIN_PREFIX = "login:";
+
+    private static final String EMAIL_PREFIX = "email:";
+
+    private final UserRepository userRepository;
+
+    private final long timeToLive;
+
+    private final int maxEntries;
+
+    private final Map<String, CachedUser> byKey = new ConcurrentHashMap<>();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    public UserCache(UserRepository userRepository, ApplicationProperties applicationProperties) {
+        this.userRepository = userRepository;
+        this.timeToLive = applicationProperties.getUserCache().getTimeToLive().toNanos();
+        this.maxEntries = applicationProperties.getUserCache().getMaxEntries();
+    }
+
+    /**
+     * @param login the login of the user.
+     * @return the user with its authorities, or an empty {@link Mono} if there is no such user.
+     */
+    public Mono<User> findOneWithAuthoritiesByLogin(String login) {
+        return find(LOGIN_PREFIX + login, () -> userRepository.findOneWithAuthoritiesByLogin(login));
+    }
+
+    /**
+     * @param email the email of the user, in any case.
+     * @return the user with its authorities, or an empty {@link Mono} if there is no such user.
+     */
+    public Mono<User> findOneWithAuthoritiesByEmailIgnoreCase(String email) {
+        return find(EMAIL_PREFIX + email.toLowerCase(Locale.ENGLISH), () -> userRepository.findOneWithAuthoritiesByEmailIgnoreCase(email));
+    }
+
+    /**
+     * Evicts a user which is being written, now and when the current transaction completes.
+     *
+     * @param user the user.
+     * @return a {@link Mono} completing once the user is evicted.
+     */
+    public Mono<Void> evict(User user) {
+        Runnable eviction = () -> {
+            evictions.incrementAndGet();
+            // the login or the email of the user may have changed since it was cached
+            byKey.values().removeIf(cached -> user.getId() != null && user.getId().equals(cached.user.getId()));
+            keys(user).forEach(byKey::remove);
+        };
+        return Mono
+            .fromRunnable(eviction)
+            .then(TransactionSynchronizationManager.forCurrentTransaction())
+            .filter(TransactionSynchronizationManager::isSynchronizationActive)
+            .doOnNext(
+                manager ->
+                    manager.registerSynchronization(
+                        new TransactionSynchronization() {
+                            @Override
+                            public Mono<Void> afterCompletion(int status) {
+                                return Mono.fromRunnable(eviction);
+                            }
+                        }
+                    )
+            )
+            .onErrorResume(NoTransactionException.class, e -> Mono.empty())
+            .then();
+    }
+
+    /**
+     * Evicts all the users, as after they were written without the {@link UserService}.
+     */
+    public void clear() {
+        evictions.incrementAndGet();
+        byKey.clear();
+    }
+
+    private Mono<User> find(String key, Supplier<Mono<User>> reader) {
+        if (timeToLive <= 0) {
+            return reader.get();
+        }
+        return Mono.defer(
+            () -> {
+                CachedUser cached = byKey.get(key);
+                if (cached != null) {
+                    if (!cached.isExpired()) {
+                        return Mono.just(cached.user);
+                    }
+                    byKey.remove(key, cached);
+                }
+                long stamp = evictions.get();
+                return reader.get().doOnNext(user -> put(user, stamp));
+            }
+        );
+    }
+
+    private void put(User user, long stamp) {
+        if (byKey.size() >= maxEntries) {
+            byKey.clear();
+        }
+        CachedUser cached = new CachedUser(user, System.nanoTime() + timeToLive);
+        List<String> keys = keys(user);
+        keys.forEach(key -> byKey.put(key, cached));
+        if (evictions.get() != stamp) {
+            keys.forEach(key -> byKey.remove(key, cached));
+        }
+    }
+
+    private static List<String> keys(User user) {
+        List<String> keys = new ArrayList<>(2);
+        if (user.getLogin() != null) {
+            keys.add(LOGIN_PREFIX + user.getLogin());
+        }
+        if (user.getEmail() != null) {
+            keys.add(EMAIL_PREFIX + user.getEmail().toLowerCase(Locale.ENGLISH));
+        }
+        return keys;
+    }
+
+    private static final class CachedUser {
+
+        private final User user;
+
+        private final long expiresAt;
+
+        CachedUser(User user, long expiresAt) {
+            this.user = user;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired() {
+            return System.nanoTime() - expiresAt >= 0;
+        }
+    }
+}
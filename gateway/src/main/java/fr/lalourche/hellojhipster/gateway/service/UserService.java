@@ -1,6 +1,7 @@
 package fr.lalourche.hellojhipster.gateway.service;
 
 import fr.lalourche.hellojhipster.gateway.config.Constants;
+import fr.lalourche.hellojhipster.gateway.config.PasswordHashingConfiguration;
 import fr.lalourche.hellojhipster.gateway.domain.Authority;
 import fr.lalourche.hellojhipster.gateway.domain.User;
 import fr.lalourche.hellojhipster.gateway.repository.AuthorityRepository;
@@ -17,6 +18,7 @@ import java.time.temporal.ChronoUnit;
 import java.util.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.data.domain.Pageable;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -24,6 +26,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
 import tech.jhipster.security.RandomUtil;
 
@@ -43,16 +46,24 @@ public class UserService {
 
     private final AuthorityRepository authorityRepository;
 
+    private final Scheduler passwordHashingScheduler;
+
+    private final UserCache userCache;
+
     public UserService(
         UserRepository userRepository,
         PasswordEncoder passwordEncoder,
         UserSearchRepository userSearchRepository,
-        AuthorityRepository authorityRepository
+        AuthorityRepository authorityRepository,
+        @Qualifier(PasswordHashingConfiguration.SCHEDULER_NAME) Scheduler passwordHashingScheduler,
+        UserCache userCache
     ) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.userSearchRepository = userSearchRepository;
         this.authorityRepository = authorityRepository;
+        this.passwordHashingScheduler = passwordHashingScheduler;
+        this.userCache = userCache;
     }
 
     @Transactional
@@ -78,7 +89,7 @@ public class UserService {
         return userRepository
             .findOneByResetKey(key)
             .filter(user -> user.getResetDate().isAfter(Instant.now().minusSeconds(86400)))
-            .publishOn(Schedulers.boundedElastic())
+            .publishOn(passwordHashingScheduler)
             .map(
                 user -> {
                     user.setPassword(passwordEncoder.encode(newPassword));
@@ -113,7 +124,7 @@ public class UserService {
             .flatMap(
                 existingUser -> {
                     if (!existingUser.isActivated()) {
-                        return userRepository.delete(existingUser);
+                        return userRepository.delete(existingUser).then(userCache.evict(existingUser));
                     } else {
                         return Mono.error(new UsernameAlreadyUsedException());
                     }
@@ -123,13 +134,13 @@ public class UserService {
             .flatMap(
                 existingUser -> {
                     if (!existingUser.isActivated()) {
-                        return userRepository.delete(existingUser);
+                        return userRepository.delete(existingUser).then(userCache.evict(existingUser));
                     } else {
                         return Mono.error(new EmailAlreadyUsedException());
                     }
                 }
             )
-            .publishOn(Schedulers.boundedElastic())
+            .publishOn(passwordHashingScheduler)
             .then(
                 Mono.fromCallable(
                     () -> {
@@ -188,7 +199,7 @@ public class UserService {
             .flatMap(authorityRepository::findById)
             .doOnNext(authority -> user.getAuthorities().add(authority))
             .then(Mono.just(user))
-            .publishOn(Schedulers.boundedElastic())
+            .publishOn(passwordHashingScheduler)
             .map(
                 newUser -> {
                     String encryptedPassword = passwordEncoder.encode(RandomUtil.generatePassword());
@@ -246,6 +257,7 @@ public class UserService {
         return userRepository
             .findOneByLogin(login)
             .flatMap(user -> userRepository.delete(user).thenReturn(user))
+            .flatMap(user -> userCache.evict(user).thenReturn(user))
             .flatMap(user -> userSearchRepository.delete(user).thenReturn(user))
             .doOnNext(user -> log.debug("Deleted User: {}", user))
             .then();
@@ -306,7 +318,8 @@ public class UserService {
                                     .then(Mono.just(savedUser))
                         );
                 }
-            );
+            )
+            .flatMap(savedUser -> userCache.evict(savedUser).thenReturn(savedUser));
     }
 
     @Transactional
@@ -314,7 +327,7 @@ public class UserService {
         return SecurityUtils
             .getCurrentUserLogin()
             .flatMap(userRepository::findOneByLogin)
-            .publishOn(Schedulers.boundedElastic())
+            .publishOn(passwordHashingScheduler)
             .map(
                 user -> {
                     String currentEncryptedPassword = user.getPassword();
@@ -353,7 +366,7 @@ public class UserService {
 
     @Transactional(readOnly = true)
     public Mono<User> getUserWithAuthorities() {
-        return SecurityUtils.getCurrentUserLogin().flatMap(userRepository::findOneWithAuthoritiesByLogin);
+        return SecurityUtils.getCurrentUserLogin().flatMap(userCache::findOneWithAuthoritiesByLogin);
     }
 
     /**
@@ -373,6 +386,7 @@ public class UserService {
                 LocalDateTime.ofInstant(Instant.now().minus(3, ChronoUnit.DAYS), ZoneOffset.UTC)
             )
             .flatMap(user -> userRepository.delete(user).thenReturn(user))
+            .flatMap(user -> userCache.evict(user).thenReturn(user))
             .flatMap(user -> userSearchRepository.delete(user).thenReturn(user))
             .doOnNext(user -> log.debug("Deleted User: {}", user));
     }
@@ -0,0 +1,77 @@
+package fr.lalourche.hellojhipster.gateway.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * A DTO representing the result of writing one item of a bulk request: its position in the request, and either the id
+ * of the created entity or the reason it wasn't created.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkItemResultDTO {
+
+    private long index;
+
+    private Long id;
+
+    private int status;
+
+    private String error;
+
+    public BulkItemResultDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public BulkItemResultDTO(long index, Long id, int status, String error) {
+        this.index = index;
+        this.id = id;
+        this.status = status;
+        this.error = error;
+    }
+
+    public long getIndex() {
+        return index;
+    }
+
+    public void setIndex(long index) {
+        this.index = index;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    /**
+     * @return the HTTP status the item would have had if created on its own: {@code 201} if it was created,
+     * {@code 400} if it is invalid, {@code 500} if it couldn't be written or indexed.
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "BulkItemResultDTO{" +
+            "index=" + index +
+            ", id=" + id +
+            ", status=" + status +
+            ", error='" + error + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,65 @@
+package fr.lalourche.hellojhipster.gateway.service.dto;
+
+import fr.lalourche.hellojhipster.gateway.domain.Recipe;
+
+/**
+ * A DTO representing a recipe matching a set of ingredients, without its picture, with how well it matches them.
+ */
+public class RecipeMatchDTO {
+
+    private Recipe recipe;
+
+    private int matchedIngredients;
+
+    private int missingIngredients;
+
+    public RecipeMatchDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public RecipeMatchDTO(Recipe recipe, int matchedIngredients, int missingIngredients) {
+        this.recipe = recipe;
+        this.matchedIngredients = matchedIngredients;
+        this.missingIngredients = missingIngredients;
+    }
+
+    public Recipe getRecipe() {
+        return recipe;
+    }
+
+    public void setRecipe(Recipe recipe) {
+        this.recipe = recipe;
+    }
+
+    /**
+     * @return the number of requested ingredients the recipe uses.
+     */
+    public int getMatchedIngredients() {
+        return matchedIngredients;
+    }
+
+    public void setMatchedIngredients(int matchedIngredients) {
+        this.matchedIngredients = matchedIngredients;
+    }
+
+    /**
+     * @return the number of ingredients of the recipe which weren't requested.
+     */
+    public int getMissingIngredients() {
+        return missingIngredients;
+    }
+
+    public void setMissingIngredients(int missingIngredients) {
+        this.missingIngredients = missingIngredients;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "RecipeMatchDTO{" +
+            "recipe=" + recipe +
+            ", matchedIngredients=" + matchedIngredients +
+            ", missingIngredients=" + missingIngredients +
+            "}";
+    }
+}
@@ -0,0 +1,66 @@
+package fr.lalourche.hellojhipster.gateway.service.dto;
+
+import fr.lalourche.hellojhipster.gateway.domain.Recipe;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A DTO representing the full view of a recipe: the recipe with its ingredients and steps, and the techniques related
+ * to its steps, from the techniques service.
+ */
+public class RecipeViewDTO {
+
+    private Recipe recipe;
+
+    private List<TechniqueDTO> techniques = new ArrayList<>();
+
+    private List<String> missing = new ArrayList<>();
+
+    public RecipeViewDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public RecipeViewDTO(Recipe recipe, List<TechniqueDTO> techniques, List<String> missing) {
+        this.recipe = recipe;
+        this.techniques = techniques;
+        this.missing = missing;
+    }
+
+    public Recipe getRecipe() {
+        return recipe;
+    }
+
+    public void setRecipe(Recipe recipe) {
+        this.recipe = recipe;
+    }
+
+    public List<TechniqueDTO> getTechniques() {
+        return techniques;
+    }
+
+    public void setTechniques(List<TechniqueDTO> techniques) {
+        this.techniques = techniques;
+    }
+
+    /**
+     * @return the parts of the view which couldn't be read in time, among {@code ingredients}, {@code steps} and
+     * {@code techniques}, and are left empty.
+     */
+    public List<String> getMissing() {
+        return missing;
+    }
+
+    public void setMissing(List<String> missing) {
+        this.missing = missing;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "RecipeViewDTO{" +
+            "recipe=" + recipe +
+            ", techniques=" + techniques +
+            ", missing=" + missing +
+            "}";
+    }
+}
@@ -0,0 +1,45 @@
+package fr.lalourche.hellojhipster.gateway.service.dto;
+
+/**
+ * A DTO representing a technique of the techniques service.
+ */
+public class TechniqueDTO {
+
+    private String id;
+
+    private String description;
+
+    public TechniqueDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public TechniqueDTO(String id, String description) {
+        this.id = id;
+        this.description = description;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "TechniqueDTO{" +
+            "id='" + id + "'" +
+            ", description='" + description + "'" +
+            "}";
+    }
+}
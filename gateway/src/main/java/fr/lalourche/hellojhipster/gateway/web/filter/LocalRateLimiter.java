@@ -0,0 +1,153 @@
+package fr.lalourche.hellojhipster.gateway.web.filter;
+
+import fr.lalourche.hellojhipster.gateway.config.ApplicationProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.validation.constraints.Min;
+import org.springframework.cloud.gateway.filter.ratelimit.AbstractRateLimiter;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+import reactor.core.publisher.Mono;
+
+/**
+ * In-process token bucket rate limiter, for the {@code RequestRateLimiter} filter, so the gateway has admission
+ * control without Redis. Each gateway instance enforces its own limits.
+ * <p>
+ * A client gets {@code burstCapacity} tokens per route, replenished at {@code replenishRate} tokens per second, and
+ * each request takes {@code requestedTokens} of them. The routes get the limits of {@code application.rate-limit},
+ * unless they set their own with the {@code local-rate-limiter.*} arguments of their filter.
+ * <p>
+ * Each bucket is a single {@link AtomicLong}, the time at which it will be full again (the generic cell rate
+ * algorithm), updated with a compare and set, and the buckets are spread over {@link ConcurrentHashMap}s, so no lock is
+ * taken. A full bucket is the same as no bucket, so the full buckets are dropped once there are too many clients.
+ * <p>
+ * A throttled request is answered with {@code 429 (Too Many Requests)} and a {@code Retry-After} header. The decisions
+ * are counted in the {@value #METRIC_NAME} counter, tagged by {@code route} and by {@code outcome} ({@code allowed} or
+ * {@code throttled}).
+ */
+@Component
+public class LocalRateLimiter extends AbstractRateLimiter<LocalRateLimiter.Config> {
+
+    public static final String CONFIGURATION_PROPERTY_NAME = "local-rate-limiter";
+
+    public static final String METRIC_NAME = "gateway.rate.limiter";
+
+    public static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    // the full buckets are looked for at most once per second
+    private static final long CLEANUP_INTERVAL = NANOS_PER_SECOND;
+
+    private final Config defaultConfig;
+
+    private final int maxClients;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, RouteBuckets> bucketsByRoute = new ConcurrentHashMap<>();
+
+    public LocalRateLimiter(
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry,
+        ConfigurationService configurationService
+    ) {
+        super(Config.class, CONFIGURATION_PROPERTY_NAME, configurationService);
+        ApplicationProperties.RateLimit rateLimit = applicationProperties.getRateLimit();
+        this.defaultConfig = new Config().setReplenishRate(rateLimit.getReplenishRate()).setBurstCapacity(rateLimit.getBurstCapacity());
+        this.maxClients = rateLimit.getMaxClients();
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Mono<Response> isAllowed(String routeId, String id) {
+        return Mono.fromSupplier(() -> tryAcquire(routeId, id));
+    }
+
+    private Response tryAcquire(String routeId, String id) {
+        Config config = getConfig().getOrDefault(routeId, defaultConfig);
+        long interval = NANOS_PER_SECOND / config.getReplenishRate();
+        long capacity = interval * config.getBurstCapacity();
+        long cost = interval * config.getRequestedTokens();
+        long now = System.nanoTime();
+        AtomicLong bucket = bucketsByRoute.computeIfAbsent(routeId, r -> new RouteBuckets(now)).get(id, now);
+        while (true) {
+            long fullAt = bucket.get();
+            long next = (fullAt - now > 0 ? fullAt : now) + cost;
+            long excess = next - now - capacity;
+            if (excess > 0) {
+                meterRegistry.counter(METRIC_NAME, "route", routeId, "outcome", "throttled").increment();
+                long retryAfter = Math.max(1, (excess + NANOS_PER_SECOND - 1) / NANOS_PER_SECOND);
+                return new Response(false, Map.of(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter)));
+            }
+            if (bucket.compareAndSet(fullAt, next)) {
+                meterRegistry.counter(METRIC_NAME, "route", routeId, "outcome", "allowed").increment();
+                return new Response(true, Map.of(REMAINING_HEADER, Long.toString((capacity - (next - now)) / interval)));
+            }
+        }
+    }
+
+    private final class RouteBuckets {
+
+        private final Map<String, AtomicLong> byClient = new ConcurrentHashMap<>();
+
+        private final AtomicLong nextCleanup;
+
+        RouteBuckets(long now) {
+            this.nextCleanup = new AtomicLong(now);
+        }
+
+        AtomicLong get(String client, long now) {
+            long cleanup = nextCleanup.get();
+            if (byClient.size() >= maxClients && now - cleanup >= 0 && nextCleanup.compareAndSet(cleanup, now + CLEANUP_INTERVAL)) {
+                byClient.values().removeIf(bucket -> bucket.get() - now <= 0);
+            }
+            return byClient.computeIfAbsent(client, c -> new AtomicLong(now));
+        }
+    }
+
+    @Validated
+    public static class Config {
+
+        @Min(1)
+        private int replenishRate = 1;
+
+        @Min(1)
+        private int burstCapacity = 1;
+
+        @Min(1)
+        private int requestedTokens = 1;
+
+        public int getReplenishRate() {
+            return replenishRate;
+        }
+
+        public Config setReplenishRate(int replenishRate) {
+            this.replenishRate = replenishRate;
+            return this;
+        }
+
+        public int getBurstCapacity() {
+            return burstCapacity;
+        }
+
+        public Config setBurstCapacity(int burstCapacity) {
+            this.burstCapacity = burstCapacity;
+            return this;
+        }
+
+        public int getRequestedTokens() {
+            return requestedTokens;
+        }
+
+        public Config setRequestedTokens(int requestedTokens) {
+            this.requestedTokens = requestedTokens;
+            return this;
+        }
+    }
+}
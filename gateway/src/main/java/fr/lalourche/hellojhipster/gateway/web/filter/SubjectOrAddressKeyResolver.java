@@ -0,0 +1,50 @@
+package fr.lalourche.hellojhipster.gateway.web.filter;
+
+import static fr.lalourche.hellojhipster.gateway.security.jwt.JWTFilter.AUTHORIZATION_HEADER;
+
+import fr.lalourche.hellojhipster.gateway.security.jwt.TokenProvider;
+import java.net.InetSocketAddress;
+import java.util.Optional;
+import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Resolves the client of a request, for rate limiting: the subject of its token when it has a valid one, its address
+ * otherwise.
+ */
+@Component
+public class SubjectOrAddressKeyResolver implements KeyResolver {
+
+    private final TokenProvider tokenProvider;
+
+    public SubjectOrAddressKeyResolver(TokenProvider tokenProvider) {
+        this.tokenProvider = tokenProvider;
+    }
+
+    @Override
+    public Mono<String> resolve(ServerWebExchange exchange) {
+        return Mono.fromSupplier(
+            () -> {
+                String bearerToken = exchange.getRequest().getHeaders().getFirst(AUTHORIZATION_HEADER);
+                if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
+                    Optional<Authentication> authentication = tokenProvider.verify(bearerToken.substring(7));
+                    if (authentication.isPresent()) {
+                        return "subject:" + authentication.get().getName();
+                    }
+                }
+                InetSocketAddress remoteAddress = exchange.getRequest().getRemoteAddress();
+                if (remoteAddress == null) {
+                    return "address:unknown";
+                }
+                if (remoteAddress.getAddress() == null) {
+                    return "address:" + remoteAddress.getHostString();
+                }
+                return "address:" + remoteAddress.getAddress().getHostAddress();
+            }
+        );
+    }
+}
@@ -1,29 +1,43 @@
 package fr.lalourche.hellojhipster.gateway.web.rest;
 
 import fr.lalourche.hellojhipster.gateway.domain.Ingredient;
+import fr.lalourche.hellojhipster.gateway.domain.Recipe;
 import fr.lalourche.hellojhipster.gateway.repository.IngredientRepository;
 import fr.lalourche.hellojhipster.gateway.repository.search.IngredientSearchRepository;
+import fr.lalourche.hellojhipster.gateway.service.BulkService;
+import fr.lalourche.hellojhipster.gateway.service.EntityManager;
+import fr.lalourche.hellojhipster.gateway.service.EntityTagCache;
+import fr.lalourche.hellojhipster.gateway.service.SingleFlight;
+import fr.lalourche.hellojhipster.gateway.service.dto.BulkItemResultDTO;
 import fr.lalourche.hellojhipster.gateway.web.rest.errors.BadRequestAlertException;
+import fr.lalourche.hellojhipster.gateway.web.util.EntityTagUtil;
+import fr.lalourche.hellojhipster.gateway.web.util.KeysetPaginationUtil;
+import fr.lalourche.hellojhipster.gateway.web.util.ListingUtil;
+import fr.lalourche.hellojhipster.gateway.web.util.SparseFieldsetUtil;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import tech.jhipster.web.util.HeaderUtil;
-import tech.jhipster.web.util.reactive.ResponseUtil;
 
 /**
  * REST controller for managing {@link fr.lalourche.hellojhipster.gateway.domain.Ingredient}.
@@ -44,9 +58,28 @@ public class IngredientResource {
 
     private final IngredientSearchRepository ingredientSearchRepository;
 
-    public IngredientResource(IngredientRepository ingredientRepository, IngredientSearchRepository ingredientSearchRepository) {
+    private final EntityManager entityManager;
+
+    private final BulkService bulkService;
+
+    private final EntityTagCache entityTagCache;
+
+    private final SingleFlight singleFlight;
+
+    public IngredientResource(
+        IngredientRepository ingredientRepository,
+        IngredientSearchRepository ingredientSearchRepository,
+        EntityManager entityManager,
+        BulkService bulkService,
+        EntityTagCache entityTagCache,
+        SingleFlight singleFlight
+    ) {
         this.ingredientRepository = ingredientRepository;
         this.ingredientSearchRepository = ingredientSearchRepository;
+        this.entityManager = entityManager;
+        this.bulkService = bulkService;
+        this.entityTagCache = entityTagCache;
+        this.singleFlight = singleFlight;
     }
 
     /**
@@ -79,6 +112,29 @@ public class IngredientResource {
             );
     }
 
+    /**
+     * {@code POST  /ingredients/_bulk} : Create new ingredients, sent as a stream of JSON objects (NDJSON).
+     * <p>
+     * A malformed line only fails its own ingredient, with status {@code 400 (Bad Request)}. The ingredients are written by batches, each
+     * in a single transaction, so an ingredient which can't be written fails all the ingredients of its batch, with status {@code 500
+     * (Internal Server Error)}.
+     *
+     * @param lines the lines of the request, each holding an ingredient to create, which must not have an ID.
+     * @return the {@link Flux} of the results of the creation of each ingredient, in the order of the lines.
+     */
+    @PostMapping(value = "/ingredients/_bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Flux<BulkItemResultDTO> createIngredients(@RequestBody Flux<String> lines) {
+        log.debug("REST request to save Ingredients in bulk");
+        return bulkService.createAll(
+            lines,
+            Ingredient.class,
+            Ingredient::getId,
+            ingredientRepository::insertAll,
+            ingredientSearchRepository::saveAll
+        );
+    }
+
     /**
      * {@code PUT  /ingredients/:id} : Updates an existing ingredient.
      *
@@ -86,6 +142,8 @@ public class IngredientResource {
      * @param ingredient the ingredient to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated ingredient,
      * or with status {@code 400 (Bad Request)} if the ingredient is not valid,
+     * or with status {@code 404 (Not Found)} if the ingredient is not found,
+     * or with status {@code 409 (Conflict)} if the ingredient has been modified since it was read,
      * or with status {@code 500 (Internal Server Error)} if the ingredient couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
@@ -101,29 +159,21 @@ public class IngredientResource {
         if (!Objects.equals(id, ingredient.getId())) {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
+        if (ingredient.getVersion() == null) {
+            throw new BadRequestAlertException("Invalid version", ENTITY_NAME, "versionnull");
+        }
 
         return ingredientRepository
-            .existsById(id)
-            .flatMap(
-                exists -> {
-                    if (!exists) {
-                        return Mono.error(new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
-                    }
-
-                    return ingredientRepository
-                        .save(ingredient)
-                        .flatMap(ingredientSearchRepository::save)
-                        .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
-                        .map(
-                            result ->
-                                ResponseEntity
-                                    .ok()
-                                    .headers(
-                                        HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, result.getId().toString())
-                                    )
-                                    .body(result)
-                        );
-                }
+            .save(ingredient)
+            .flatMap(result -> evictEntityTags(id).thenReturn(result))
+            .flatMap(ingredientSearchRepository::save)
+            .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
+            .map(
+                result ->
+                    ResponseEntity
+                        .ok()
+                        .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, result.getId().toString()))
+                        .body(result)
             );
     }
 
@@ -135,6 +185,7 @@ public class IngredientResource {
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated ingredient,
      * or with status {@code 400 (Bad Request)} if the ingredient is not valid,
      * or with status {@code 404 (Not Found)} if the ingredient is not found,
+     * or with status {@code 409 (Conflict)} if the ingredient has been modified while being updated,
      * or with status {@code 500 (Internal Server Error)} if the ingredient couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
@@ -151,56 +202,64 @@ public class IngredientResource {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        return ingredientRepository
-            .existsById(id)
-            .flatMap(
-                exists -> {
-                    if (!exists) {
-                        return Mono.error(new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
-                    }
-
-                    Mono<Ingredient> result = ingredientRepository
-                        .findById(ingredient.getId())
-                        .map(
-                            existingIngredient -> {
-                                if (ingredient.getName() != null) {
-                                    existingIngredient.setName(ingredient.getName());
-                                }
-
-                                return existingIngredient;
-                            }
-                        )
-                        .flatMap(ingredientRepository::save)
-                        .flatMap(
-                            savedIngredient -> {
-                                ingredientSearchRepository.save(savedIngredient);
+        Mono<Ingredient> result = ingredientRepository
+            .partialUpdate(ingredient)
+            .flatMap(savedIngredient -> evictEntityTags(id).thenReturn(savedIngredient))
+            .flatMap(savedIngredient -> ingredientSearchRepository.updatePartially(savedIngredient).thenReturn(savedIngredient));
 
-                                return Mono.just(savedIngredient);
-                            }
-                        );
-
-                    return result
-                        .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
-                        .map(
-                            res ->
-                                ResponseEntity
-                                    .ok()
-                                    .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, res.getId().toString()))
-                                    .body(res)
-                        );
-                }
+        return result
+            .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
+            .map(
+                res ->
+                    ResponseEntity
+                        .ok()
+                        .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, res.getId().toString()))
+                        .body(res)
             );
     }
 
     /**
-     * {@code GET  /ingredients} : get all the ingredients.
+     * {@code GET  /ingredients} : get all the ingredients, or a page of them if a page or a size is requested.
      *
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of ingredients in body.
+     * @param pageable the pagination information.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the ingredients in body.
      */
     @GetMapping("/ingredients")
-    public Mono<List<Ingredient>> getAllIngredients() {
-        log.debug("REST request to get all Ingredients");
-        return ingredientRepository.findAll().collectList();
+    public Mono<ResponseEntity<Flux<Ingredient>>> getAllIngredients(Pageable pageable, ServerHttpRequest request) {
+        log.debug("REST request to get Ingredients");
+        return ListingUtil.wrapListing(
+            request,
+            pageable,
+            ingredientRepository.count(),
+            ingredientRepository::findAll,
+            ingredientRepository::findAllBy
+        );
+    }
+
+    /**
+     * {@code GET  /ingredients?fields=:fields} : get the given fields of the ingredients, and their id.
+     *
+     * @param fields the comma-separated names of the fields.
+     * @param pageable the pagination information.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the ingredients in body, or with status {@code 400 (Bad Request)} if a field is unknown.
+     */
+    @GetMapping(value = "/ingredients", params = { SparseFieldsetUtil.FIELDS_PARAMETER, "!" + KeysetPaginationUtil.AFTER_PARAMETER })
+    public Mono<ResponseEntity<Flux<Map<String, Object>>>> getAllIngredientFields(
+        @RequestParam(SparseFieldsetUtil.FIELDS_PARAMETER) String fields,
+        Pageable pageable,
+        ServerHttpRequest request
+    ) {
+        log.debug("REST request to get the fields of all Ingredients : {}", fields);
+        return SparseFieldsetUtil.wrapFieldsListing(
+            ENTITY_NAME,
+            fields,
+            request,
+            pageable,
+            ingredientRepository.count(),
+            ingredientRepository::findAllFieldsBy
+        );
     }
 
     /**
@@ -213,17 +272,54 @@ public class IngredientResource {
         return ingredientRepository.findAll();
     }
 
+    /**
+     * {@code GET  /ingredients?after=:token&size=:size} : get a page of ingredients, using keyset pagination.
+     *
+     * @param after the continuation token of the page, or empty for the first page.
+     * @param size the maximum number of ingredients in the page, at most 2000.
+     * @param sort the sort of the ingredients, only used for the first page.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the page of ingredients in body, or with status {@code 400 (Bad Request)} if the token is invalid.
+     */
+    @GetMapping(value = "/ingredients", params = KeysetPaginationUtil.AFTER_PARAMETER)
+    public Mono<ResponseEntity<List<Ingredient>>> getAllIngredientsAfter(
+        @RequestParam(KeysetPaginationUtil.AFTER_PARAMETER) String after,
+        @RequestParam(defaultValue = "20") int size,
+        Sort sort,
+        ServerHttpRequest request
+    ) {
+        log.debug("REST request to get a page of Ingredients after : {}", after);
+        return KeysetPaginationUtil.wrapKeysetPage(
+            entityManager,
+            Ingredient.class,
+            ENTITY_NAME,
+            sort,
+            after,
+            size,
+            request,
+            ingredientRepository::findAllBy
+        );
+    }
+
     /**
      * {@code GET  /ingredients/:id} : get the "id" ingredient.
      *
      * @param id the id of the ingredient to retrieve.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the ingredient, or with status {@code 404 (Not Found)}.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the ingredient, or with status {@code 304 (Not Modified)} if it matches the {@code If-None-Match} header, or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/ingredients/{id}")
-    public Mono<ResponseEntity<Ingredient>> getIngredient(@PathVariable Long id) {
+    public Mono<ResponseEntity<Ingredient>> getIngredient(@PathVariable Long id, ServerHttpRequest request) {
         log.debug("REST request to get Ingredient : {}", id);
-        Mono<Ingredient> ingredient = ingredientRepository.findById(id);
-        return ResponseUtil.wrapOrNotFound(ingredient);
+        return EntityTagUtil.wrapOrNotFound(
+            entityTagCache,
+            singleFlight,
+            Ingredient.class,
+            id,
+            request,
+            () -> ingredientRepository.findById(id),
+            ingredient -> EntityTagUtil.versionTag(ingredient.getVersion())
+        );
     }
 
     /**
@@ -238,6 +334,7 @@ public class IngredientResource {
         log.debug("REST request to delete Ingredient : {}", id);
         return ingredientRepository
             .deleteById(id)
+            .then(evictEntityTags(id))
             .then(ingredientSearchRepository.deleteById(id))
             .map(
                 result ->
@@ -249,15 +346,53 @@ public class IngredientResource {
     }
 
     /**
-     * {@code SEARCH  /_search/ingredients?query=:query} : search for the ingredient corresponding
+     * {@code SEARCH  /_search/ingredients?query=:query} : search for the ingredients corresponding
      * to the query.
      *
      * @param query the query of the ingredient search.
-     * @return the result of the search.
+     * @param after the continuation token of the page.
+     * @param count flag to count the results, returned in the {@code X-Total-Count} header.
+     * @param pageable the pagination information, whose page number is ignored when there is a continuation token.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the page of results in body, or with status {@code 400 (Bad Request)} if the token, the sort or the page is invalid.
      */
     @GetMapping("/_search/ingredients")
-    public Mono<List<Ingredient>> searchIngredients(@RequestParam String query) {
-        log.debug("REST request to search Ingredients for query {}", query);
-        return ingredientSearchRepository.search(query).collectList();
+    public Mono<ResponseEntity<List<Ingredient>>> searchIngredients(
+        @RequestParam String query,
+        @RequestParam(name = KeysetPaginationUtil.AFTER_PARAMETER, required = false) String after,
+        @RequestParam(defaultValue = "false") boolean count,
+        Pageable pageable,
+        ServerHttpRequest request
+    ) {
+        log.debug("REST request to search for a page of Ingredients for query {}", query);
+        return KeysetPaginationUtil.wrapSearchPage(
+            ENTITY_NAME,
+            singleFlight.execute(
+                ENTITY_NAME + ".search",
+                Arrays.asList(query, pageable, after),
+                () -> ingredientSearchRepository.search(query, pageable, after)
+            ),
+            count ? singleFlight.execute(ENTITY_NAME + ".count", query, () -> ingredientSearchRepository.countSearch(query)) : Mono.empty(),
+            pageable,
+            request
+        );
+    }
+
+    /**
+     * {@code SEARCH  /_search/ingredients?query=:query} : search for all the ingredients corresponding to the query, as a
+     * stream read from Elasticsearch in chunks, as it is consumed.
+     *
+     * @param query the query of the ingredient search.
+     * @return the {@link Flux} of results.
+     */
+    @GetMapping(value = "/_search/ingredients", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Ingredient> searchIngredientsAsStream(@RequestParam String query) {
+        log.debug("REST request to search Ingredients as a stream for query {}", query);
+        return ingredientSearchRepository.searchAsStream(query);
+    }
+
+    private Mono<Void> evictEntityTags(Long id) {
+        // the recipes embed their ingredients
+        return entityTagCache.evict(Ingredient.class, id).and(entityTagCache.evictAll(Recipe.class));
     }
 }
@@ -1,29 +1,60 @@
 package fr.lalourche.hellojhipster.gateway.web.rest;
 
+import fr.lalourche.hellojhipster.gateway.domain.Ingredient;
 import fr.lalourche.hellojhipster.gateway.domain.Recipe;
+import fr.lalourche.hellojhipster.gateway.domain.Step;
 import fr.lalourche.hellojhipster.gateway.repository.RecipeRepository;
 import fr.lalourche.hellojhipster.gateway.repository.search.RecipeSearchRepository;
+import fr.lalourche.hellojhipster.gateway.service.BulkService;
+import fr.lalourche.hellojhipster.gateway.service.EntityManager;
+import fr.lalourche.hellojhipster.gateway.service.EntityTagCache;
+import fr.lalourche.hellojhipster.gateway.service.RecipeIngredientIndex;
+import fr.lalourche.hellojhipster.gateway.service.RecipeIngredientIndex.MatchMode;
+import fr.lalourche.hellojhipster.gateway.service.RecipeViewService;
+import fr.lalourche.hellojhipster.gateway.service.SingleFlight;
+import fr.lalourche.hellojhipster.gateway.service.dto.BulkItemResultDTO;
+import fr.lalourche.hellojhipster.gateway.service.dto.RecipeMatchDTO;
+import fr.lalourche.hellojhipster.gateway.service.dto.RecipeViewDTO;
 import fr.lalourche.hellojhipster.gateway.web.rest.errors.BadRequestAlertException;
+import fr.lalourche.hellojhipster.gateway.web.util.EntityTagUtil;
+import fr.lalourche.hellojhipster.gateway.web.util.KeysetPaginationUtil;
+import fr.lalourche.hellojhipster.gateway.web.util.ListingUtil;
+import fr.lalourche.hellojhipster.gateway.web.util.SparseFieldsetUtil;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import tech.jhipster.web.util.HeaderUtil;
-import tech.jhipster.web.util.reactive.ResponseUtil;
 
 /**
  * REST controller for managing {@link fr.lalourche.hellojhipster.gateway.domain.Recipe}.
@@ -44,9 +75,36 @@ public class RecipeResource {
 
     private final RecipeSearchRepository recipeSearchRepository;
 
-    public RecipeResource(RecipeRepository recipeRepository, RecipeSearchRepository recipeSearchRepository) {
+    private final EntityManager entityManager;
+
+    private final BulkService bulkService;
+
+    private final RecipeIngredientIndex recipeIngredientIndex;
+
+    private final EntityTagCache entityTagCache;
+
+    private final RecipeViewService recipeViewService;
+
+    private final SingleFlight singleFlight;
+
+    public RecipeResource(
+        RecipeRepository recipeRepository,
+        RecipeSearchRepository recipeSearchRepository,
+        EntityManager entityManager,
+        BulkService bulkService,
+        RecipeIngredientIndex recipeIngredientIndex,
+        EntityTagCache entityTagCache,
+        RecipeViewService recipeViewService,
+        SingleFlight singleFlight
+    ) {
         this.recipeRepository = recipeRepository;
         this.recipeSearchRepository = recipeSearchRepository;
+        this.entityManager = entityManager;
+        this.bulkService = bulkService;
+        this.recipeIngredientIndex = recipeIngredientIndex;
+        this.entityTagCache = entityTagCache;
+        this.recipeViewService = recipeViewService;
+        this.singleFlight = singleFlight;
     }
 
     /**
@@ -79,6 +137,23 @@ public class RecipeResource {
             );
     }
 
+    /**
+     * {@code POST  /recipes/_bulk} : Create new recipes, sent as a stream of JSON objects (NDJSON).
+     * <p>
+     * A malformed line only fails its own recipe, with status {@code 400 (Bad Request)}. The recipes are written by batches, each in a
+     * single transaction, so a recipe which can't be written fails all the recipes of its batch, with status {@code 500 (Internal Server
+     * Error)}.
+     *
+     * @param lines the lines of the request, each holding a recipe to create, which must not have an ID.
+     * @return the {@link Flux} of the results of the creation of each recipe, in the order of the lines.
+     */
+    @PostMapping(value = "/recipes/_bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Flux<BulkItemResultDTO> createRecipes(@RequestBody Flux<String> lines) {
+        log.debug("REST request to save Recipes in bulk");
+        return bulkService.createAll(lines, Recipe.class, Recipe::getId, recipeRepository::insertAll, recipeSearchRepository::saveAll);
+    }
+
     /**
      * {@code PUT  /recipes/:id} : Updates an existing recipe.
      *
@@ -86,6 +161,8 @@ public class RecipeResource {
      * @param recipe the recipe to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated recipe,
      * or with status {@code 400 (Bad Request)} if the recipe is not valid,
+     * or with status {@code 404 (Not Found)} if the recipe is not found,
+     * or with status {@code 409 (Conflict)} if the recipe has been modified since it was read,
      * or with status {@code 500 (Internal Server Error)} if the recipe couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
@@ -101,29 +178,21 @@ public class RecipeResource {
         if (!Objects.equals(id, recipe.getId())) {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
+        if (recipe.getVersion() == null) {
+            throw new BadRequestAlertException("Invalid version", ENTITY_NAME, "versionnull");
+        }
 
         return recipeRepository
-            .existsById(id)
-            .flatMap(
-                exists -> {
-                    if (!exists) {
-                        return Mono.error(new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
-                    }
-
-                    return recipeRepository
-                        .save(recipe)
-                        .flatMap(recipeSearchRepository::save)
-                        .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
-                        .map(
-                            result ->
-                                ResponseEntity
-                                    .ok()
-                                    .headers(
-                                        HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, result.getId().toString())
-                                    )
-                                    .body(result)
-                        );
-                }
+            .save(recipe)
+            .flatMap(result -> evictEntityTags(id).thenReturn(result))
+            .flatMap(recipeSearchRepository::save)
+            .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
+            .map(
+                result ->
+                    ResponseEntity
+                        .ok()
+                        .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, result.getId().toString()))
+                        .body(result)
             );
     }
 
@@ -135,6 +204,7 @@ public class RecipeResource {
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated recipe,
      * or with status {@code 400 (Bad Request)} if the recipe is not valid,
      * or with status {@code 404 (Not Found)} if the recipe is not found,
+     * or with status {@code 409 (Conflict)} if the recipe has been modified while being updated,
      * or with status {@code 500 (Internal Server Error)} if the recipe couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
@@ -151,92 +221,251 @@ public class RecipeResource {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        return recipeRepository
-            .existsById(id)
-            .flatMap(
-                exists -> {
-                    if (!exists) {
-                        return Mono.error(new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
-                    }
+        Mono<Recipe> result = recipeRepository
+            .partialUpdate(recipe)
+            .flatMap(savedRecipe -> evictEntityTags(id).thenReturn(savedRecipe))
+            .flatMap(savedRecipe -> recipeSearchRepository.updatePartially(savedRecipe).thenReturn(savedRecipe));
 
-                    Mono<Recipe> result = recipeRepository
-                        .findById(recipe.getId())
-                        .map(
-                            existingRecipe -> {
-                                if (recipe.getName() != null) {
-                                    existingRecipe.setName(recipe.getName());
-                                }
-                                if (recipe.getCooking() != null) {
-                                    existingRecipe.setCooking(recipe.getCooking());
-                                }
-                                if (recipe.getCookingTime() != null) {
-                                    existingRecipe.setCookingTime(recipe.getCookingTime());
-                                }
-                                if (recipe.getPicture() != null) {
-                                    existingRecipe.setPicture(recipe.getPicture());
-                                }
-                                if (recipe.getPictureContentType() != null) {
-                                    existingRecipe.setPictureContentType(recipe.getPictureContentType());
-                                }
-
-                                return existingRecipe;
-                            }
-                        )
-                        .flatMap(recipeRepository::save)
-                        .flatMap(
-                            savedRecipe -> {
-                                recipeSearchRepository.save(savedRecipe);
-
-                                return Mono.just(savedRecipe);
-                            }
-                        );
-
-                    return result
-                        .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
-                        .map(
-                            res ->
-                                ResponseEntity
-                                    .ok()
-                                    .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, res.getId().toString()))
-                                    .body(res)
-                        );
-                }
+        return result
+            .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
+            .map(
+                res ->
+                    ResponseEntity
+                        .ok()
+                        .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, res.getId().toString()))
+                        .body(res)
             );
     }
 
     /**
-     * {@code GET  /recipes} : get all the recipes.
+     * {@code GET  /recipes} : get all the recipes, without their picture, or a page of them if a page or a size is requested.
      *
-     * @param eagerload flag to eager load entities from relationships (This is applicable for many-to-many).
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of recipes in body.
+     * @param pageable the pagination information.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the recipes in body.
      */
     @GetMapping("/recipes")
-    public Mono<List<Recipe>> getAllRecipes(@RequestParam(required = false, defaultValue = "false") boolean eagerload) {
-        log.debug("REST request to get all Recipes");
-        return recipeRepository.findAllWithEagerRelationships().collectList();
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Mono<ResponseEntity<Flux<Recipe>>> getAllRecipes(Pageable pageable, ServerHttpRequest request) {
+        log.debug("REST request to get Recipes");
+        return ListingUtil.wrapListing(
+            request,
+            pageable,
+            recipeRepository.count(),
+            recipeRepository::findAllWithEagerRelationships,
+            recipeRepository::findAllWithEagerRelationships
+        );
+    }
+
+    /**
+     * {@code GET  /recipes?fields=:fields} : get the given fields of the recipes, and their id, the ingredients and steps being
+     * fields of their own.
+     *
+     * @param fields the comma-separated names of the fields.
+     * @param pageable the pagination information.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the recipes in body, or with status {@code 400 (Bad Request)} if a field is unknown.
+     */
+    @GetMapping(value = "/recipes", params = { SparseFieldsetUtil.FIELDS_PARAMETER, "!" + KeysetPaginationUtil.AFTER_PARAMETER })
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Mono<ResponseEntity<Flux<Map<String, Object>>>> getAllRecipeFields(
+        @RequestParam(SparseFieldsetUtil.FIELDS_PARAMETER) String fields,
+        Pageable pageable,
+        ServerHttpRequest request
+    ) {
+        log.debug("REST request to get the fields of all Recipes : {}", fields);
+        return SparseFieldsetUtil.wrapFieldsListing(
+            ENTITY_NAME,
+            fields,
+            request,
+            pageable,
+            recipeRepository.count(),
+            recipeRepository::findAllFieldsBy
+        );
     }
 
     /**
-     * {@code GET  /recipes} : get all the recipes as a stream.
+     * {@code GET  /recipes} : get all the recipes as a stream, without their picture.
      * @return the {@link Flux} of recipes.
      */
     @GetMapping(value = "/recipes", produces = MediaType.APPLICATION_NDJSON_VALUE)
     public Flux<Recipe> getAllRecipesAsStream() {
         log.debug("REST request to get all Recipes as a stream");
-        return recipeRepository.findAll();
+        return recipeRepository.findAllSummaries();
+    }
+
+    /**
+     * {@code GET  /recipes?after=:token&size=:size} : get a page of recipes, using keyset pagination.
+     *
+     * @param after the continuation token of the page, or empty for the first page.
+     * @param size the maximum number of recipes in the page, at most 2000.
+     * @param sort the sort of the recipes, only used for the first page.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the page of recipes in body, or with status {@code 400 (Bad Request)} if the token is invalid.
+     */
+    @GetMapping(value = "/recipes", params = KeysetPaginationUtil.AFTER_PARAMETER)
+    public Mono<ResponseEntity<List<Recipe>>> getAllRecipesAfter(
+        @RequestParam(KeysetPaginationUtil.AFTER_PARAMETER) String after,
+        @RequestParam(defaultValue = "20") int size,
+        Sort sort,
+        ServerHttpRequest request
+    ) {
+        log.debug("REST request to get a page of Recipes after : {}", after);
+        return KeysetPaginationUtil.wrapKeysetPage(
+            entityManager,
+            Recipe.class,
+            ENTITY_NAME,
+            sort,
+            after,
+            size,
+            request,
+            recipeRepository::findAllWithEagerRelationships
+        );
+    }
+
+    /**
+     * {@code GET  /recipes/_match?ingredients=:ids&mode=:mode&size=:size} : get the recipes matching the given ingredients,
+     * ranked by how well they match them.
+     *
+     * @param ingredients the ids of the ingredients.
+     * @param mode {@code all} for the recipes using all the ingredients, {@code any} for those using at least one of them,
+     * {@code best} for those using at least one of them, those missing the fewest other ingredients first.
+     * @param size the maximum number of recipes.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the matching recipes in body, without their picture, or with status {@code 400 (Bad Request)} if the parameters are invalid, or with status {@code 503 (Service Unavailable)} if the ingredients of the recipes aren't indexed yet.
+     */
+    @GetMapping("/recipes/_match")
+    public Mono<List<RecipeMatchDTO>> matchRecipes(
+        @RequestParam List<Long> ingredients,
+        @RequestParam(defaultValue = "all") String mode,
+        @RequestParam(defaultValue = "20") int size
+    ) {
+        log.debug("REST request to match Recipes with Ingredients : {}, {}", ingredients, mode);
+        if (ingredients.isEmpty() || ingredients.contains(null)) {
+            throw new BadRequestAlertException("Invalid ingredients", ENTITY_NAME, "ingredientsinvalid");
+        }
+        if (size < 1) {
+            throw new BadRequestAlertException("Invalid size", ENTITY_NAME, "sizeinvalid");
+        }
+        MatchMode matchMode;
+        try {
+            matchMode = MatchMode.valueOf(mode.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid mode", ENTITY_NAME, "modeinvalid");
+        }
+        return recipeIngredientIndex
+            .match(ingredients, matchMode, size)
+            .onErrorMap(e -> new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Ingredients of the recipes not indexed", e))
+            .filter(matches -> !matches.isEmpty())
+            .flatMap(
+                matches ->
+                    recipeRepository
+                        .findAllSummariesById(matches.stream().map(RecipeIngredientIndex.Match::getRecipeId).collect(Collectors.toList()))
+                        .collectMap(Recipe::getId)
+                        .map(
+                            recipes ->
+                                matches
+                                    .stream()
+                                    // the index may still hold a recipe whose creation was rolled back
+                                    .filter(match -> recipes.containsKey(match.getRecipeId()))
+                                    .map(
+                                        match ->
+                                            new RecipeMatchDTO(
+                                                recipes.get(match.getRecipeId()),
+                                                match.getMatchedIngredients(),
+                                                match.getMissingIngredients()
+                                            )
+                                    )
+                                    .collect(Collectors.toList())
+                        )
+            )
+            .defaultIfEmpty(List.of());
     }
 
     /**
      * {@code GET  /recipes/:id} : get the "id" recipe.
      *
      * @param id the id of the recipe to retrieve.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the recipe, or with status {@code 404 (Not Found)}.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the recipe, or with status {@code 304 (Not Modified)} if it matches the {@code If-None-Match} header, or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/recipes/{id}")
-    public Mono<ResponseEntity<Recipe>> getRecipe(@PathVariable Long id) {
+    public Mono<ResponseEntity<Recipe>> getRecipe(@PathVariable Long id, ServerHttpRequest request) {
         log.debug("REST request to get Recipe : {}", id);
-        Mono<Recipe> recipe = recipeRepository.findOneWithEagerRelationships(id);
-        return ResponseUtil.wrapOrNotFound(recipe);
+        return EntityTagUtil.wrapOrNotFound(
+            entityTagCache,
+            singleFlight,
+            Recipe.class,
+            id,
+            request,
+            () -> recipeRepository.findOneWithEagerRelationships(id),
+            RecipeResource::entityTag
+        );
+    }
+
+    /**
+     * {@code GET  /recipes/:id/full} : get the full view of the "id" recipe: the recipe with its ingredients and steps, and the
+     * techniques related to its steps, read concurrently outside of any transaction.
+     *
+     * @param id the id of the recipe.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the view, listing the parts which couldn't be read in time as missing, or with status {@code 404 (Not Found)}, or with status {@code 504 (Gateway Timeout)} if the recipe couldn't be read in time.
+     */
+    @GetMapping("/recipes/{id}/full")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Mono<ResponseEntity<RecipeViewDTO>> getRecipeView(@PathVariable Long id) {
+        log.debug("REST request to get the full view of Recipe : {}", id);
+        return recipeViewService
+            .getRecipeView(id)
+            .onErrorMap(TimeoutException.class, e -> new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT, "Recipe not read in time", e))
+            .map(ResponseEntity::ok)
+            .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)));
+    }
+
+    /**
+     * {@code GET  /recipes/:id/picture} : get the picture of the "id" recipe.
+     * <p>
+     * The content type is chosen by whoever uploaded the picture, so only raster image types are served as such,
+     * anything else being served as an {@code application/octet-stream} attachment, and never sniffed by the browser.
+     *
+     * @param id the id of the recipe whose picture to retrieve.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the picture, or with status {@code 404 (Not Found)} if the recipe doesn't exist or has no picture.
+     */
+    @GetMapping("/recipes/{id}/picture")
+    public Mono<ResponseEntity<byte[]>> getRecipePicture(@PathVariable Long id) {
+        log.debug("REST request to get the picture of Recipe : {}", id);
+        Mono<ResponseEntity<byte[]>> picture = recipeRepository
+            .findById(id)
+            .filter(recipe -> recipe.getPicture() != null)
+            .map(
+                recipe -> {
+                    MediaType contentType = pictureContentType(recipe.getPictureContentType());
+                    ContentDisposition contentDisposition = contentType.equals(MediaType.APPLICATION_OCTET_STREAM)
+                        ? ContentDisposition.attachment().filename("recipe-" + id).build()
+                        : ContentDisposition.inline().filename("recipe-" + id + "." + contentType.getSubtype()).build();
+                    return ResponseEntity
+                        .ok()
+                        .contentType(contentType)
+                        .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition.toString())
+                        .header("X-Content-Type-Options", "nosniff")
+                        .body(recipe.getPicture());
+                }
+            );
+        return picture.switchIfEmpty(Mono.just(ResponseEntity.notFound().build()));
+    }
+
+    private MediaType pictureContentType(String contentType) {
+        if (contentType == null) {
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
+        try {
+            MediaType mediaType = MediaType.parseMediaType(contentType);
+            // SVG pictures are images, but may hold scripts
+            if ("image".equals(mediaType.getType()) && !mediaType.isWildcardSubtype() && !mediaType.getSubtype().contains("svg")) {
+                return new MediaType(mediaType.getType(), mediaType.getSubtype());
+            }
+        } catch (InvalidMediaTypeException e) {
+            log.debug("Invalid picture content type : {}", contentType);
+        }
+        return MediaType.APPLICATION_OCTET_STREAM;
     }
 
     /**
@@ -251,6 +480,7 @@ public class RecipeResource {
         log.debug("REST request to delete Recipe : {}", id);
         return recipeRepository
             .deleteById(id)
+            .then(evictEntityTags(id))
             .then(recipeSearchRepository.deleteById(id))
             .map(
                 result ->
@@ -262,15 +492,80 @@ public class RecipeResource {
     }
 
     /**
-     * {@code SEARCH  /_search/recipes?query=:query} : search for the recipe corresponding
-     * to the query.
+     * {@code SEARCH  /_search/recipes?query=:query} : search for the recipes corresponding
+     * to the query, without their picture.
      *
      * @param query the query of the recipe search.
-     * @return the result of the search.
+     * @param after the continuation token of the page.
+     * @param count flag to count the results, returned in the {@code X-Total-Count} header.
+     * @param pageable the pagination information, whose page number is ignored when there is a continuation token.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the page of results in body, or with status {@code 400 (Bad Request)} if the token, the sort or the page is invalid.
      */
     @GetMapping("/_search/recipes")
-    public Mono<List<Recipe>> searchRecipes(@RequestParam String query) {
-        log.debug("REST request to search Recipes for query {}", query);
-        return recipeSearchRepository.search(query).collectList();
+    public Mono<ResponseEntity<List<Recipe>>> searchRecipes(
+        @RequestParam String query,
+        @RequestParam(name = KeysetPaginationUtil.AFTER_PARAMETER, required = false) String after,
+        @RequestParam(defaultValue = "false") boolean count,
+        Pageable pageable,
+        ServerHttpRequest request
+    ) {
+        log.debug("REST request to search for a page of Recipes for query {}", query);
+        return KeysetPaginationUtil.wrapSearchPage(
+            ENTITY_NAME,
+            singleFlight.execute(
+                ENTITY_NAME + ".search",
+                Arrays.asList(query, pageable, after),
+                () -> recipeSearchRepository.search(query, pageable, after)
+            ),
+            count ? singleFlight.execute(ENTITY_NAME + ".count", query, () -> recipeSearchRepository.countSearch(query)) : Mono.empty(),
+            pageable,
+            request
+        );
+    }
+
+    /**
+     * {@code SEARCH  /_search/recipes?query=:query} : search for all the recipes corresponding to the query, without their picture, as a
+     * stream read from Elasticsearch in chunks, as it is consumed.
+     *
+     * @param query the query of the recipe search.
+     * @return the {@link Flux} of results.
+     */
+    @GetMapping(value = "/_search/recipes", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Recipe> searchRecipesAsStream(@RequestParam String query) {
+        log.debug("REST request to search Recipes as a stream for query {}", query);
+        return recipeSearchRepository.searchAsStream(query);
+    }
+
+    private Mono<Void> evictEntityTags(Long id) {
+        return entityTagCache.evict(Recipe.class, id);
+    }
+
+    /**
+     * The tag of a recipe, which also changes with the versions of its ingredients and steps, as they are embedded in it:
+     * the version of the recipe, followed by the SHA-256 digest of the ids and versions of its relationships.
+     */
+    private static String entityTag(Recipe recipe) {
+        StringBuilder relationships = new StringBuilder();
+        recipe
+            .getIngredients()
+            .stream()
+            .sorted(Comparator.comparing(Ingredient::getId))
+            .forEach(ingredient -> relationships.append('i').append(ingredient.getId()).append('.').append(ingredient.getVersion()));
+        recipe
+            .getSteps()
+            .stream()
+            .sorted(Comparator.comparing(Step::getId))
+            .forEach(step -> relationships.append('s').append(step.getId()).append('.').append(step.getVersion()));
+        return "\"" + recipe.getVersion() + "-" + digest(relationships.toString()) + "\"";
+    }
+
+    private static String digest(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
 }
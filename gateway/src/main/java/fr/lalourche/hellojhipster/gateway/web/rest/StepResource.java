@@ -1,29 +1,43 @@
 package fr.lalourche.hellojhipster.gateway.web.rest;
 
+import fr.lalourche.hellojhipster.gateway.domain.Recipe;
 import fr.lalourche.hellojhipster.gateway.domain.Step;
 import fr.lalourche.hellojhipster.gateway.repository.StepRepository;
 import fr.lalourche.hellojhipster.gateway.repository.search.StepSearchRepository;
+import fr.lalourche.hellojhipster.gateway.service.BulkService;
+import fr.lalourche.hellojhipster.gateway.service.EntityManager;
+import fr.lalourche.hellojhipster.gateway.service.EntityTagCache;
+import fr.lalourche.hellojhipster.gateway.service.SingleFlight;
+import fr.lalourche.hellojhipster.gateway.service.dto.BulkItemResultDTO;
 import fr.lalourche.hellojhipster.gateway.web.rest.errors.BadRequestAlertException;
+import fr.lalourche.hellojhipster.gateway.web.util.EntityTagUtil;
+import fr.lalourche.hellojhipster.gateway.web.util.KeysetPaginationUtil;
+import fr.lalourche.hellojhipster.gateway.web.util.ListingUtil;
+import fr.lalourche.hellojhipster.gateway.web.util.SparseFieldsetUtil;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import tech.jhipster.web.util.HeaderUtil;
-import tech.jhipster.web.util.reactive.ResponseUtil;
 
 /**
  * REST controller for managing {@link fr.lalourche.hellojhipster.gateway.domain.Step}.
@@ -44,9 +58,28 @@ public class StepResource {
 
     private final StepSearchRepository stepSearchRepository;
 
-    public StepResource(StepRepository stepRepository, StepSearchRepository stepSearchRepository) {
+    private final EntityManager entityManager;
+
+    private final BulkService bulkService;
+
+    private final EntityTagCache entityTagCache;
+
+    private final SingleFlight singleFlight;
+
+    public StepResource(
+        StepRepository stepRepository,
+        StepSearchRepository stepSearchRepository,
+        EntityManager entityManager,
+        BulkService bulkService,
+        EntityTagCache entityTagCache,
+        SingleFlight singleFlight
+    ) {
         this.stepRepository = stepRepository;
         this.stepSearchRepository = stepSearchRepository;
+        this.entityManager = entityManager;
+        this.bulkService = bulkService;
+        this.entityTagCache = entityTagCache;
+        this.singleFlight = singleFlight;
     }
 
     /**
@@ -79,6 +112,22 @@ public class StepResource {
             );
     }
 
+    /**
+     * {@code POST  /steps/_bulk} : Create new steps, sent as a stream of JSON objects (NDJSON).
+     * <p>
+     * A malformed line only fails its own step, with status {@code 400 (Bad Request)}. The steps are written by batches, each in a single
+     * transaction, so a step which can't be written fails all the steps of its batch, with status {@code 500 (Internal Server Error)}.
+     *
+     * @param lines the lines of the request, each holding a step to create, which must not have an ID.
+     * @return the {@link Flux} of the results of the creation of each step, in the order of the lines.
+     */
+    @PostMapping(value = "/steps/_bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Flux<BulkItemResultDTO> createSteps(@RequestBody Flux<String> lines) {
+        log.debug("REST request to save Steps in bulk");
+        return bulkService.createAll(lines, Step.class, Step::getId, stepRepository::insertAll, stepSearchRepository::saveAll);
+    }
+
     /**
      * {@code PUT  /steps/:id} : Updates an existing step.
      *
@@ -86,6 +135,8 @@ public class StepResource {
      * @param step the step to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated step,
      * or with status {@code 400 (Bad Request)} if the step is not valid,
+     * or with status {@code 404 (Not Found)} if the step is not found,
+     * or with status {@code 409 (Conflict)} if the step has been modified since it was read,
      * or with status {@code 500 (Internal Server Error)} if the step couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
@@ -101,29 +152,21 @@ public class StepResource {
         if (!Objects.equals(id, step.getId())) {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
+        if (step.getVersion() == null) {
+            throw new BadRequestAlertException("Invalid version", ENTITY_NAME, "versionnull");
+        }
 
         return stepRepository
-            .existsById(id)
-            .flatMap(
-                exists -> {
-                    if (!exists) {
-                        return Mono.error(new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
-                    }
-
-                    return stepRepository
-                        .save(step)
-                        .flatMap(stepSearchRepository::save)
-                        .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
-                        .map(
-                            result ->
-                                ResponseEntity
-                                    .ok()
-                                    .headers(
-                                        HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, result.getId().toString())
-                                    )
-                                    .body(result)
-                        );
-                }
+            .save(step)
+            .flatMap(result -> evictEntityTags(id).thenReturn(result))
+            .flatMap(stepSearchRepository::save)
+            .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
+            .map(
+                result ->
+                    ResponseEntity
+                        .ok()
+                        .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, result.getId().toString()))
+                        .body(result)
             );
     }
 
@@ -135,6 +178,7 @@ public class StepResource {
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated step,
      * or with status {@code 400 (Bad Request)} if the step is not valid,
      * or with status {@code 404 (Not Found)} if the step is not found,
+     * or with status {@code 409 (Conflict)} if the step has been modified while being updated,
      * or with status {@code 500 (Internal Server Error)} if the step couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
@@ -151,56 +195,58 @@ public class StepResource {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        return stepRepository
-            .existsById(id)
-            .flatMap(
-                exists -> {
-                    if (!exists) {
-                        return Mono.error(new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
-                    }
-
-                    Mono<Step> result = stepRepository
-                        .findById(step.getId())
-                        .map(
-                            existingStep -> {
-                                if (step.getAction() != null) {
-                                    existingStep.setAction(step.getAction());
-                                }
-
-                                return existingStep;
-                            }
-                        )
-                        .flatMap(stepRepository::save)
-                        .flatMap(
-                            savedStep -> {
-                                stepSearchRepository.save(savedStep);
+        Mono<Step> result = stepRepository
+            .partialUpdate(step)
+            .flatMap(savedStep -> evictEntityTags(id).thenReturn(savedStep))
+            .flatMap(savedStep -> stepSearchRepository.updatePartially(savedStep).thenReturn(savedStep));
 
-                                return Mono.just(savedStep);
-                            }
-                        );
-
-                    return result
-                        .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
-                        .map(
-                            res ->
-                                ResponseEntity
-                                    .ok()
-                                    .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, res.getId().toString()))
-                                    .body(res)
-                        );
-                }
+        return result
+            .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
+            .map(
+                res ->
+                    ResponseEntity
+                        .ok()
+                        .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, res.getId().toString()))
+                        .body(res)
             );
     }
 
     /**
-     * {@code GET  /steps} : get all the steps.
+     * {@code GET  /steps} : get all the steps, or a page of them if a page or a size is requested.
      *
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of steps in body.
+     * @param pageable the pagination information.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the steps in body.
      */
     @GetMapping("/steps")
-    public Mono<List<Step>> getAllSteps() {
-        log.debug("REST request to get all Steps");
-        return stepRepository.findAll().collectList();
+    public Mono<ResponseEntity<Flux<Step>>> getAllSteps(Pageable pageable, ServerHttpRequest request) {
+        log.debug("REST request to get Steps");
+        return ListingUtil.wrapListing(request, pageable, stepRepository.count(), stepRepository::findAll, stepRepository::findAllBy);
+    }
+
+    /**
+     * {@code GET  /steps?fields=:fields} : get the given fields of the steps, and their id.
+     *
+     * @param fields the comma-separated names of the fields.
+     * @param pageable the pagination information.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the steps in body, or with status {@code 400 (Bad Request)} if a field is unknown.
+     */
+    @GetMapping(value = "/steps", params = { SparseFieldsetUtil.FIELDS_PARAMETER, "!" + KeysetPaginationUtil.AFTER_PARAMETER })
+    public Mono<ResponseEntity<Flux<Map<String, Object>>>> getAllStepFields(
+        @RequestParam(SparseFieldsetUtil.FIELDS_PARAMETER) String fields,
+        Pageable pageable,
+        ServerHttpRequest request
+    ) {
+        log.debug("REST request to get the fields of all Steps : {}", fields);
+        return SparseFieldsetUtil.wrapFieldsListing(
+            ENTITY_NAME,
+            fields,
+            request,
+            pageable,
+            stepRepository.count(),
+            stepRepository::findAllFieldsBy
+        );
     }
 
     /**
@@ -213,17 +259,54 @@ public class StepResource {
         return stepRepository.findAll();
     }
 
+    /**
+     * {@code GET  /steps?after=:token&size=:size} : get a page of steps, using keyset pagination.
+     *
+     * @param after the continuation token of the page, or empty for the first page.
+     * @param size the maximum number of steps in the page, at most 2000.
+     * @param sort the sort of the steps, only used for the first page.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the page of steps in body, or with status {@code 400 (Bad Request)} if the token is invalid.
+     */
+    @GetMapping(value = "/steps", params = KeysetPaginationUtil.AFTER_PARAMETER)
+    public Mono<ResponseEntity<List<Step>>> getAllStepsAfter(
+        @RequestParam(KeysetPaginationUtil.AFTER_PARAMETER) String after,
+        @RequestParam(defaultValue = "20") int size,
+        Sort sort,
+        ServerHttpRequest request
+    ) {
+        log.debug("REST request to get a page of Steps after : {}", after);
+        return KeysetPaginationUtil.wrapKeysetPage(
+            entityManager,
+            Step.class,
+            ENTITY_NAME,
+            sort,
+            after,
+            size,
+            request,
+            stepRepository::findAllBy
+        );
+    }
+
     /**
      * {@code GET  /steps/:id} : get the "id" step.
      *
      * @param id the id of the step to retrieve.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the step, or with status {@code 404 (Not Found)}.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the step, or with status {@code 304 (Not Modified)} if it matches the {@code If-None-Match} header, or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/steps/{id}")
-    public Mono<ResponseEntity<Step>> getStep(@PathVariable Long id) {
+    public Mono<ResponseEntity<Step>> getStep(@PathVariable Long id, ServerHttpRequest request) {
         log.debug("REST request to get Step : {}", id);
-        Mono<Step> step = stepRepository.findById(id);
-        return ResponseUtil.wrapOrNotFound(step);
+        return EntityTagUtil.wrapOrNotFound(
+            entityTagCache,
+            singleFlight,
+            Step.class,
+            id,
+            request,
+            () -> stepRepository.findById(id),
+            step -> EntityTagUtil.versionTag(step.getVersion())
+        );
     }
 
     /**
@@ -238,6 +321,7 @@ public class StepResource {
         log.debug("REST request to delete Step : {}", id);
         return stepRepository
             .deleteById(id)
+            .then(evictEntityTags(id))
             .then(stepSearchRepository.deleteById(id))
             .map(
                 result ->
@@ -249,15 +333,53 @@ public class StepResource {
     }
 
     /**
-     * {@code SEARCH  /_search/steps?query=:query} : search for the step corresponding
+     * {@code SEARCH  /_search/steps?query=:query} : search for the steps corresponding
      * to the query.
      *
      * @param query the query of the step search.
-     * @return the result of the search.
+     * @param after the continuation token of the page.
+     * @param count flag to count the results, returned in the {@code X-Total-Count} header.
+     * @param pageable the pagination information, whose page number is ignored when there is a continuation token.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the page of results in body, or with status {@code 400 (Bad Request)} if the token, the sort or the page is invalid.
      */
     @GetMapping("/_search/steps")
-    public Mono<List<Step>> searchSteps(@RequestParam String query) {
-        log.debug("REST request to search Steps for query {}", query);
-        return stepSearchRepository.search(query).collectList();
+    public Mono<ResponseEntity<List<Step>>> searchSteps(
+        @RequestParam String query,
+        @RequestParam(name = KeysetPaginationUtil.AFTER_PARAMETER, required = false) String after,
+        @RequestParam(defaultValue = "false") boolean count,
+        Pageable pageable,
+        ServerHttpRequest request
+    ) {
+        log.debug("REST request to search for a page of Steps for query {}", query);
+        return KeysetPaginationUtil.wrapSearchPage(
+            ENTITY_NAME,
+            singleFlight.execute(
+                ENTITY_NAME + ".search",
+                Arrays.asList(query, pageable, after),
+                () -> stepSearchRepository.search(query, pageable, after)
+            ),
+            count ? singleFlight.execute(ENTITY_NAME + ".count", query, () -> stepSearchRepository.countSearch(query)) : Mono.empty(),
+            pageable,
+            request
+        );
+    }
+
+    /**
+     * {@code SEARCH  /_search/steps?query=:query} : search for all the steps corresponding to the query, as a
+     * stream read from Elasticsearch in chunks, as it is consumed.
+     *
+     * @param query the query of the step search.
+     * @return the {@link Flux} of results.
+     */
+    @GetMapping(value = "/_search/steps", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Step> searchStepsAsStream(@RequestParam String query) {
+        log.debug("REST request to search Steps as a stream for query {}", query);
+        return stepSearchRepository.searchAsStream(query);
+    }
+
+    private Mono<Void> evictEntityTags(Long id) {
+        // the recipes embed their steps
+        return entityTagCache.evict(Step.class, id).and(entityTagCache.evictAll(Recipe.class));
     }
 }
@@ -3,27 +3,37 @@ package fr.lalourche.hellojhipster.gateway.web.rest;
 import fr.lalourche.hellojhipster.gateway.domain.Technique;
 import fr.lalourche.hellojhipster.gateway.repository.TechniqueRepository;
 import fr.lalourche.hellojhipster.gateway.repository.search.TechniqueSearchRepository;
+import fr.lalourche.hellojhipster.gateway.service.EntityManager;
+import fr.lalourche.hellojhipster.gateway.service.EntityTagCache;
+import fr.lalourche.hellojhipster.gateway.service.SingleFlight;
 import fr.lalourche.hellojhipster.gateway.web.rest.errors.BadRequestAlertException;
+import fr.lalourche.hellojhipster.gateway.web.util.EntityTagUtil;
+import fr.lalourche.hellojhipster.gateway.web.util.KeysetPaginationUtil;
+import fr.lalourche.hellojhipster.gateway.web.util.ListingUtil;
+import fr.lalourche.hellojhipster.gateway.web.util.SparseFieldsetUtil;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import tech.jhipster.web.util.HeaderUtil;
-import tech.jhipster.web.util.reactive.ResponseUtil;
 
 /**
  * REST controller for managing {@link fr.lalourche.hellojhipster.gateway.domain.Technique}.
@@ -44,9 +54,24 @@ public class TechniqueResource {
 
     private final TechniqueSearchRepository techniqueSearchRepository;
 
-    public TechniqueResource(TechniqueRepository techniqueRepository, TechniqueSearchRepository techniqueSearchRepository) {
+    private final EntityManager entityManager;
+
+    private final EntityTagCache entityTagCache;
+
+    private final SingleFlight singleFlight;
+
+    public TechniqueResource(
+        TechniqueRepository techniqueRepository,
+        TechniqueSearchRepository techniqueSearchRepository,
+        EntityManager entityManager,
+        EntityTagCache entityTagCache,
+        SingleFlight singleFlight
+    ) {
         this.techniqueRepository = techniqueRepository;
         this.techniqueSearchRepository = techniqueSearchRepository;
+        this.entityManager = entityManager;
+        this.entityTagCache = entityTagCache;
+        this.singleFlight = singleFlight;
     }
 
     /**
@@ -86,6 +111,8 @@ public class TechniqueResource {
      * @param technique the technique to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated technique,
      * or with status {@code 400 (Bad Request)} if the technique is not valid,
+     * or with status {@code 404 (Not Found)} if the technique is not found,
+     * or with status {@code 409 (Conflict)} if the technique has been modified since it was read,
      * or with status {@code 500 (Internal Server Error)} if the technique couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
@@ -101,29 +128,21 @@ public class TechniqueResource {
         if (!Objects.equals(id, technique.getId())) {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
+        if (technique.getVersion() == null) {
+            throw new BadRequestAlertException("Invalid version", ENTITY_NAME, "versionnull");
+        }
 
         return techniqueRepository
-            .existsById(id)
-            .flatMap(
-                exists -> {
-                    if (!exists) {
-                        return Mono.error(new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
-                    }
-
-                    return techniqueRepository
-                        .save(technique)
-                        .flatMap(techniqueSearchRepository::save)
-                        .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
-                        .map(
-                            result ->
-                                ResponseEntity
-                                    .ok()
-                                    .headers(
-                                        HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, result.getId().toString())
-                                    )
-                                    .body(result)
-                        );
-                }
+            .save(technique)
+            .flatMap(result -> evictEntityTags(id).thenReturn(result))
+            .flatMap(techniqueSearchRepository::save)
+            .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
+            .map(
+                result ->
+                    ResponseEntity
+                        .ok()
+                        .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, result.getId().toString()))
+                        .body(result)
             );
     }
 
@@ -135,6 +154,7 @@ public class TechniqueResource {
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated technique,
      * or with status {@code 400 (Bad Request)} if the technique is not valid,
      * or with status {@code 404 (Not Found)} if the technique is not found,
+     * or with status {@code 409 (Conflict)} if the technique has been modified while being updated,
      * or with status {@code 500 (Internal Server Error)} if the technique couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
@@ -151,56 +171,64 @@ public class TechniqueResource {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        return techniqueRepository
-            .existsById(id)
-            .flatMap(
-                exists -> {
-                    if (!exists) {
-                        return Mono.error(new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
-                    }
-
-                    Mono<Technique> result = techniqueRepository
-                        .findById(technique.getId())
-                        .map(
-                            existingTechnique -> {
-                                if (technique.getDescription() != null) {
-                                    existingTechnique.setDescription(technique.getDescription());
-                                }
-
-                                return existingTechnique;
-                            }
-                        )
-                        .flatMap(techniqueRepository::save)
-                        .flatMap(
-                            savedTechnique -> {
-                                techniqueSearchRepository.save(savedTechnique);
-
-                                return Mono.just(savedTechnique);
-                            }
-                        );
+        Mono<Technique> result = techniqueRepository
+            .partialUpdate(technique)
+            .flatMap(savedTechnique -> evictEntityTags(id).thenReturn(savedTechnique))
+            .flatMap(savedTechnique -> techniqueSearchRepository.updatePartially(savedTechnique).thenReturn(savedTechnique));
 
-                    return result
-                        .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
-                        .map(
-                            res ->
-                                ResponseEntity
-                                    .ok()
-                                    .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, res.getId().toString()))
-                                    .body(res)
-                        );
-                }
+        return result
+            .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
+            .map(
+                res ->
+                    ResponseEntity
+                        .ok()
+                        .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, res.getId().toString()))
+                        .body(res)
             );
     }
 
     /**
-     * {@code GET  /techniques} : get all the techniques.
+     * {@code GET  /techniques} : get all the techniques, or a page of them if a page or a size is requested.
      *
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of techniques in body.
+     * @param pageable the pagination information.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the techniques in body.
      */
     @GetMapping("/techniques")
-    public Mono<List<Technique>> getAllTechniques() {
-        log.debug("REST request to get all Techniques");
-        return techniqueRepository.findAll().collectList();
+    public Mono<ResponseEntity<Flux<Technique>>> getAllTechniques(Pageable pageable, ServerHttpRequest request) {
+        log.debug("REST request to get Techniques");
+        return ListingUtil.wrapListing(
+            request,
+            pageable,
+            techniqueRepository.count(),
+            techniqueRepository::findAll,
+            techniqueRepository::findAllBy
+        );
+    }
+
+    /**
+     * {@code GET  /techniques?fields=:fields} : get the given fields of the techniques, and their id.
+     *
+     * @param fields the comma-separated names of the fields.
+     * @param pageable the pagination information.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the techniques in body, or with status {@code 400 (Bad Request)} if a field is unknown.
+     */
+    @GetMapping(value = "/techniques", params = { SparseFieldsetUtil.FIELDS_PARAMETER, "!" + KeysetPaginationUtil.AFTER_PARAMETER })
+    public Mono<ResponseEntity<Flux<Map<String, Object>>>> getAllTechniqueFields(
+        @RequestParam(SparseFieldsetUtil.FIELDS_PARAMETER) String fields,
+        Pageable pageable,
+        ServerHttpRequest request
+    ) {
+        log.debug("REST request to get the fields of all Techniques : {}", fields);
+        return SparseFieldsetUtil.wrapFieldsListing(
+            ENTITY_NAME,
+            fields,
+            request,
+            pageable,
+            techniqueRepository.count(),
+            techniqueRepository::findAllFieldsBy
+        );
     }
 
     /**
@@ -213,17 +241,54 @@ public class TechniqueResource {
         return techniqueRepository.findAll();
     }
 
+    /**
+     * {@code GET  /techniques?after=:token&size=:size} : get a page of techniques, using keyset pagination.
+     *
+     * @param after the continuation token of the page, or empty for the first page.
+     * @param size the maximum number of techniques in the page, at most 2000.
+     * @param sort the sort of the techniques, only used for the first page.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the page of techniques in body, or with status {@code 400 (Bad Request)} if the token is invalid.
+     */
+    @GetMapping(value = "/techniques", params = KeysetPaginationUtil.AFTER_PARAMETER)
+    public Mono<ResponseEntity<List<Technique>>> getAllTechniquesAfter(
+        @RequestParam(KeysetPaginationUtil.AFTER_PARAMETER) String after,
+        @RequestParam(defaultValue = "20") int size,
+        Sort sort,
+        ServerHttpRequest request
+    ) {
+        log.debug("REST request to get a page of Techniques after : {}", after);
+        return KeysetPaginationUtil.wrapKeysetPage(
+            entityManager,
+            Technique.class,
+            ENTITY_NAME,
+            sort,
+            after,
+            size,
+            request,
+            techniqueRepository::findAllBy
+        );
+    }
+
     /**
      * {@code GET  /techniques/:id} : get the "id" technique.
      *
      * @param id the id of the technique to retrieve.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the technique, or with status {@code 404 (Not Found)}.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the technique, or with status {@code 304 (Not Modified)} if it matches the {@code If-None-Match} header, or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/techniques/{id}")
-    public Mono<ResponseEntity<Technique>> getTechnique(@PathVariable Long id) {
+    public Mono<ResponseEntity<Technique>> getTechnique(@PathVariable Long id, ServerHttpRequest request) {
         log.debug("REST request to get Technique : {}", id);
-        Mono<Technique> technique = techniqueRepository.findById(id);
-        return ResponseUtil.wrapOrNotFound(technique);
+        return EntityTagUtil.wrapOrNotFound(
+            entityTagCache,
+            singleFlight,
+            Technique.class,
+            id,
+            request,
+            () -> techniqueRepository.findById(id),
+            technique -> EntityTagUtil.versionTag(technique.getVersion())
+        );
     }
 
     /**
@@ -238,6 +303,7 @@ public class TechniqueResource {
         log.debug("REST request to delete Technique : {}", id);
         return techniqueRepository
             .deleteById(id)
+            .then(evictEntityTags(id))
             .then(techniqueSearchRepository.deleteById(id))
             .map(
                 result ->
@@ -249,15 +315,52 @@ public class TechniqueResource {
     }
 
     /**
-     * {@code SEARCH  /_search/techniques?query=:query} : search for the technique corresponding
+     * {@code SEARCH  /_search/techniques?query=:query} : search for the techniques corresponding
      * to the query.
      *
      * @param query the query of the technique search.
-     * @return the result of the search.
+     * @param after the continuation token of the page.
+     * @param count flag to count the results, returned in the {@code X-Total-Count} header.
+     * @param pageable the pagination information, whose page number is ignored when there is a continuation token.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the page of results in body, or with status {@code 400 (Bad Request)} if the token, the sort or the page is invalid.
      */
     @GetMapping("/_search/techniques")
-    public Mono<List<Technique>> searchTechniques(@RequestParam String query) {
-        log.debug("REST request to search Techniques for query {}", query);
-        return techniqueSearchRepository.search(query).collectList();
+    public Mono<ResponseEntity<List<Technique>>> searchTechniques(
+        @RequestParam String query,
+        @RequestParam(name = KeysetPaginationUtil.AFTER_PARAMETER, required = false) String after,
+        @RequestParam(defaultValue = "false") boolean count,
+        Pageable pageable,
+        ServerHttpRequest request
+    ) {
+        log.debug("REST request to search for a page of Techniques for query {}", query);
+        return KeysetPaginationUtil.wrapSearchPage(
+            ENTITY_NAME,
+            singleFlight.execute(
+                ENTITY_NAME + ".search",
+                Arrays.asList(query, pageable, after),
+                () -> techniqueSearchRepository.search(query, pageable, after)
+            ),
+            count ? singleFlight.execute(ENTITY_NAME + ".count", query, () -> techniqueSearchRepository.countSearch(query)) : Mono.empty(),
+            pageable,
+            request
+        );
+    }
+
+    /**
+     * {@code SEARCH  /_search/techniques?query=:query} : search for all the techniques corresponding to the query, as a
+     * stream read from Elasticsearch in chunks, as it is consumed.
+     *
+     * @param query the query of the technique search.
+     * @return the {@link Flux} of results.
+     */
+    @GetMapping(value = "/_search/techniques", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Technique> searchTechniquesAsStream(@RequestParam String query) {
+        log.debug("REST request to search Techniques as a stream for query {}", query);
+        return techniqueSearchRepository.searchAsStream(query);
+    }
+
+    private Mono<Void> evictEntityTags(Long id) {
+        return entityTagCache.evict(Technique.class, id);
     }
 }
@@ -0,0 +1,102 @@
+package fr.lalourche.hellojhipster.gateway.web.util;
+
+import fr.lalourche.hellojhipster.gateway.service.EntityTagCache;
+import fr.lalourche.hellojhipster.gateway.service.SingleFlight;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+/**
+ * Utility class for answering conditional GET requests ({@code If-None-Match}) with strong entity tags.
+ * <p>
+ * The tag of an entity is the same in all its representations, JSON, CBOR or Smile, so the responses vary on the
+ * {@code Accept} header, for the caches not to answer a request with a representation stored for another one.
+ */
+public final class EntityTagUtil {
+
+    private static final String WEAK_PREFIX = "W/";
+
+    private EntityTagUtil() {}
+
+    /**
+     * @param version the version of an entity.
+     * @return the tag of the entity.
+     */
+    public static String versionTag(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Wrap an entity into a {@link ResponseEntity} carrying its tag, with status {@code 200 (OK)}, or with status
+     * {@code 304 (Not Modified)} and no body if it matches the {@code If-None-Match} header of the request.
+     * <p>
+     * When the tag of the entity is known and matches the header, the entity isn't even read. Otherwise the concurrent
+     * reads of the entity are coalesced, keyed by the stamp of the evictions, so a read started before a write isn't
+     * joined after it.
+     *
+     * @param cache the cache of the entity tags.
+     * @param singleFlight coalesces the reads of the entity.
+     * @param type the type of the entity.
+     * @param id the id of the entity.
+     * @param request the request.
+     * @param reader reads the entity.
+     * @param tagger computes the tag of the entity.
+     * @param <T> the type of the entity.
+     * @return the response, or a {@link ResponseStatusException} with status {@code 404 (Not Found)} if the entity doesn't exist.
+     */
+    public static <T> Mono<ResponseEntity<T>> wrapOrNotFound(
+        EntityTagCache cache,
+        SingleFlight singleFlight,
+        Class<T> type,
+        Long id,
+        ServerHttpRequest request,
+        Supplier<Mono<T>> reader,
+        Function<T, String> tagger
+    ) {
+        List<String> ifNoneMatch = request.getHeaders().getIfNoneMatch();
+        if (!ifNoneMatch.isEmpty()) {
+            String knownTag = cache.get(type, id);
+            if (knownTag != null && matches(ifNoneMatch, knownTag)) {
+                return Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(knownTag).varyBy(HttpHeaders.ACCEPT).build());
+            }
+        }
+        long stamp = cache.stamp(type);
+        return singleFlight
+            .execute(type.getSimpleName().toLowerCase(Locale.ROOT), List.of(id, stamp), reader)
+            .map(
+                entity -> {
+                    String tag = tagger.apply(entity);
+                    cache.put(type, id, tag, stamp);
+                    if (matches(ifNoneMatch, tag)) {
+                        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tag).varyBy(HttpHeaders.ACCEPT).<T>build();
+                    }
+                    return ResponseEntity.ok().eTag(tag).varyBy(HttpHeaders.ACCEPT).body(entity);
+                }
+            )
+            .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)));
+    }
+
+    /**
+     * Tells whether a tag matches the {@code If-None-Match} header of a request, with the weak comparison.
+     *
+     * @param ifNoneMatch the tags of the {@code If-None-Match} header.
+     * @param tag the strong tag of the entity.
+     * @return true if the tag matches, or if the header matches any tag.
+     */
+    public static boolean matches(List<String> ifNoneMatch, String tag) {
+        for (String candidate : ifNoneMatch) {
+            String candidateTag = candidate.startsWith(WEAK_PREFIX) ? candidate.substring(WEAK_PREFIX.length()) : candidate;
+            if ("*".equals(candidateTag) || tag.equals(candidateTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
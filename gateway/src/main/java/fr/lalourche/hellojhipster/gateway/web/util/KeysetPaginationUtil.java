@@ -0,0 +1,171 @@
+package fr.lalourche.hellojhipster.gateway.web.util;
+
+import fr.lalourche.hellojhipster.gateway.repository.search.SearchSlice;
+import fr.lalourche.hellojhipster.gateway.service.EntityManager;
+import fr.lalourche.hellojhipster.gateway.service.Keyset;
+import fr.lalourche.hellojhipster.gateway.web.rest.errors.BadRequestAlertException;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Utility class for handling keyset (seek) pagination.
+ *
+ * <p>
+ * The next page is advertised with a <a href="https://tools.ietf.org/html/rfc5988">Link header</a>, whose URI carries
+ * the continuation token in its {@code after} parameter. The invalid tokens, sorts and pages are answered with status
+ * {@code 400 (Bad Request)}.
+ */
+public final class KeysetPaginationUtil {
+
+    public static final String AFTER_PARAMETER = "after";
+
+    private static final String HEADER_X_TOTAL_COUNT = "X-Total-Count";
+
+    private static final String HEADER_LINK_FORMAT = "<%s>; rel=\"%s\"";
+
+    private static final String ERR_INVALID_PAGE = "invalidpage";
+
+    private KeysetPaginationUtil() {}
+
+    /**
+     * Read a page of entities after the given continuation token, and wrap it into a {@link ResponseEntity} with its
+     * pagination headers.
+     *
+     * @param entityManager the entity manager, which creates the keysets and the continuation tokens.
+     * @param type the type of the entities.
+     * @param entityName the name of the entity, for the errors.
+     * @param sort the sort of the entities, only used for the first page.
+     * @param after the continuation token of the page, or empty for the first page.
+     * @param size the maximum number of entities in the page, at most {@value Keyset#MAX_SIZE}.
+     * @param request the request.
+     * @param reader reads the page of entities of a keyset.
+     * @param <T> the type of the entities.
+     * @return the response, with status {@code 200 (OK)}.
+     * @throws BadRequestAlertException if the token or the sort is invalid.
+     */
+    public static <T> Mono<ResponseEntity<List<T>>> wrapKeysetPage(
+        EntityManager entityManager,
+        Class<T> type,
+        String entityName,
+        Sort sort,
+        String after,
+        int size,
+        ServerHttpRequest request,
+        Function<Keyset, Flux<T>> reader
+    ) {
+        Keyset keyset;
+        try {
+            keyset = entityManager.createKeyset(type, sort, after, size);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException(e.getMessage(), entityName, ERR_INVALID_PAGE);
+        }
+        return reader
+            .apply(keyset)
+            .collectList()
+            .map(
+                page -> {
+                    String next = page.size() < keyset.getSize()
+                        ? null
+                        : entityManager.createContinuationToken(keyset, page.get(page.size() - 1));
+                    HttpHeaders headers = generateKeysetPaginationHttpHeaders(
+                        UriComponentsBuilder.fromHttpRequest(request),
+                        next,
+                        keyset.getSize()
+                    );
+                    return ResponseEntity.ok().headers(headers).body(page);
+                }
+            );
+    }
+
+    /**
+     * Wrap a page of search results into a {@link ResponseEntity} with its pagination headers.
+     *
+     * @param entityName the name of the entity, for the errors.
+     * @param slice the page of search results.
+     * @param total the total number of results, or empty if they aren't counted.
+     * @param pageable the pagination information of the request.
+     * @param request the request.
+     * @param <T> the type of the results.
+     * @return the response, with status {@code 200 (OK)}, or a {@link BadRequestAlertException} if the token, the sort or the page
+     * is invalid.
+     */
+    public static <T> Mono<ResponseEntity<List<T>>> wrapSearchPage(
+        String entityName,
+        Mono<SearchSlice<T>> slice,
+        Mono<Long> total,
+        Pageable pageable,
+        ServerHttpRequest request
+    ) {
+        return slice
+            .onErrorMap(IllegalArgumentException.class, e -> new BadRequestAlertException(e.getMessage(), entityName, ERR_INVALID_PAGE))
+            .zipWith(total.map(Optional::of).defaultIfEmpty(Optional.empty()))
+            .map(
+                result -> {
+                    HttpHeaders headers = generateSearchPaginationHttpHeaders(
+                        UriComponentsBuilder.fromHttpRequest(request),
+                        result.getT1().getNext(),
+                        pageable.getPageSize(),
+                        result.getT2().orElse(null)
+                    );
+                    return ResponseEntity.ok().headers(headers).body(result.getT1().getContent());
+                }
+            );
+    }
+
+    /**
+     * Generate the pagination headers of a page, which links to the next one.
+     *
+     * @param uriBuilder the URI builder of the current request.
+     * @param nextToken the continuation token of the next page, or null if this page is the last one.
+     * @param size the size of the pages.
+     * @return http header.
+     */
+    public static HttpHeaders generateKeysetPaginationHttpHeaders(UriComponentsBuilder uriBuilder, String nextToken, int size) {
+        HttpHeaders headers = new HttpHeaders();
+        if (nextToken != null) {
+            // the sort is carried by the token
+            String next = uriBuilder
+                .replaceQueryParam(AFTER_PARAMETER, nextToken)
+                .replaceQueryParam("size", size)
+                .replaceQueryParam("sort")
+                .toUriString();
+            headers.add(HttpHeaders.LINK, String.format(HEADER_LINK_FORMAT, next, "next"));
+        }
+        return headers;
+    }
+
+    /**
+     * Generate the pagination headers of a page of search results, which links to the next one.
+     *
+     * @param uriBuilder the URI builder of the current request.
+     * @param nextToken the continuation token of the next page, or null if this page is the last one.
+     * @param size the size of the pages.
+     * @param total the total number of results, or null if they weren't counted.
+     * @return http header.
+     */
+    public static HttpHeaders generateSearchPaginationHttpHeaders(UriComponentsBuilder uriBuilder, String nextToken, int size, Long total) {
+        HttpHeaders headers = new HttpHeaders();
+        if (total != null) {
+            headers.add(HEADER_X_TOTAL_COUNT, Long.toString(total));
+        }
+        if (nextToken != null) {
+            // the query and the sort are needed to resume the search, the page number is replaced by the token
+            String next = uriBuilder
+                .replaceQueryParam(AFTER_PARAMETER, nextToken)
+                .replaceQueryParam("size", size)
+                .replaceQueryParam("page")
+                .toUriString();
+            headers.add(HttpHeaders.LINK, String.format(HEADER_LINK_FORMAT, next, "next"));
+        }
+        return headers;
+    }
+}
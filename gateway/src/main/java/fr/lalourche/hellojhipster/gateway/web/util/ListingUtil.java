@@ -0,0 +1,67 @@
+package fr.lalourche.hellojhipster.gateway.web.util;
+
+import java.util.ArrayList;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import tech.jhipster.web.util.PaginationUtil;
+
+/**
+ * Utility class for the listings of the entities, read whole or by page.
+ *
+ * <p>
+ * A listing is paged as soon as its {@code page} or its {@code size} parameter is given, the first page being read when
+ * only the size is, so a size is never silently ignored.
+ */
+public final class ListingUtil {
+
+    private static final String PAGE_PARAMETER = "page";
+
+    private static final String SIZE_PARAMETER = "size";
+
+    private ListingUtil() {}
+
+    /**
+     * @param request the request.
+     * @return true if the request asks for a page of the listing.
+     */
+    public static boolean isPaged(ServerHttpRequest request) {
+        return request.getQueryParams().containsKey(PAGE_PARAMETER) || request.getQueryParams().containsKey(SIZE_PARAMETER);
+    }
+
+    /**
+     * Wrap a listing into a {@link ResponseEntity}, with its pagination headers when a page is requested.
+     *
+     * @param request the request.
+     * @param pageable the pagination information of the request.
+     * @param count counts all the entities, only subscribed to for a page.
+     * @param all reads all the entities.
+     * @param page reads a page of the entities.
+     * @param <T> the type of the listed entities.
+     * @return the response, with status {@code 200 (OK)}.
+     * @throws IllegalArgumentException if the listing is invalid, as thrown by the readers.
+     */
+    public static <T> Mono<ResponseEntity<Flux<T>>> wrapListing(
+        ServerHttpRequest request,
+        Pageable pageable,
+        Mono<Long> count,
+        Supplier<Flux<T>> all,
+        Function<Pageable, Flux<T>> page
+    ) {
+        if (!isPaged(request)) {
+            return Mono.just(ResponseEntity.ok().body(all.get()));
+        }
+        // the page is created right away, for the caller to catch the invalid requests
+        Flux<T> content = page.apply(pageable);
+        return count
+            .map(total -> new PageImpl<>(new ArrayList<>(), pageable, total))
+            .map(totalPage -> PaginationUtil.generatePaginationHttpHeaders(UriComponentsBuilder.fromHttpRequest(request), totalPage))
+            .map(headers -> ResponseEntity.ok().headers(headers).body(content));
+    }
+}
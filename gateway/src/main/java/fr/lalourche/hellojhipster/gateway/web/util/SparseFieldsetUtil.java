@@ -0,0 +1,80 @@
+package fr.lalourche.hellojhipster.gateway.web.util;
+
+import fr.lalourche.hellojhipster.gateway.web.rest.errors.BadRequestAlertException;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Utility class for handling sparse fieldsets, the listings being limited to the fields given in their {@code fields}
+ * parameter, as a comma-separated list of field names. The unknown fields are answered with status
+ * {@code 400 (Bad Request)}.
+ */
+public final class SparseFieldsetUtil {
+
+    public static final String FIELDS_PARAMETER = "fields";
+
+    private static final String ID_FIELD = "id";
+
+    private static final String ERR_INVALID_FIELDS = "invalidfields";
+
+    private SparseFieldsetUtil() {}
+
+    /**
+     * Read the given fields of a listing, and wrap them into a {@link ResponseEntity}, as {@link ListingUtil#wrapListing} does.
+     *
+     * @param entityName the name of the entity, for the errors.
+     * @param fields the comma-separated names of the fields.
+     * @param request the request.
+     * @param pageable the pagination information of the request.
+     * @param count counts all the entities, only subscribed to for a page.
+     * @param reader reads the fields of a page of the entities, or of all of them if the page is null.
+     * @return the response, with status {@code 200 (OK)}.
+     * @throws BadRequestAlertException if a field is unknown.
+     */
+    public static Mono<ResponseEntity<Flux<Map<String, Object>>>> wrapFieldsListing(
+        String entityName,
+        String fields,
+        ServerHttpRequest request,
+        Pageable pageable,
+        Mono<Long> count,
+        BiFunction<Pageable, Set<String>, Flux<Map<String, Object>>> reader
+    ) {
+        Set<String> fieldNames = parseFields(fields);
+        try {
+            return ListingUtil.wrapListing(
+                request,
+                pageable,
+                count,
+                () -> reader.apply(null, fieldNames),
+                page -> reader.apply(page, fieldNames)
+            );
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException(e.getMessage(), entityName, ERR_INVALID_FIELDS);
+        }
+    }
+
+    /**
+     * Parse the fields of a sparse fieldset.
+     *
+     * @param fields the comma-separated names of the fields.
+     * @return the names of the fields, the id being always the first of them.
+     */
+    public static Set<String> parseFields(String fields) {
+        Set<String> fieldNames = new LinkedHashSet<>();
+        fieldNames.add(ID_FIELD);
+        for (String field : fields.split(",")) {
+            String fieldName = field.trim();
+            if (!fieldName.isEmpty()) {
+                fieldNames.add(fieldName);
+            }
+        }
+        return fieldNames;
+    }
+}
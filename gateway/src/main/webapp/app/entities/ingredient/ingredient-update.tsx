@@ -77,6 +77,7 @@ export const IngredientUpdate = (props: IIngredientUpdateProps) => {
                     <Translate contentKey="global.field.id">ID</Translate>
                   </Label>
                   <AvInput id="ingredient-id" type="text" className="form-control" name="id" required readOnly />
+                  <AvInput id="ingredient-version" type="hidden" name="version" required />
                 </AvGroup>
               ) : null}
               <AvGroup>
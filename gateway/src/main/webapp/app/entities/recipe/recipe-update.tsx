@@ -94,6 +94,7 @@ export const RecipeUpdate = (props: IRecipeUpdateProps) => {
                     <Translate contentKey="global.field.id">ID</Translate>
                   </Label>
                   <AvInput id="recipe-id" type="text" className="form-control" name="id" required readOnly />
+                  <AvInput id="recipe-version" type="hidden" name="version" required />
                 </AvGroup>
               ) : null}
               <AvGroup>
@@ -132,7 +132,9 @@ export const Recipe = (props: IRecipeProps) => {
                           {recipe.pictureContentType}, {byteSize(recipe.picture)}
                         </span>
                       </div>
-                    ) : null}
+                    ) : (
+                      <Link to={`${match.url}/${recipe.id}`}>{recipe.pictureContentType}</Link>
+                    )}
                   </td>
                   <td>
                     {recipe.ingredients
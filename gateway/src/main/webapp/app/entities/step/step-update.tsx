@@ -77,6 +77,7 @@ export const StepUpdate = (props: IStepUpdateProps) => {
                     <Translate contentKey="global.field.id">ID</Translate>
                   </Label>
                   <AvInput id="step-id" type="text" className="form-control" name="id" required readOnly />
+                  <AvInput id="step-version" type="hidden" name="version" required />
                 </AvGroup>
               ) : null}
               <AvGroup>
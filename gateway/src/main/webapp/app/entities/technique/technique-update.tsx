@@ -73,6 +73,7 @@ export const TechniqueUpdate = (props: ITechniqueUpdateProps) => {
                     <Translate contentKey="global.field.id">ID</Translate>
                   </Label>
                   <AvInput id="technique-id" type="text" className="form-control" name="id" required readOnly />
+                  <AvInput id="technique-version" type="hidden" name="version" required />
                 </AvGroup>
               ) : null}
               <AvGroup>
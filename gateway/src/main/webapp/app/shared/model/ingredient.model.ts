@@ -2,6 +2,7 @@ import { IRecipe } from 'app/shared/model/recipe.model';
 
 export interface IIngredient {
   id?: number;
+  version?: number;
   name?: string;
   recipes?: IRecipe[];
 }
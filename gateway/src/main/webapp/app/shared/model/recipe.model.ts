@@ -4,6 +4,7 @@ import { Cooking } from 'app/shared/model/enumerations/cooking.model';
 
 export interface IRecipe {
   id?: number;
+  version?: number;
   name?: string;
   cooking?: Cooking;
   cookingTime?: number | null;
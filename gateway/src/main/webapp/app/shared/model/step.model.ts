@@ -2,6 +2,7 @@ import { IRecipe } from 'app/shared/model/recipe.model';
 
 export interface IStep {
   id?: number;
+  version?: number;
   action?: string;
   recipes?: IRecipe[];
 }
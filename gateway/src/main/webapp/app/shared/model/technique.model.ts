@@ -1,5 +1,6 @@
 export interface ITechnique {
   id?: number;
+  version?: number;
   description?: string;
 }
 
@@ -0,0 +1,15 @@
+package fr.lalourche.hellojhipster.gateway.client;
+
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configure a Mock version of {@link TechniqueClient} to test the
+ * application without starting the techniques service.
+ */
+@Configuration
+public class TechniqueClientMockConfiguration {
+
+    @MockBean
+    private TechniqueClient mockTechniqueClient;
+}
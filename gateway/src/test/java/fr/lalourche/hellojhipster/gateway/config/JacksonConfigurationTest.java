@@ -0,0 +1,66 @@
+package fr.lalourche.hellojhipster.gateway.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import fr.lalourche.hellojhipster.gateway.domain.Ingredient;
+import fr.lalourche.hellojhipster.gateway.domain.Recipe;
+import fr.lalourche.hellojhipster.gateway.domain.Step;
+import fr.lalourche.hellojhipster.gateway.domain.enumeration.Cooking;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Sizes of the recipes written in CBOR and Smile, compared with JSON.
+ */
+class JacksonConfigurationTest {
+
+    private static final int PICTURE_SIZE = 65536;
+
+    private ObjectMapper jsonMapper;
+    private ObjectMapper cborMapper;
+    private ObjectMapper smileMapper;
+    private Recipe recipe;
+
+    @BeforeEach
+    public void setup() {
+        jsonMapper = Jackson2ObjectMapperBuilder.json().build();
+        cborMapper = Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).build();
+        smileMapper = Jackson2ObjectMapperBuilder.json().factory(JacksonConfiguration.smileFactory()).build();
+
+        recipe = new Recipe().id(1L).version(3L).name("Pancakes").cooking(Cooking.WITH_COOKING).cookingTime(20.0);
+        for (long i = 1; i <= 8; i++) {
+            recipe.addIngredients(new Ingredient().id(i).version(1L).name("Ingredient " + i));
+            recipe.addSteps(new Step().id(i).version(1L).action("Step " + i + " of the recipe"));
+        }
+    }
+
+    @Test
+    void testRecipeIsSmallerInCborAndSmile() throws Exception {
+        int json = jsonMapper.writeValueAsBytes(recipe).length;
+
+        assertThat(cborMapper.writeValueAsBytes(recipe)).hasSizeLessThan(json);
+        assertThat(smileMapper.writeValueAsBytes(recipe)).hasSizeLessThan(json);
+    }
+
+    @Test
+    void testPictureIsWrittenAsRawBytes() throws Exception {
+        byte[] picture = new byte[PICTURE_SIZE];
+        new Random(42).nextBytes(picture);
+        recipe.pictureContentType("image/png");
+        int otherFields = jsonMapper.writeValueAsBytes(recipe).length;
+        recipe.picture(picture);
+
+        // base64 takes 4 bytes for every 3 bytes of the picture
+        assertThat(jsonMapper.writeValueAsBytes(recipe)).hasSizeGreaterThan(PICTURE_SIZE / 3 * 4);
+        byte[] cbor = cborMapper.writeValueAsBytes(recipe);
+        assertThat(cbor).hasSizeLessThan(PICTURE_SIZE + otherFields);
+        assertThat(cborMapper.readValue(cbor, Recipe.class).getPicture()).isEqualTo(picture);
+        byte[] smile = smileMapper.writeValueAsBytes(recipe);
+        assertThat(smile).hasSizeLessThan(PICTURE_SIZE + otherFields);
+        assertThat(smileMapper.readValue(smile, Recipe.class).getPicture()).isEqualTo(picture);
+    }
+}
@@ -0,0 +1,45 @@
+package fr.lalourche.hellojhipster.gateway.repository.search;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import fr.lalourche.hellojhipster.gateway.domain.Recipe;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.elasticsearch.core.ReactiveElasticsearchTemplate;
+
+class SearchAfterSupportTest {
+
+    private ReactiveElasticsearchTemplate reactiveElasticsearchTemplate;
+
+    private SearchAfterSupport<Recipe> searchAfterSupport;
+
+    @BeforeEach
+    public void setup() {
+        reactiveElasticsearchTemplate = mock(ReactiveElasticsearchTemplate.class);
+        searchAfterSupport = new SearchAfterSupport<>(reactiveElasticsearchTemplate, Recipe.class, Map.of("name", "name.keyword"));
+    }
+
+    @Test
+    void testUnknownSortPropertyIsRejected() {
+        assertThatThrownBy(() -> searchAfterSupport.search(matchAllQuery(), PageRequest.of(0, 20, Sort.by("picture")), null).block())
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("picture");
+        verifyNoInteractions(reactiveElasticsearchTemplate);
+    }
+
+    @Test
+    void testPageBeyondTheResultWindowIsRejected() {
+        int size = 20;
+        int page = SearchAfterSupport.MAX_RESULT_WINDOW / size;
+
+        assertThatThrownBy(() -> searchAfterSupport.search(matchAllQuery(), PageRequest.of(page, size), null).block())
+            .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(reactiveElasticsearchTemplate);
+    }
+}
@@ -7,6 +7,7 @@ import fr.lalourche.hellojhipster.gateway.IntegrationTest;
 import fr.lalourche.hellojhipster.gateway.config.Constants;
 import fr.lalourche.hellojhipster.gateway.domain.User;
 import fr.lalourche.hellojhipster.gateway.repository.UserRepository;
+import fr.lalourche.hellojhipster.gateway.service.UserCache;
 import java.util.Locale;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.junit.jupiter.api.BeforeEach;
@@ -31,6 +32,9 @@ class DomainUserDetailsServiceIT {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserCache userCache;
+
     @Autowired
     private ReactiveUserDetailsService domainUserDetailsService;
 
@@ -38,6 +42,7 @@ class DomainUserDetailsServiceIT {
     public void init() {
         userRepository.deleteAllUserAuthorities().block();
         userRepository.deleteAll().block();
+        userCache.clear();
 
         User userOne = new User();
         userOne.setLogin(USER_ONE_LOGIN);
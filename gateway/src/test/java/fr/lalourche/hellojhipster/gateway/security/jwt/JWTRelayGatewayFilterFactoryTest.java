@@ -0,0 +1,77 @@
+package fr.lalourche.hellojhipster.gateway.security.jwt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import fr.lalourche.hellojhipster.gateway.security.AuthoritiesConstants;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import reactor.core.publisher.Mono;
+
+class JWTRelayGatewayFilterFactoryTest {
+
+    private static final String TOKEN = "header.payload.signature";
+
+    private GatewayFilter filter;
+
+    private AtomicReference<ServerHttpRequest> proxiedRequest;
+
+    private final GatewayFilterChain chain = exchange -> {
+        proxiedRequest.set(exchange.getRequest());
+        return Mono.empty();
+    };
+
+    @BeforeEach
+    public void setup() {
+        filter = new JWTRelayGatewayFilterFactory().apply(new Object());
+        proxiedRequest = new AtomicReference<>();
+    }
+
+    @Test
+    void testAnonymousRequestIsProxiedAsIs() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/services/recipes/api/recipes"));
+
+        filter.filter(exchange, chain).block();
+
+        assertThat(proxiedRequest.get()).isSameAs(exchange.getRequest());
+    }
+
+    @Test
+    void testRequestWithTheTokenIsNotRebuilt() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(
+            MockServerHttpRequest.get("/services/recipes/api/recipes").header(JWTFilter.AUTHORIZATION_HEADER, "Bearer " + TOKEN)
+        );
+
+        filter.filter(exchange, chain).subscriberContext(ReactiveSecurityContextHolder.withAuthentication(authentication())).block();
+
+        assertThat(proxiedRequest.get()).isSameAs(exchange.getRequest());
+    }
+
+    @Test
+    void testTokenIsRelayed() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(
+            MockServerHttpRequest.get("/services/recipes/api/recipes").header(JWTFilter.AUTHORIZATION_HEADER, "Basic credentials")
+        );
+
+        filter.filter(exchange, chain).subscriberContext(ReactiveSecurityContextHolder.withAuthentication(authentication())).block();
+
+        assertThat(proxiedRequest.get().getHeaders().get(JWTFilter.AUTHORIZATION_HEADER)).containsExactly("Bearer " + TOKEN);
+    }
+
+    private UsernamePasswordAuthenticationToken authentication() {
+        return new UsernamePasswordAuthenticationToken(
+            "test-user",
+            TOKEN,
+            Collections.singletonList(new SimpleGrantedAuthority(AuthoritiesConstants.USER))
+        );
+    }
+}
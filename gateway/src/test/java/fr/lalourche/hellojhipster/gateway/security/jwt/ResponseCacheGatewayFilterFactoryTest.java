@@ -0,0 +1,183 @@
+package fr.lalourche.hellojhipster.gateway.security.jwt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+import fr.lalourche.hellojhipster.gateway.config.ApplicationProperties;
+import fr.lalourche.hellojhipster.gateway.security.AuthoritiesConstants;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+import tech.jhipster.config.JHipsterProperties;
+
+class ResponseCacheGatewayFilterFactoryTest {
+
+    private static final String URL = "/services/recipes/api/recipes/1";
+
+    // as written by Spring Security in the microservices
+    private static final String NO_STORE = "no-cache, no-store, max-age=0, must-revalidate";
+
+    private TokenProvider tokenProvider;
+
+    private GatewayFilter filter;
+
+    private Route route;
+
+    private AtomicInteger proxiedRequests;
+
+    private String timeToLive;
+
+    private final GatewayFilterChain chain = exchange -> {
+        proxiedRequests.incrementAndGet();
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.OK);
+        response.getHeaders().setETag("\"1\"");
+        response.getHeaders().setCacheControl(NO_STORE);
+        if (timeToLive != null) {
+            response.getHeaders().set(ResponseCacheGatewayFilterFactory.TIME_TO_LIVE_HEADER, timeToLive);
+        }
+        return response.writeWith(Mono.just(response.bufferFactory().wrap("recipe".getBytes(StandardCharsets.UTF_8))));
+    };
+
+    @BeforeEach
+    public void setup() {
+        JHipsterProperties jHipsterProperties = new JHipsterProperties();
+        String base64Secret = "fd54a45s65fds737b9aafcb3412e07ed99b267f33413274720ddbb7f6c5e64e9f14075f2d7ed041592f0b7657baf8";
+        jHipsterProperties.getSecurity().getAuthentication().getJwt().setBase64Secret(base64Secret);
+        tokenProvider = new TokenProvider(jHipsterProperties, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(tokenProvider, "key", Keys.hmacShaKeyFor(Decoders.BASE64.decode(base64Secret)));
+        ReflectionTestUtils.setField(tokenProvider, "tokenValidityInMilliseconds", 60000);
+
+        ResponseCacheGatewayFilterFactory factory = new ResponseCacheGatewayFilterFactory(
+            tokenProvider,
+            new SimpleMeterRegistry(),
+            new ApplicationProperties()
+        );
+        filter = factory.apply(new ResponseCacheGatewayFilterFactory.Config());
+        route = Route.async().id("recipes").uri("lb://recipes").predicate(exchange -> true).build();
+        proxiedRequests = new AtomicInteger();
+        timeToLive = "60";
+    }
+
+    @Test
+    void testRepeatedGetIsAnsweredFromCache() {
+        String token = createToken(AuthoritiesConstants.USER);
+
+        filter.filter(authenticatedGet(token), chain).block();
+        MockServerWebExchange second = authenticatedGet(token);
+        filter.filter(second, chain).block();
+
+        assertThat(proxiedRequests.get()).isEqualTo(1);
+        assertThat(second.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(second.getResponse().getBodyAsString().block()).isEqualTo("recipe");
+        assertThat(second.getResponse().getHeaders().getETag()).isEqualTo("\"1\"");
+    }
+
+    @Test
+    void testClientsAreNotAllowedToStoreTheResponses() {
+        String token = createToken(AuthoritiesConstants.USER);
+
+        MockServerWebExchange first = authenticatedGet(token);
+        filter.filter(first, chain).block();
+        MockServerWebExchange second = authenticatedGet(token);
+        filter.filter(second, chain).block();
+
+        assertThat(proxiedRequests.get()).isEqualTo(1);
+        for (MockServerWebExchange exchange : List.of(first, second)) {
+            HttpHeaders headers = exchange.getResponse().getHeaders();
+            assertThat(headers.getCacheControl()).isEqualTo(NO_STORE);
+            assertThat(headers).doesNotContainKey(ResponseCacheGatewayFilterFactory.TIME_TO_LIVE_HEADER);
+        }
+    }
+
+    @Test
+    void testResponseIsNotSharedWithOtherAuthorities() {
+        filter.filter(authenticatedGet(createToken(AuthoritiesConstants.USER)), chain).block();
+        filter.filter(authenticatedGet(createToken(AuthoritiesConstants.ADMIN)), chain).block();
+
+        assertThat(proxiedRequests.get()).isEqualTo(2);
+    }
+
+    @Test
+    void testWriteEvictsTheRoute() {
+        filter.filter(exchange(MockServerHttpRequest.get(URL)), chain).block();
+        filter.filter(exchange(MockServerHttpRequest.delete(URL)), chain).block();
+        filter.filter(exchange(MockServerHttpRequest.get(URL)), chain).block();
+
+        assertThat(proxiedRequests.get()).isEqualTo(3);
+    }
+
+    @Test
+    void testMatchingIfNoneMatchIsNotModified() {
+        filter.filter(exchange(MockServerHttpRequest.get(URL)), chain).block();
+        MockServerWebExchange revalidation = exchange(MockServerHttpRequest.get(URL).header(HttpHeaders.IF_NONE_MATCH, "\"1\""));
+        filter.filter(revalidation, chain).block();
+
+        assertThat(proxiedRequests.get()).isEqualTo(1);
+        assertThat(revalidation.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+    }
+
+    @Test
+    void testResponseWithoutTimeToLiveIsNotCached() {
+        timeToLive = null;
+
+        filter.filter(exchange(MockServerHttpRequest.get(URL)), chain).block();
+        filter.filter(exchange(MockServerHttpRequest.get(URL)), chain).block();
+
+        assertThat(proxiedRequests.get()).isEqualTo(2);
+    }
+
+    @Test
+    void testNoStoreRequestIsNotCached() {
+        filter.filter(exchange(MockServerHttpRequest.get(URL).header(HttpHeaders.CACHE_CONTROL, "no-store")), chain).block();
+        filter.filter(exchange(MockServerHttpRequest.get(URL)), chain).block();
+
+        assertThat(proxiedRequests.get()).isEqualTo(2);
+    }
+
+    @Test
+    void testDirectivesAreParsedAsTokens() {
+        assertThat(ResponseCacheGatewayFilterFactory.parseDirectives("Public, S-MaxAge=\"60\", x-no-cache-hint"))
+            .containsEntry("public", "")
+            .containsEntry("s-maxage", "60")
+            .containsKey("x-no-cache-hint")
+            .doesNotContainKey("no-cache");
+    }
+
+    private MockServerWebExchange authenticatedGet(String token) {
+        return exchange(MockServerHttpRequest.get(URL).header(JWTFilter.AUTHORIZATION_HEADER, "Bearer " + token));
+    }
+
+    private MockServerWebExchange exchange(MockServerHttpRequest.BaseBuilder<?> request) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        exchange.getAttributes().put(GATEWAY_ROUTE_ATTR, route);
+        return exchange;
+    }
+
+    private String createToken(String authority) {
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+            "test-user",
+            "test-password",
+            Collections.singletonList(new SimpleGrantedAuthority(authority))
+        );
+        return tokenProvider.createToken(authentication, false);
+    }
+}
@@ -7,6 +7,7 @@ import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
 import java.util.*;
@@ -16,6 +17,7 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.test.util.ReflectionTestUtils;
 import tech.jhipster.config.JHipsterProperties;
 
@@ -31,7 +33,7 @@ class TokenProviderTest {
         JHipsterProperties jHipsterProperties = new JHipsterProperties();
         String base64Secret = "fd54a45s65fds737b9aafcb3412e07ed99b267f33413274720ddbb7f6c5e64e9f14075f2d7ed041592f0b7657baf8";
         jHipsterProperties.getSecurity().getAuthentication().getJwt().setBase64Secret(base64Secret);
-        tokenProvider = new TokenProvider(jHipsterProperties);
+        tokenProvider = new TokenProvider(jHipsterProperties, new SimpleMeterRegistry());
         key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(base64Secret));
 
         ReflectionTestUtils.setField(tokenProvider, "key", key);
@@ -83,13 +85,68 @@ class TokenProviderTest {
         assertThat(isTokenValid).isFalse();
     }
 
+    @Test
+    void testVerifiedTokenIsNotParsedAgain() {
+        String token = tokenProvider.createToken(createAuthentication(), false);
+
+        Authentication authentication = tokenProvider.getAuthentication(token);
+        Authentication next = tokenProvider.getAuthentication(token);
+
+        // each request gets its own authentication, built from the principal of the verified token
+        assertThat(next).isNotSameAs(authentication);
+        assertThat(next.getPrincipal()).isSameAs(authentication.getPrincipal());
+        assertThat(next.getCredentials()).isEqualTo(token);
+        assertThat(next.isAuthenticated()).isTrue();
+    }
+
+    @Test
+    void testVerifiedTokensExpiringFirstAreEvicted() {
+        ReflectionTestUtils.setField(tokenProvider, "maxVerifiedTokens", 10);
+        String rememberMeToken = tokenProvider.createToken(createAuthentication(), true);
+        Object principal = tokenProvider.getAuthentication(rememberMeToken).getPrincipal();
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            String token = tokenProvider.createToken(createAuthentication("user-" + i), false);
+            tokenProvider.getAuthentication(token);
+            tokens.add(token);
+        }
+
+        // only the tokens expiring first were evicted
+        assertThat(tokenProvider.getAuthentication(rememberMeToken).getPrincipal()).isSameAs(principal);
+        Object lastPrincipal = tokenProvider.getAuthentication(tokens.get(9)).getPrincipal();
+        assertThat(tokenProvider.getAuthentication(tokens.get(9)).getPrincipal()).isSameAs(lastPrincipal);
+    }
+
+    @Test
+    void testAuthoritiesAreSharedByTheTokens() {
+        Authentication authentication = createAuthentication();
+
+        Authentication first = tokenProvider.getAuthentication(tokenProvider.createToken(authentication, false));
+        Authentication second = tokenProvider.getAuthentication(tokenProvider.createToken(authentication, true));
+
+        assertThat(second.getAuthorities()).hasSize(1);
+        assertThat(second.getAuthorities().iterator().next()).isSameAs(first.getAuthorities().iterator().next());
+    }
+
+    @Test
+    void testPrincipalIsBuiltOncePerToken() {
+        String token = tokenProvider.createToken(createAuthentication(), false);
+
+        User principal = (User) tokenProvider.getAuthentication(token).getPrincipal();
+
+        // the authorities are copied into the principal when the token is verified, not on each request
+        assertThat(tokenProvider.getAuthentication(token).getPrincipal()).isSameAs(principal);
+        assertThat(principal.getUsername()).isEqualTo("anonymous");
+        assertThat(principal.getAuthorities()).extracting(GrantedAuthority::getAuthority).containsExactly(AuthoritiesConstants.ANONYMOUS);
+    }
+
     @Test
     void testKeyIsSetFromSecretWhenSecretIsNotEmpty() {
         final String secret = "NwskoUmKHZtzGRKJKVjsJF7BtQMMxNWi";
         JHipsterProperties jHipsterProperties = new JHipsterProperties();
         jHipsterProperties.getSecurity().getAuthentication().getJwt().setSecret(secret);
 
-        TokenProvider tokenProvider = new TokenProvider(jHipsterProperties);
+        TokenProvider tokenProvider = new TokenProvider(jHipsterProperties, new SimpleMeterRegistry());
 
         Key key = (Key) ReflectionTestUtils.getField(tokenProvider, "key");
         assertThat(key).isNotNull().isEqualTo(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)));
@@ -101,16 +158,20 @@ class TokenProviderTest {
         JHipsterProperties jHipsterProperties = new JHipsterProperties();
         jHipsterProperties.getSecurity().getAuthentication().getJwt().setBase64Secret(base64Secret);
 
-        TokenProvider tokenProvider = new TokenProvider(jHipsterProperties);
+        TokenProvider tokenProvider = new TokenProvider(jHipsterProperties, new SimpleMeterRegistry());
 
         Key key = (Key) ReflectionTestUtils.getField(tokenProvider, "key");
         assertThat(key).isNotNull().isEqualTo(Keys.hmacShaKeyFor(Decoders.BASE64.decode(base64Secret)));
     }
 
     private Authentication createAuthentication() {
+        return createAuthentication("anonymous");
+    }
+
+    private Authentication createAuthentication(String name) {
         Collection<GrantedAuthority> authorities = new ArrayList<>();
         authorities.add(new SimpleGrantedAuthority(AuthoritiesConstants.ANONYMOUS));
-        return new UsernamePasswordAuthenticationToken("anonymous", "anonymous", authorities);
+        return new UsernamePasswordAuthenticationToken(name, "anonymous", authorities);
     }
 
     private String createUnsupportedToken() {
@@ -0,0 +1,77 @@
+package fr.lalourche.hellojhipster.gateway.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import fr.lalourche.hellojhipster.gateway.config.ApplicationProperties;
+import fr.lalourche.hellojhipster.gateway.service.RecipeIngredientIndex.Match;
+import fr.lalourche.hellojhipster.gateway.service.RecipeIngredientIndex.MatchMode;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+
+class RecipeIngredientIndexTest {
+
+    private DatabaseClient db;
+
+    private ApplicationProperties applicationProperties;
+
+    private RecipeIngredientIndex index;
+
+    @BeforeEach
+    public void setup() {
+        db = mock(DatabaseClient.class, RETURNS_DEEP_STUBS);
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getIngredientIndex().setLoadTimeout(Duration.ofMillis(100));
+        applicationProperties.getIngredientIndex().setMaxLoadRetries(0);
+        index = new RecipeIngredientIndex(db, applicationProperties);
+    }
+
+    @Test
+    void testDeletedIngredientIsNotMatched() {
+        links(Flux.empty());
+        index.load();
+        index.update(1L, List.of(10L, 11L)).block();
+        index.update(2L, List.of(10L)).block();
+
+        index.removeIngredient(11L).block();
+
+        assertThat(index.match(List.of(11L), MatchMode.ANY, 10).block()).isEmpty();
+        List<Match> matches = index.match(List.of(10L), MatchMode.BEST, 10).block();
+        assertThat(matches).extracting(Match::getRecipeId).containsExactly(1L, 2L);
+        assertThat(matches).extracting(Match::getMissingIngredients).containsExactly(0, 0);
+    }
+
+    @Test
+    void testMatchTimesOutWhileLoading() {
+        links(Flux.never());
+        index.load();
+
+        assertThatThrownBy(() -> index.match(List.of(10L), MatchMode.ALL, 10).block()).hasCauseInstanceOf(TimeoutException.class);
+    }
+
+    @Test
+    void testMatchFailsOnceTheLoadGivesUp() {
+        links(Flux.error(new IllegalStateException("Database unavailable")));
+        index.load();
+
+        assertThatThrownBy(() -> index.match(List.of(10L), MatchMode.ALL, 10).block())
+            .isInstanceOf(IllegalStateException.class)
+            .hasRootCauseMessage("Database unavailable");
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private void links(Flux links) {
+        when(db.sql(anyString()).map(any(BiFunction.class)).all()).thenReturn(links);
+    }
+}
@@ -0,0 +1,60 @@
+package fr.lalourche.hellojhipster.gateway.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import fr.lalourche.hellojhipster.gateway.config.ApplicationProperties;
+import fr.lalourche.hellojhipster.gateway.domain.User;
+import fr.lalourche.hellojhipster.gateway.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+class UserCacheTest {
+
+    private static final String LOGIN = "test-user";
+
+    private static final String EMAIL = "test-user@localhost";
+
+    private UserRepository userRepository;
+
+    private UserCache userCache;
+
+    private User user;
+
+    @BeforeEach
+    public void setup() {
+        user = new User();
+        user.setId(1L);
+        user.setLogin(LOGIN);
+        user.setEmail(EMAIL);
+        userRepository = mock(UserRepository.class);
+        when(userRepository.findOneWithAuthoritiesByLogin(LOGIN)).thenReturn(Mono.just(user));
+        userCache = new UserCache(userRepository, new ApplicationProperties());
+    }
+
+    @Test
+    void testUserIsReadOnce() {
+        userCache.findOneWithAuthoritiesByLogin(LOGIN).block();
+
+        assertThat(userCache.findOneWithAuthoritiesByLogin(LOGIN).block()).isSameAs(user);
+        assertThat(userCache.findOneWithAuthoritiesByEmailIgnoreCase("Test-User@localhost").block()).isSameAs(user);
+        verify(userRepository, times(1)).findOneWithAuthoritiesByLogin(LOGIN);
+    }
+
+    @Test
+    void testEvictedUserIsReadAgain() {
+        userCache.findOneWithAuthoritiesByLogin(LOGIN).block();
+        User renamed = new User();
+        renamed.setId(1L);
+        renamed.setLogin("renamed-user");
+        userCache.evict(renamed).block();
+
+        userCache.findOneWithAuthoritiesByLogin(LOGIN).block();
+
+        verify(userRepository, times(2)).findOneWithAuthoritiesByLogin(LOGIN);
+    }
+}
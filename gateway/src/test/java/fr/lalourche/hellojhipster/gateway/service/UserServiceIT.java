@@ -51,6 +51,9 @@ class UserServiceIT {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private UserCache userCache;
+
     /**
      * This repository is mocked in the fr.lalourche.hellojhipster.gateway.repository.search test package.
      *
@@ -65,6 +68,7 @@ class UserServiceIT {
     public void init() {
         userRepository.deleteAllUserAuthorities().block();
         userRepository.deleteAll().block();
+        userCache.clear();
         user = new User();
         user.setLogin(DEFAULT_LOGIN);
         user.setPassword(RandomStringUtils.random(60));
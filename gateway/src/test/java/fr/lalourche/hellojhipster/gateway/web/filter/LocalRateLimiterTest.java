@@ -0,0 +1,59 @@
+package fr.lalourche.hellojhipster.gateway.web.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import fr.lalourche.hellojhipster.gateway.config.ApplicationProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.ratelimit.RateLimiter.Response;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+import org.springframework.http.HttpHeaders;
+
+class LocalRateLimiterTest {
+
+    private static final String ROUTE_ID = "recipes";
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private LocalRateLimiter rateLimiter;
+
+    @BeforeEach
+    public void setup() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getRateLimit().setReplenishRate(1);
+        applicationProperties.getRateLimit().setBurstCapacity(2);
+        meterRegistry = new SimpleMeterRegistry();
+        rateLimiter = new LocalRateLimiter(applicationProperties, meterRegistry, mock(ConfigurationService.class));
+    }
+
+    @Test
+    void testBurstThenThrottle() {
+        assertThat(rateLimiter.isAllowed(ROUTE_ID, "subject:user").block().isAllowed()).isTrue();
+        assertThat(rateLimiter.isAllowed(ROUTE_ID, "subject:user").block().isAllowed()).isTrue();
+
+        Response response = rateLimiter.isAllowed(ROUTE_ID, "subject:user").block();
+        assertThat(response.isAllowed()).isFalse();
+        assertThat(response.getHeaders()).containsEntry(HttpHeaders.RETRY_AFTER, "1");
+        assertThat(meterRegistry.counter(LocalRateLimiter.METRIC_NAME, "route", ROUTE_ID, "outcome", "allowed").count()).isEqualTo(2);
+        assertThat(meterRegistry.counter(LocalRateLimiter.METRIC_NAME, "route", ROUTE_ID, "outcome", "throttled").count()).isEqualTo(1);
+    }
+
+    @Test
+    void testClientsHaveTheirOwnBuckets() {
+        rateLimiter.isAllowed(ROUTE_ID, "subject:user").block();
+        rateLimiter.isAllowed(ROUTE_ID, "subject:user").block();
+
+        assertThat(rateLimiter.isAllowed(ROUTE_ID, "subject:admin").block().isAllowed()).isTrue();
+        assertThat(rateLimiter.isAllowed("techniques", "subject:user").block().isAllowed()).isTrue();
+    }
+
+    @Test
+    void testRouteLimits() {
+        rateLimiter.getConfig().put(ROUTE_ID, new LocalRateLimiter.Config().setReplenishRate(1).setBurstCapacity(1));
+
+        assertThat(rateLimiter.isAllowed(ROUTE_ID, "subject:user").block().isAllowed()).isTrue();
+        assertThat(rateLimiter.isAllowed(ROUTE_ID, "subject:user").block().isAllowed()).isFalse();
+    }
+}
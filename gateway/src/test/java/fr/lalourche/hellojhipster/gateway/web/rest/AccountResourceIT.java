@@ -11,6 +11,7 @@ import fr.lalourche.hellojhipster.gateway.repository.AuthorityRepository;
 import fr.lalourche.hellojhipster.gateway.repository.UserRepository;
 import fr.lalourche.hellojhipster.gateway.repository.search.UserSearchRepository;
 import fr.lalourche.hellojhipster.gateway.security.AuthoritiesConstants;
+import fr.lalourche.hellojhipster.gateway.service.UserCache;
 import fr.lalourche.hellojhipster.gateway.service.UserService;
 import fr.lalourche.hellojhipster.gateway.service.dto.AdminUserDTO;
 import fr.lalourche.hellojhipster.gateway.service.dto.PasswordChangeDTO;
@@ -20,6 +21,7 @@ import fr.lalourche.hellojhipster.gateway.web.rest.vm.ManagedUserVM;
 import java.time.Instant;
 import java.util.*;
 import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
@@ -49,6 +51,9 @@ class AccountResourceIT {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private UserCache userCache;
+
     @Autowired
     private UserSearchRepository mockUserSearchRepository;
 
@@ -58,6 +63,12 @@ class AccountResourceIT {
     @Autowired
     private WebTestClient accountWebTestClient;
 
+    @BeforeEach
+    public void clearUserCache() {
+        // the tests write the users with the repository, bypassing the evictions of the user service
+        userCache.clear();
+    }
+
     @Test
     @WithUnauthenticatedMockUser
     void testNonAuthenticatedUser() {
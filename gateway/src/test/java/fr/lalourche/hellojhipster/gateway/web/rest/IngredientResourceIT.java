@@ -1,16 +1,23 @@
 package fr.lalourche.hellojhipster.gateway.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.mockito.Mockito.*;
 
 import fr.lalourche.hellojhipster.gateway.IntegrationTest;
 import fr.lalourche.hellojhipster.gateway.domain.Ingredient;
 import fr.lalourche.hellojhipster.gateway.domain.Recipe;
 import fr.lalourche.hellojhipster.gateway.repository.IngredientRepository;
+import fr.lalourche.hellojhipster.gateway.repository.RecipeRepository;
 import fr.lalourche.hellojhipster.gateway.repository.search.IngredientSearchRepository;
+import fr.lalourche.hellojhipster.gateway.repository.search.SearchSlice;
 import fr.lalourche.hellojhipster.gateway.service.EntityManager;
+import fr.lalourche.hellojhipster.gateway.service.dto.BulkItemResultDTO;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.List;
 import java.util.Random;
@@ -23,6 +30,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.reactive.server.WebTestClient;
@@ -51,6 +59,9 @@ class IngredientResourceIT {
     @Autowired
     private IngredientRepository ingredientRepository;
 
+    @Autowired
+    private RecipeRepository recipeRepository;
+
     /**
      * This repository is mocked in the fr.lalourche.hellojhipster.gateway.repository.search test package.
      *
@@ -142,6 +153,87 @@ class IngredientResourceIT {
         verify(mockIngredientSearchRepository, times(1)).save(testIngredient);
     }
 
+    @Test
+    void createIngredientsInBulk() throws Exception {
+        int databaseSizeBeforeCreate = ingredientRepository.findAll().collectList().block().size();
+        // Configure the mock search repository
+        when(mockIngredientSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+        // Create the Ingredients, the second one already having an ID and the third one being invalid
+        List<Ingredient> bulkIngredients = List.of(
+            new Ingredient().name(DEFAULT_NAME),
+            new Ingredient().id(1L).name(DEFAULT_NAME),
+            new Ingredient()
+        );
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        for (Ingredient bulkIngredient : bulkIngredients) {
+            body.write(TestUtil.convertObjectToJsonBytes(bulkIngredient));
+            body.write('\n');
+        }
+        List<BulkItemResultDTO> results = webTestClient
+            .post()
+            .uri(ENTITY_API_URL + "/_bulk")
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .accept(MediaType.APPLICATION_NDJSON)
+            .bodyValue(body.toByteArray())
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .returnResult(BulkItemResultDTO.class)
+            .getResponseBody()
+            .collectList()
+            .block(Duration.ofSeconds(5));
+
+        // Validate the results, in the order of the Ingredients
+        assertThat(results).extracting(BulkItemResultDTO::getIndex).containsExactly(0L, 1L, 2L);
+        assertThat(results).extracting(BulkItemResultDTO::getStatus).containsExactly(201, 400, 400);
+        assertThat(results.get(0).getId()).isNotNull();
+
+        // Validate the Ingredient in the database
+        List<Ingredient> ingredientList = ingredientRepository.findAll().collectList().block();
+        assertThat(ingredientList).hasSize(databaseSizeBeforeCreate + 1);
+        Ingredient testIngredient = ingredientList.get(ingredientList.size() - 1);
+        assertThat(testIngredient.getId()).isEqualTo(results.get(0).getId());
+        assertThat(testIngredient.getName()).isEqualTo(DEFAULT_NAME);
+
+        // Validate the Ingredient in Elasticsearch
+        verify(mockIngredientSearchRepository, times(1)).saveAll(anyIterable());
+    }
+
+    @Test
+    void createIngredientsInBulkWithMalformedLine() throws Exception {
+        int databaseSizeBeforeCreate = ingredientRepository.findAll().collectList().block().size();
+        // Configure the mock search repository
+        when(mockIngredientSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+        // Send a malformed line between two Ingredients
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write(TestUtil.convertObjectToJsonBytes(new Ingredient().name(DEFAULT_NAME)));
+        body.write("\n{\"name\":\n".getBytes(StandardCharsets.UTF_8));
+        body.write(TestUtil.convertObjectToJsonBytes(new Ingredient().name(UPDATED_NAME)));
+        body.write('\n');
+        List<BulkItemResultDTO> results = webTestClient
+            .post()
+            .uri(ENTITY_API_URL + "/_bulk")
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .accept(MediaType.APPLICATION_NDJSON)
+            .bodyValue(body.toByteArray())
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .returnResult(BulkItemResultDTO.class)
+            .getResponseBody()
+            .collectList()
+            .block(Duration.ofSeconds(5));
+
+        // Only the malformed line is rejected
+        assertThat(results).extracting(BulkItemResultDTO::getIndex).containsExactly(0L, 1L, 2L);
+        assertThat(results).extracting(BulkItemResultDTO::getStatus).containsExactly(201, 400, 201);
+        assertThat(results.get(1).getError()).startsWith("Malformed JSON");
+
+        // Validate the Ingredients in the database
+        List<Ingredient> ingredientList = ingredientRepository.findAll().collectList().block();
+        assertThat(ingredientList).hasSize(databaseSizeBeforeCreate + 2);
+    }
+
     @Test
     void createIngredientWithExistingId() throws Exception {
         // Create the Ingredient with an existing ID
@@ -236,6 +328,65 @@ class IngredientResourceIT {
             .value(hasItem(DEFAULT_NAME));
     }
 
+    @Test
+    void getAllIngredientsByPageSortedByName() {
+        // Initialize the database, the ingredients being created in the reverse order of their names
+        ingredientRepository.save(createUpdatedEntity(em)).block();
+        ingredientRepository.save(ingredient).block();
+
+        // Get the second page of the ingredients sorted by name
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?page=1&size=1&sort=name,asc")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .valueEquals("X-Total-Count", "2")
+            .expectHeader()
+            .value(HttpHeaders.LINK, containsString("rel=\"prev\""))
+            .expectBody()
+            .jsonPath("$.length()")
+            .isEqualTo(1)
+            .jsonPath("$.[0].name")
+            .isEqualTo(UPDATED_NAME);
+    }
+
+    @Test
+    void getAllIngredientNames() {
+        // Initialize the database
+        ingredientRepository.save(ingredient).block();
+
+        // Get the names of all the ingredients, without a page
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?fields=name")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .doesNotExist("X-Total-Count")
+            .expectBody()
+            .jsonPath("$.[*].name")
+            .value(hasItem(DEFAULT_NAME))
+            .jsonPath("$.[0].version")
+            .doesNotExist();
+
+        // The recipes of an ingredient aren't one of its fields, unlike the ingredients of a recipe
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?fields=name,recipes")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isBadRequest()
+            .expectBody()
+            .jsonPath("$.message")
+            .isEqualTo("error.invalidfields");
+    }
+
     @Test
     void getIngredient() {
         // Initialize the database
@@ -258,6 +409,54 @@ class IngredientResourceIT {
             .value(is(DEFAULT_NAME));
     }
 
+    @Test
+    void updateIngredientChangesTheTagOfItsRecipes() throws Exception {
+        // Configure the mock search repository
+        when(mockIngredientSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        // Initialize the database, with a recipe embedding the ingredient
+        ingredientRepository.save(ingredient).block();
+        Recipe recipe = recipeRepository.save(RecipeResourceIT.createEntity(em).addIngredients(ingredient)).block();
+
+        // Get the recipe and its tag
+        String eTag = webTestClient
+            .get()
+            .uri("/api/recipes/{id}", recipe.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .returnResult(Recipe.class)
+            .getResponseHeaders()
+            .getETag();
+        assertThat(eTag).isNotNull();
+
+        // Rename the ingredient, which the recipe embeds
+        Ingredient updatedIngredient = ingredientRepository.findById(ingredient.getId()).block().name(UPDATED_NAME);
+        webTestClient
+            .put()
+            .uri(ENTITY_API_URL_ID, updatedIngredient.getId())
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(updatedIngredient))
+            .exchange()
+            .expectStatus()
+            .isOk();
+
+        // The recipe isn't answered as not modified with its former tag
+        webTestClient
+            .get()
+            .uri("/api/recipes/{id}", recipe.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .header(HttpHeaders.IF_NONE_MATCH, eTag)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .value(HttpHeaders.ETAG, not(eTag))
+            .expectBody()
+            .jsonPath("$.ingredients[0].name")
+            .value(is(UPDATED_NAME));
+    }
+
     @Test
     void getNonExistingIngredient() {
         // Get the ingredient
@@ -306,8 +505,9 @@ class IngredientResourceIT {
     void putNonExistingIngredient() throws Exception {
         int databaseSizeBeforeUpdate = ingredientRepository.findAll().collectList().block().size();
         ingredient.setId(count.incrementAndGet());
+        ingredient.setVersion(0L);
 
-        // If the entity doesn't have an ID, it will throw BadRequestAlertException
+        // If the entity doesn't exist, it will return 404
         webTestClient
             .put()
             .uri(ENTITY_API_URL_ID, ingredient.getId())
@@ -315,7 +515,7 @@ class IngredientResourceIT {
             .bodyValue(TestUtil.convertObjectToJsonBytes(ingredient))
             .exchange()
             .expectStatus()
-            .isBadRequest();
+            .isNotFound();
 
         // Validate the Ingredient in the database
         List<Ingredient> ingredientList = ingredientRepository.findAll().collectList().block();
@@ -375,6 +575,7 @@ class IngredientResourceIT {
     void partialUpdateIngredientWithPatch() throws Exception {
         // Initialize the database
         ingredientRepository.save(ingredient).block();
+        when(mockIngredientSearchRepository.updatePartially(any())).thenReturn(Mono.empty());
 
         int databaseSizeBeforeUpdate = ingredientRepository.findAll().collectList().block().size();
 
@@ -398,12 +599,16 @@ class IngredientResourceIT {
         assertThat(ingredientList).hasSize(databaseSizeBeforeUpdate);
         Ingredient testIngredient = ingredientList.get(ingredientList.size() - 1);
         assertThat(testIngredient.getName()).isEqualTo(UPDATED_NAME);
+
+        // Validate the Ingredient in Elasticsearch
+        verify(mockIngredientSearchRepository).updatePartially(any());
     }
 
     @Test
     void fullUpdateIngredientWithPatch() throws Exception {
         // Initialize the database
         ingredientRepository.save(ingredient).block();
+        when(mockIngredientSearchRepository.updatePartially(any())).thenReturn(Mono.empty());
 
         int databaseSizeBeforeUpdate = ingredientRepository.findAll().collectList().block().size();
 
@@ -434,7 +639,7 @@ class IngredientResourceIT {
         int databaseSizeBeforeUpdate = ingredientRepository.findAll().collectList().block().size();
         ingredient.setId(count.incrementAndGet());
 
-        // If the entity doesn't have an ID, it will throw BadRequestAlertException
+        // If the entity doesn't exist, it will return 404
         webTestClient
             .patch()
             .uri(ENTITY_API_URL_ID, ingredient.getId())
@@ -442,7 +647,7 @@ class IngredientResourceIT {
             .bodyValue(TestUtil.convertObjectToJsonBytes(ingredient))
             .exchange()
             .expectStatus()
-            .isBadRequest();
+            .isNotFound();
 
         // Validate the Ingredient in the database
         List<Ingredient> ingredientList = ingredientRepository.findAll().collectList().block();
@@ -530,7 +735,8 @@ class IngredientResourceIT {
         when(mockIngredientSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
         // Initialize the database
         ingredientRepository.save(ingredient).block();
-        when(mockIngredientSearchRepository.search("id:" + ingredient.getId())).thenReturn(Flux.just(ingredient));
+        when(mockIngredientSearchRepository.search(eq("id:" + ingredient.getId()), any(), isNull()))
+            .thenReturn(Mono.just(new SearchSlice<>(List.of(ingredient), null)));
 
         // Search the ingredient
         webTestClient
@@ -10,6 +10,7 @@ import fr.lalourche.hellojhipster.gateway.repository.UserRepository;
 import fr.lalourche.hellojhipster.gateway.repository.search.UserSearchRepository;
 import fr.lalourche.hellojhipster.gateway.security.AuthoritiesConstants;
 import fr.lalourche.hellojhipster.gateway.service.EntityManager;
+import fr.lalourche.hellojhipster.gateway.service.UserCache;
 import fr.lalourche.hellojhipster.gateway.service.dto.UserDTO;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -33,6 +34,9 @@ class PublicUserResourceIT {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserCache userCache;
+
     /**
      * This repository is mocked in the fr.lalourche.hellojhipster.gateway.repository.search test package.
      *
@@ -51,6 +55,7 @@ class PublicUserResourceIT {
 
     @BeforeEach
     public void initTest() {
+        userCache.clear();
         user = UserResourceIT.initTestUser(userRepository, em);
     }
 
@@ -1,33 +1,52 @@
 package fr.lalourche.hellojhipster.gateway.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.everyItem;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.Mockito.*;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 import fr.lalourche.hellojhipster.gateway.IntegrationTest;
+import fr.lalourche.hellojhipster.gateway.client.TechniqueClient;
+import fr.lalourche.hellojhipster.gateway.domain.Ingredient;
 import fr.lalourche.hellojhipster.gateway.domain.Recipe;
+import fr.lalourche.hellojhipster.gateway.domain.Step;
 import fr.lalourche.hellojhipster.gateway.domain.enumeration.Cooking;
 import fr.lalourche.hellojhipster.gateway.repository.RecipeRepository;
 import fr.lalourche.hellojhipster.gateway.repository.search.RecipeSearchRepository;
+import fr.lalourche.hellojhipster.gateway.repository.search.SearchSlice;
 import fr.lalourche.hellojhipster.gateway.service.EntityManager;
+import fr.lalourche.hellojhipster.gateway.service.Keyset;
+import fr.lalourche.hellojhipster.gateway.service.dto.TechniqueDTO;
+import java.net.URI;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicLong;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.Mock;
-import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.util.Base64Utils;
 import reactor.core.publisher.Flux;
@@ -37,7 +56,6 @@ import reactor.core.publisher.Mono;
  * Integration tests for the {@link RecipeResource} REST controller.
  */
 @IntegrationTest
-@ExtendWith(MockitoExtension.class)
 @AutoConfigureWebTestClient
 @WithMockUser
 class RecipeResourceIT {
@@ -66,9 +84,6 @@ class RecipeResourceIT {
     @Autowired
     private RecipeRepository recipeRepository;
 
-    @Mock
-    private RecipeRepository recipeRepositoryMock;
-
     /**
      * This repository is mocked in the fr.lalourche.hellojhipster.gateway.repository.search test package.
      *
@@ -77,12 +92,23 @@ class RecipeResourceIT {
     @Autowired
     private RecipeSearchRepository mockRecipeSearchRepository;
 
+    /**
+     * This client is mocked in the fr.lalourche.hellojhipster.gateway.client test package.
+     *
+     * @see fr.lalourche.hellojhipster.gateway.client.TechniqueClientMockConfiguration
+     */
+    @Autowired
+    private TechniqueClient mockTechniqueClient;
+
     @Autowired
     private EntityManager em;
 
     @Autowired
     private WebTestClient webTestClient;
 
+    @Autowired
+    private DatabaseClient databaseClient;
+
     private Recipe recipe;
 
     /**
@@ -260,7 +286,7 @@ class RecipeResourceIT {
         assertThat(testRecipe.getName()).isEqualTo(DEFAULT_NAME);
         assertThat(testRecipe.getCooking()).isEqualTo(DEFAULT_COOKING);
         assertThat(testRecipe.getCookingTime()).isEqualTo(DEFAULT_COOKING_TIME);
-        assertThat(testRecipe.getPicture()).isEqualTo(DEFAULT_PICTURE);
+        assertThat(testRecipe.getPicture()).isNull();
         assertThat(testRecipe.getPictureContentType()).isEqualTo(DEFAULT_PICTURE_CONTENT_TYPE);
     }
 
@@ -291,25 +317,91 @@ class RecipeResourceIT {
             .jsonPath("$.[*].pictureContentType")
             .value(hasItem(DEFAULT_PICTURE_CONTENT_TYPE))
             .jsonPath("$.[*].picture")
-            .value(hasItem(Base64Utils.encodeToString(DEFAULT_PICTURE)));
+            .value(everyItem(nullValue()));
     }
 
-    @SuppressWarnings({ "unchecked" })
-    void getAllRecipesWithEagerRelationshipsIsEnabled() {
-        when(recipeRepositoryMock.findAllWithEagerRelationships(any())).thenReturn(Flux.empty());
+    @Test
+    void getAllRecipesByKeyset() {
+        // Initialize the database
+        recipeRepository.save(recipe).block();
+        Recipe otherRecipe = recipeRepository.save(createUpdatedEntity(em)).block();
+
+        // Get the first page
+        EntityExchangeResult<List<Recipe>> firstPage = webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?after=&size=1&sort=id,desc")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBodyList(Recipe.class)
+            .returnResult();
+        assertThat(firstPage.getResponseBody()).containsExactly(otherRecipe);
+        String next = firstPage.getResponseHeaders().getFirst(HttpHeaders.LINK);
+        assertThat(next).contains("rel=\"next\"");
+
+        // Follow the link to the next page
+        webTestClient
+            .get()
+            .uri(URI.create(next.substring(next.indexOf('<') + 1, next.indexOf('>'))))
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.[0].id")
+            .value(is(recipe.getId().intValue()));
+    }
 
-        webTestClient.get().uri(ENTITY_API_URL + "?eagerload=true").exchange().expectStatus().isOk();
+    @Test
+    void getAllRecipesByKeysetWithOversizedPage() {
+        // Initialize the database
+        recipeRepository.save(recipe).block();
 
-        verify(recipeRepositoryMock, times(1)).findAllWithEagerRelationships(any());
+        // The size of the page is lowered to the maximum instead of being sent to the database as is
+        assertThat(em.createKeyset(Recipe.class, Sort.unsorted(), null, Integer.MAX_VALUE).getSize()).isEqualTo(Keyset.MAX_SIZE);
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?after=&size=" + Integer.MAX_VALUE)
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.[*].id")
+            .value(hasItem(recipe.getId().intValue()));
     }
 
-    @SuppressWarnings({ "unchecked" })
-    void getAllRecipesWithEagerRelationshipsIsNotEnabled() {
-        when(recipeRepositoryMock.findAllWithEagerRelationships(any())).thenReturn(Flux.empty());
+    @Test
+    void getAllRecipesByKeysetWithInvalidToken() {
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?after=invalid&size=1")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+    }
 
-        webTestClient.get().uri(ENTITY_API_URL + "?eagerload=true").exchange().expectStatus().isOk();
+    @Test
+    void getAllRecipesWithSizeOnly() {
+        // Initialize the database
+        recipeRepository.save(recipe).block();
+        recipeRepository.save(createUpdatedEntity(em)).block();
 
-        verify(recipeRepositoryMock, times(1)).findAllWithEagerRelationships(any());
+        // A size without a page number reads the first page instead of all the recipes
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?size=1&sort=id,desc")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .exists("X-Total-Count")
+            .expectBody()
+            .jsonPath("$.length()")
+            .isEqualTo(1);
     }
 
     @Test
@@ -342,6 +434,238 @@ class RecipeResourceIT {
             .value(is(Base64Utils.encodeToString(DEFAULT_PICTURE)));
     }
 
+    @Test
+    void getRecipeNotModified() {
+        // Initialize the database
+        Ingredient ingredient = em.insert(new Ingredient().name(DEFAULT_NAME)).block();
+        recipe.addIngredients(ingredient);
+        recipeRepository.save(recipe).block();
+
+        // Get the recipe and its tag, shared by all its representations
+        String eTag = webTestClient
+            .get()
+            .uri(ENTITY_API_URL_ID, recipe.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+            .returnResult(Recipe.class)
+            .getResponseHeaders()
+            .getETag();
+        assertThat(eTag).isNotNull();
+
+        // Revalidate the recipe
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL_ID, recipe.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .header(HttpHeaders.IF_NONE_MATCH, eTag)
+            .exchange()
+            .expectStatus()
+            .isNotModified()
+            .expectHeader()
+            .valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+            .expectBody()
+            .isEmpty();
+    }
+
+    @Test
+    void getRecipesAsCbor() throws Exception {
+        // Initialize the database
+        recipeRepository.save(recipe).block();
+        ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+
+        // Get the recipe, whose picture is written as raw bytes
+        byte[] body = webTestClient
+            .get()
+            .uri(ENTITY_API_URL_ID, recipe.getId())
+            .accept(MediaType.APPLICATION_CBOR)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .contentType(MediaType.APPLICATION_CBOR)
+            .expectBody(byte[].class)
+            .returnResult()
+            .getResponseBody();
+        Recipe cborRecipe = cborMapper.readValue(body, Recipe.class);
+        assertThat(cborRecipe.getName()).isEqualTo(DEFAULT_NAME);
+        assertThat(cborRecipe.getPicture()).isEqualTo(DEFAULT_PICTURE);
+
+        // Get all the recipes, written as an array while they are read
+        body =
+            webTestClient
+                .get()
+                .uri(ENTITY_API_URL)
+                .accept(MediaType.APPLICATION_CBOR)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(byte[].class)
+                .returnResult()
+                .getResponseBody();
+        Recipe[] cborRecipes = cborMapper.readValue(body, Recipe[].class);
+        assertThat(cborRecipes).extracting(Recipe::getId).containsExactly(recipe.getId());
+    }
+
+    @Test
+    void getRecipeView() {
+        // Initialize the database
+        Ingredient ingredient = em.insert(new Ingredient().name(DEFAULT_NAME)).block();
+        Step step = em.insert(new Step().action(DEFAULT_NAME)).block();
+        recipe.getIngredients().add(ingredient);
+        recipe.getSteps().add(step);
+        recipeRepository.save(recipe).block();
+        when(mockTechniqueClient.searchByDescription(List.of(DEFAULT_NAME)))
+            .thenReturn(Flux.just(new TechniqueDTO("technique-1", DEFAULT_NAME)));
+
+        // Get the full view of the recipe
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL_ID + "/full", recipe.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.recipe.id")
+            .value(is(recipe.getId().intValue()))
+            .jsonPath("$.recipe.picture")
+            .value(is(Base64Utils.encodeToString(DEFAULT_PICTURE)))
+            .jsonPath("$.recipe.ingredients.[*].id")
+            .value(hasItem(ingredient.getId().intValue()))
+            .jsonPath("$.recipe.steps.[*].id")
+            .value(hasItem(step.getId().intValue()))
+            .jsonPath("$.techniques.[*].id")
+            .value(hasItem("technique-1"))
+            .jsonPath("$.missing")
+            .isEmpty();
+
+        // Get the full view of the recipe, without the techniques which can't be searched in time
+        when(mockTechniqueClient.searchByDescription(List.of(DEFAULT_NAME))).thenReturn(Flux.never());
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL_ID + "/full", recipe.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.recipe.steps.[*].id")
+            .value(hasItem(step.getId().intValue()))
+            .jsonPath("$.techniques")
+            .isEmpty()
+            .jsonPath("$.missing")
+            .value(hasItem("techniques"));
+    }
+
+    @Test
+    void getNonExistingRecipeView() {
+        // Get the full view of the recipe
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL_ID + "/full", Long.MAX_VALUE)
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isNotFound();
+    }
+
+    @Test
+    void getRecipeWithEagerRelationships() {
+        // Initialize the database
+        Ingredient ingredient = em.insert(new Ingredient().name(DEFAULT_NAME)).block();
+        Step step = em.insert(new Step().action(DEFAULT_NAME)).block();
+        recipe.getIngredients().add(ingredient);
+        recipe.getSteps().add(step);
+        recipeRepository.save(recipe).block();
+
+        // Get the recipe
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL_ID, recipe.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.id")
+            .value(is(recipe.getId().intValue()))
+            .jsonPath("$.ingredients.[*].id")
+            .value(hasItem(ingredient.getId().intValue()))
+            .jsonPath("$.steps.[*].id")
+            .value(hasItem(step.getId().intValue()));
+    }
+
+    @Test
+    void matchRecipes() {
+        // Initialize the database
+        Ingredient flour = em.insert(new Ingredient().name(DEFAULT_NAME)).block();
+        Ingredient eggs = em.insert(new Ingredient().name(DEFAULT_NAME)).block();
+        Ingredient milk = em.insert(new Ingredient().name(DEFAULT_NAME)).block();
+        recipe.getIngredients().addAll(List.of(flour, eggs, milk));
+        recipeRepository.save(recipe).block();
+        Recipe otherRecipe = createUpdatedEntity(em);
+        otherRecipe.getIngredients().addAll(List.of(flour, eggs));
+        recipeRepository.save(otherRecipe).block();
+
+        // Recipes using all the ingredients, those using the fewest other ingredients first
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/_match?ingredients={flour},{eggs}&mode=all", flour.getId(), eggs.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.[*].recipe.id")
+            .isEqualTo(List.of(otherRecipe.getId().intValue(), recipe.getId().intValue()))
+            .jsonPath("$.[*].missingIngredients")
+            .isEqualTo(List.of(0, 1))
+            .jsonPath("$.[*].recipe.picture")
+            .value(everyItem(nullValue()));
+
+        // Recipes using any of the ingredients, those using the most of them first
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/_match?ingredients={flour},{milk}&mode=any", flour.getId(), milk.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.[*].recipe.id")
+            .isEqualTo(List.of(recipe.getId().intValue(), otherRecipe.getId().intValue()))
+            .jsonPath("$.[*].matchedIngredients")
+            .isEqualTo(List.of(2, 1));
+
+        // The index is updated when a recipe is deleted
+        recipeRepository.deleteById(otherRecipe.getId()).block();
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/_match?ingredients={flour},{eggs}&mode=best", flour.getId(), eggs.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.[*].recipe.id")
+            .isEqualTo(List.of(recipe.getId().intValue()));
+    }
+
+    @Test
+    void matchRecipesWithInvalidMode() {
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/_match?ingredients=1&mode=invalid")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+    }
+
     @Test
     void getNonExistingRecipe() {
         // Get the recipe
@@ -354,6 +678,70 @@ class RecipeResourceIT {
             .isNotFound();
     }
 
+    @Test
+    void getRecipePicture() {
+        // Initialize the database
+        recipeRepository.save(recipe).block();
+
+        // Get the picture
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL_ID + "/picture", recipe.getId())
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .contentType(DEFAULT_PICTURE_CONTENT_TYPE)
+            .expectHeader()
+            .valueEquals("X-Content-Type-Options", "nosniff")
+            .expectHeader()
+            .valueEquals(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"recipe-" + recipe.getId() + ".jpg\"")
+            .expectBody(byte[].class)
+            .isEqualTo(DEFAULT_PICTURE);
+    }
+
+    @Test
+    void getRecipePictureWithActiveContentType() {
+        // Initialize the database
+        recipeRepository.save(recipe.pictureContentType("text/html")).block();
+
+        // Get the picture, which isn't served as a page
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL_ID + "/picture", recipe.getId())
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .contentType(MediaType.APPLICATION_OCTET_STREAM)
+            .expectHeader()
+            .valueEquals("X-Content-Type-Options", "nosniff")
+            .expectHeader()
+            .valueEquals(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"recipe-" + recipe.getId() + "\"");
+    }
+
+    @Test
+    void getRecipePictureWithInvalidContentType() {
+        // Initialize the database
+        recipeRepository.save(recipe.pictureContentType("image/")).block();
+
+        // Get the picture
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL_ID + "/picture", recipe.getId())
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .contentType(MediaType.APPLICATION_OCTET_STREAM);
+    }
+
+    @Test
+    void getNonExistingRecipePicture() {
+        // Get the picture
+        webTestClient.get().uri(ENTITY_API_URL_ID + "/picture", Long.MAX_VALUE).exchange().expectStatus().isNotFound();
+    }
+
     @Test
     void putNewRecipe() throws Exception {
         // Configure the mock search repository
@@ -390,17 +778,111 @@ class RecipeResourceIT {
         assertThat(testRecipe.getCookingTime()).isEqualTo(UPDATED_COOKING_TIME);
         assertThat(testRecipe.getPicture()).isEqualTo(UPDATED_PICTURE);
         assertThat(testRecipe.getPictureContentType()).isEqualTo(UPDATED_PICTURE_CONTENT_TYPE);
+        assertThat(testRecipe.getVersion()).isEqualTo(updatedRecipe.getVersion() + 1);
 
         // Validate the Recipe in Elasticsearch
         verify(mockRecipeSearchRepository).save(testRecipe);
     }
 
+    @Test
+    void putRecipeWithUpdatedLinks() throws Exception {
+        // Configure the mock search repository
+        when(mockRecipeSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        // Initialize the database
+        Ingredient flour = em.insert(new Ingredient().name(DEFAULT_NAME)).block();
+        Ingredient eggs = em.insert(new Ingredient().name(DEFAULT_NAME)).block();
+        Ingredient milk = em.insert(new Ingredient().name(DEFAULT_NAME)).block();
+        recipe.getIngredients().addAll(List.of(flour, eggs));
+        recipeRepository.save(recipe).block();
+
+        // Update the recipe, replacing the flour by the milk
+        Recipe updatedRecipe = recipeRepository.findOneWithEagerRelationships(recipe.getId()).block().ingredients(Set.of(eggs, milk));
+
+        webTestClient
+            .put()
+            .uri(ENTITY_API_URL_ID, updatedRecipe.getId())
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(updatedRecipe))
+            .exchange()
+            .expectStatus()
+            .isOk();
+
+        // Validate the links in the database
+        List<Long> ingredientIds = databaseClient
+            .sql("SELECT ingredients_id FROM rel_recipe__ingredients WHERE recipe_id = :recipeId")
+            .bind("recipeId", recipe.getId())
+            .map(row -> row.get("ingredients_id", Long.class))
+            .all()
+            .collectList()
+            .block();
+        assertThat(ingredientIds).containsExactlyInAnyOrder(eggs.getId(), milk.getId());
+    }
+
+    @Test
+    void putStaleRecipe() throws Exception {
+        // Initialize the database
+        recipeRepository.save(recipe).block();
+
+        // Update the recipe, after it has been modified by someone else
+        Recipe staleRecipe = recipeRepository.findById(recipe.getId()).block();
+        recipeRepository.save(recipeRepository.findById(recipe.getId()).block().name(UPDATED_NAME)).block();
+        staleRecipe.cooking(UPDATED_COOKING);
+
+        // If the entity has been modified since it was read, it will return 409
+        webTestClient
+            .put()
+            .uri(ENTITY_API_URL_ID, staleRecipe.getId())
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(staleRecipe))
+            .exchange()
+            .expectStatus()
+            .isEqualTo(HttpStatus.CONFLICT);
+
+        // Validate the Recipe in the database
+        Recipe testRecipe = recipeRepository.findById(recipe.getId()).block();
+        assertThat(testRecipe.getName()).isEqualTo(UPDATED_NAME);
+        assertThat(testRecipe.getCooking()).isEqualTo(DEFAULT_COOKING);
+
+        // Validate the Recipe in Elasticsearch
+        verify(mockRecipeSearchRepository, times(0)).save(staleRecipe);
+    }
+
+    @Test
+    void putRecipeWithoutVersion() throws Exception {
+        // Initialize the database
+        recipeRepository.save(recipe).block();
+        Long version = recipeRepository.findById(recipe.getId()).block().getVersion();
+
+        // Update the recipe, as a client which doesn't know its version
+        Recipe updatedRecipe = recipeRepository.findById(recipe.getId()).block().name(UPDATED_NAME);
+        updatedRecipe.setVersion(null);
+
+        // If the entity carries no version, it can't be checked for concurrent modifications and is rejected
+        webTestClient
+            .put()
+            .uri(ENTITY_API_URL_ID, updatedRecipe.getId())
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(updatedRecipe))
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+
+        // Validate the Recipe in the database
+        Recipe testRecipe = recipeRepository.findById(recipe.getId()).block();
+        assertThat(testRecipe.getName()).isEqualTo(DEFAULT_NAME);
+        assertThat(testRecipe.getVersion()).isEqualTo(version);
+
+        // Validate the Recipe in Elasticsearch
+        verify(mockRecipeSearchRepository, times(0)).save(any());
+    }
+
     @Test
     void putNonExistingRecipe() throws Exception {
         int databaseSizeBeforeUpdate = recipeRepository.findAll().collectList().block().size();
         recipe.setId(count.incrementAndGet());
+        recipe.setVersion(0L);
 
-        // If the entity doesn't have an ID, it will throw BadRequestAlertException
+        // If the entity doesn't exist, it will return 404
         webTestClient
             .put()
             .uri(ENTITY_API_URL_ID, recipe.getId())
@@ -408,7 +890,7 @@ class RecipeResourceIT {
             .bodyValue(TestUtil.convertObjectToJsonBytes(recipe))
             .exchange()
             .expectStatus()
-            .isBadRequest();
+            .isNotFound();
 
         // Validate the Recipe in the database
         List<Recipe> recipeList = recipeRepository.findAll().collectList().block();
@@ -468,6 +950,7 @@ class RecipeResourceIT {
     void partialUpdateRecipeWithPatch() throws Exception {
         // Initialize the database
         recipeRepository.save(recipe).block();
+        when(mockRecipeSearchRepository.updatePartially(any())).thenReturn(Mono.empty());
 
         int databaseSizeBeforeUpdate = recipeRepository.findAll().collectList().block().size();
 
@@ -495,12 +978,47 @@ class RecipeResourceIT {
         assertThat(testRecipe.getCookingTime()).isEqualTo(UPDATED_COOKING_TIME);
         assertThat(testRecipe.getPicture()).isEqualTo(DEFAULT_PICTURE);
         assertThat(testRecipe.getPictureContentType()).isEqualTo(DEFAULT_PICTURE_CONTENT_TYPE);
+
+        // Validate the Recipe in Elasticsearch
+        verify(mockRecipeSearchRepository).updatePartially(any());
+    }
+
+    @Test
+    void partialUpdateRecipeWithLinksWithPatch() throws Exception {
+        // Initialize the database
+        Ingredient ingredient = em.insert(new Ingredient().name(DEFAULT_NAME)).block();
+        Step step = em.insert(new Step().action(DEFAULT_NAME)).block();
+        recipe.addIngredients(ingredient).addSteps(step);
+        recipeRepository.save(recipe).block();
+        when(mockRecipeSearchRepository.updatePartially(any())).thenReturn(Mono.empty());
+
+        // Update only the name of the recipe, the patch holding neither its links nor its other fields
+        webTestClient
+            .patch()
+            .uri(ENTITY_API_URL_ID, recipe.getId())
+            .contentType(MediaType.valueOf("application/merge-patch+json"))
+            .bodyValue("{\"id\":" + recipe.getId() + ",\"name\":\"" + UPDATED_NAME + "\"}")
+            .exchange()
+            .expectStatus()
+            .isOk();
+
+        // Validate the Recipe and its links in the database
+        Recipe testRecipe = recipeRepository.findOneWithEagerRelationships(recipe.getId()).block();
+        assertThat(testRecipe.getName()).isEqualTo(UPDATED_NAME);
+        assertThat(testRecipe.getCooking()).isEqualTo(DEFAULT_COOKING);
+        assertThat(testRecipe.getIngredients()).extracting(Ingredient::getId).containsExactly(ingredient.getId());
+        assertThat(testRecipe.getSteps()).extracting(Step::getId).containsExactly(step.getId());
+
+        // Validate the Recipe in Elasticsearch: its document is merged with the update, not replaced
+        verify(mockRecipeSearchRepository).updatePartially(argThat(updated -> UPDATED_NAME.equals(updated.getName())));
+        verify(mockRecipeSearchRepository, never()).save(any());
     }
 
     @Test
     void fullUpdateRecipeWithPatch() throws Exception {
         // Initialize the database
         recipeRepository.save(recipe).block();
+        when(mockRecipeSearchRepository.updatePartially(any())).thenReturn(Mono.empty());
 
         int databaseSizeBeforeUpdate = recipeRepository.findAll().collectList().block().size();
 
@@ -540,7 +1058,7 @@ class RecipeResourceIT {
         int databaseSizeBeforeUpdate = recipeRepository.findAll().collectList().block().size();
         recipe.setId(count.incrementAndGet());
 
-        // If the entity doesn't have an ID, it will throw BadRequestAlertException
+        // If the entity doesn't exist, it will return 404
         webTestClient
             .patch()
             .uri(ENTITY_API_URL_ID, recipe.getId())
@@ -548,7 +1066,7 @@ class RecipeResourceIT {
             .bodyValue(TestUtil.convertObjectToJsonBytes(recipe))
             .exchange()
             .expectStatus()
-            .isBadRequest();
+            .isNotFound();
 
         // Validate the Recipe in the database
         List<Recipe> recipeList = recipeRepository.findAll().collectList().block();
@@ -636,7 +1154,8 @@ class RecipeResourceIT {
         when(mockRecipeSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
         // Initialize the database
         recipeRepository.save(recipe).block();
-        when(mockRecipeSearchRepository.search("id:" + recipe.getId())).thenReturn(Flux.just(recipe));
+        when(mockRecipeSearchRepository.search(eq("id:" + recipe.getId()), any(), isNull()))
+            .thenReturn(Mono.just(new SearchSlice<>(List.of(recipe), null)));
 
         // Search the recipe
         webTestClient
@@ -661,4 +1180,69 @@ class RecipeResourceIT {
             .jsonPath("$.[*].picture")
             .value(hasItem(Base64Utils.encodeToString(DEFAULT_PICTURE)));
     }
+
+    @Test
+    void searchRecipeConcurrently() throws Exception {
+        // Configure a slow search, so the identical searches overlap
+        when(mockRecipeSearchRepository.search(eq("name:" + DEFAULT_NAME), any(), isNull()))
+            .thenReturn(Mono.delay(Duration.ofMillis(500)).thenReturn(new SearchSlice<>(List.of(recipe.id(1L)), null)));
+
+        // Search the recipes twice at the same time
+        Callable<WebTestClient.ResponseSpec> search = () ->
+            webTestClient.get().uri(ENTITY_SEARCH_API_URL + "?query=name:" + DEFAULT_NAME).exchange().expectStatus().isOk();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (Future<WebTestClient.ResponseSpec> result : executor.invokeAll(List.of(search, search))) {
+                result.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // Only one search was sent to Elasticsearch
+        verify(mockRecipeSearchRepository, times(1)).search(eq("name:" + DEFAULT_NAME), any(), isNull());
+    }
+
+    @Test
+    void searchRecipesByPage() {
+        when(mockRecipeSearchRepository.search(eq("name:" + DEFAULT_NAME), any(), isNull()))
+            .thenReturn(Mono.just(new SearchSlice<>(List.of(recipe.id(1L)), "next")));
+        when(mockRecipeSearchRepository.countSearch("name:" + DEFAULT_NAME)).thenReturn(Mono.just(2L));
+
+        // Search the first page, counting the results
+        webTestClient
+            .get()
+            .uri(ENTITY_SEARCH_API_URL + "?query=name:" + DEFAULT_NAME + "&size=1&count=true")
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .valueEquals("X-Total-Count", "2")
+            .expectHeader()
+            .value(HttpHeaders.LINK, containsString("after=next"))
+            .expectBody()
+            .jsonPath("$.[*].id")
+            .value(hasItem(1));
+    }
+
+    @Test
+    void searchRecipesAsStream() {
+        when(mockRecipeSearchRepository.searchAsStream("name:" + DEFAULT_NAME)).thenReturn(Flux.just(recipe.id(1L)));
+
+        List<Recipe> recipes = webTestClient
+            .get()
+            .uri(ENTITY_SEARCH_API_URL + "?query=name:" + DEFAULT_NAME)
+            .accept(MediaType.APPLICATION_NDJSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+            .returnResult(Recipe.class)
+            .getResponseBody()
+            .collectList()
+            .block(Duration.ofSeconds(5));
+
+        assertThat(recipes).containsExactly(recipe);
+    }
 }
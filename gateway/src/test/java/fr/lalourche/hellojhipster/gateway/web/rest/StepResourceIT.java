@@ -10,8 +10,11 @@ import fr.lalourche.hellojhipster.gateway.domain.Recipe;
 import fr.lalourche.hellojhipster.gateway.domain.Step;
 import fr.lalourche.hellojhipster.gateway.repository.StepRepository;
 import fr.lalourche.hellojhipster.gateway.repository.search.StepSearchRepository;
+import fr.lalourche.hellojhipster.gateway.repository.search.SearchSlice;
 import fr.lalourche.hellojhipster.gateway.service.EntityManager;
+import java.net.URI;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicLong;
@@ -23,10 +26,11 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
 import org.springframework.test.web.reactive.server.WebTestClient;
-import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 /**
@@ -236,6 +240,33 @@ class StepResourceIT {
             .value(hasItem(DEFAULT_ACTION));
     }
 
+    @Test
+    void getAllStepsByKeysetWithSameAction() {
+        // Initialize the database, the two last steps having the same action
+        Step updatedStep = stepRepository.save(createUpdatedEntity(em)).block();
+        stepRepository.save(step).block();
+        Step sameActionStep = stepRepository.save(createEntity(em)).block();
+
+        // Page through the steps by action, the steps with the same action being ordered by id
+        List<Long> ids = new ArrayList<>();
+        String uri = ENTITY_API_URL + "?after=&size=1&sort=action,desc";
+        while (uri != null) {
+            EntityExchangeResult<List<Step>> page = webTestClient
+                .get()
+                .uri(URI.create(uri))
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBodyList(Step.class)
+                .returnResult();
+            page.getResponseBody().forEach(pageStep -> ids.add(pageStep.getId()));
+            String next = page.getResponseHeaders().getFirst(HttpHeaders.LINK);
+            uri = next == null ? null : next.substring(next.indexOf('<') + 1, next.indexOf('>'));
+        }
+        assertThat(ids).containsExactly(updatedStep.getId(), step.getId(), sameActionStep.getId());
+    }
+
     @Test
     void getStep() {
         // Initialize the database
@@ -306,8 +337,9 @@ class StepResourceIT {
     void putNonExistingStep() throws Exception {
         int databaseSizeBeforeUpdate = stepRepository.findAll().collectList().block().size();
         step.setId(count.incrementAndGet());
+        step.setVersion(0L);
 
-        // If the entity doesn't have an ID, it will throw BadRequestAlertException
+        // If the entity doesn't exist, it will return 404
         webTestClient
             .put()
             .uri(ENTITY_API_URL_ID, step.getId())
@@ -315,7 +347,7 @@ class StepResourceIT {
             .bodyValue(TestUtil.convertObjectToJsonBytes(step))
             .exchange()
             .expectStatus()
-            .isBadRequest();
+            .isNotFound();
 
         // Validate the Step in the database
         List<Step> stepList = stepRepository.findAll().collectList().block();
@@ -375,6 +407,7 @@ class StepResourceIT {
     void partialUpdateStepWithPatch() throws Exception {
         // Initialize the database
         stepRepository.save(step).block();
+        when(mockStepSearchRepository.updatePartially(any())).thenReturn(Mono.empty());
 
         int databaseSizeBeforeUpdate = stepRepository.findAll().collectList().block().size();
 
@@ -396,12 +429,16 @@ class StepResourceIT {
         assertThat(stepList).hasSize(databaseSizeBeforeUpdate);
         Step testStep = stepList.get(stepList.size() - 1);
         assertThat(testStep.getAction()).isEqualTo(DEFAULT_ACTION);
+
+        // Validate the Step in Elasticsearch
+        verify(mockStepSearchRepository).updatePartially(any());
     }
 
     @Test
     void fullUpdateStepWithPatch() throws Exception {
         // Initialize the database
         stepRepository.save(step).block();
+        when(mockStepSearchRepository.updatePartially(any())).thenReturn(Mono.empty());
 
         int databaseSizeBeforeUpdate = stepRepository.findAll().collectList().block().size();
 
@@ -432,7 +469,7 @@ class StepResourceIT {
         int databaseSizeBeforeUpdate = stepRepository.findAll().collectList().block().size();
         step.setId(count.incrementAndGet());
 
-        // If the entity doesn't have an ID, it will throw BadRequestAlertException
+        // If the entity doesn't exist, it will return 404
         webTestClient
             .patch()
             .uri(ENTITY_API_URL_ID, step.getId())
@@ -440,7 +477,7 @@ class StepResourceIT {
             .bodyValue(TestUtil.convertObjectToJsonBytes(step))
             .exchange()
             .expectStatus()
-            .isBadRequest();
+            .isNotFound();
 
         // Validate the Step in the database
         List<Step> stepList = stepRepository.findAll().collectList().block();
@@ -528,7 +565,8 @@ class StepResourceIT {
         when(mockStepSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
         // Initialize the database
         stepRepository.save(step).block();
-        when(mockStepSearchRepository.search("id:" + step.getId())).thenReturn(Flux.just(step));
+        when(mockStepSearchRepository.search(eq("id:" + step.getId()), any(), isNull()))
+            .thenReturn(Mono.just(new SearchSlice<>(List.of(step), null)));
 
         // Search the step
         webTestClient
@@ -9,6 +9,7 @@ import fr.lalourche.hellojhipster.gateway.IntegrationTest;
 import fr.lalourche.hellojhipster.gateway.domain.Technique;
 import fr.lalourche.hellojhipster.gateway.repository.TechniqueRepository;
 import fr.lalourche.hellojhipster.gateway.repository.search.TechniqueSearchRepository;
+import fr.lalourche.hellojhipster.gateway.repository.search.SearchSlice;
 import fr.lalourche.hellojhipster.gateway.service.EntityManager;
 import java.time.Duration;
 import java.util.List;
@@ -25,7 +26,6 @@ import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWeb
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.reactive.server.WebTestClient;
-import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 /**
@@ -296,8 +296,9 @@ class TechniqueResourceIT {
     void putNonExistingTechnique() throws Exception {
         int databaseSizeBeforeUpdate = techniqueRepository.findAll().collectList().block().size();
         technique.setId(count.incrementAndGet());
+        technique.setVersion(0L);
 
-        // If the entity doesn't have an ID, it will throw BadRequestAlertException
+        // If the entity doesn't exist, it will return 404
         webTestClient
             .put()
             .uri(ENTITY_API_URL_ID, technique.getId())
@@ -305,7 +306,7 @@ class TechniqueResourceIT {
             .bodyValue(TestUtil.convertObjectToJsonBytes(technique))
             .exchange()
             .expectStatus()
-            .isBadRequest();
+            .isNotFound();
 
         // Validate the Technique in the database
         List<Technique> techniqueList = techniqueRepository.findAll().collectList().block();
@@ -365,6 +366,7 @@ class TechniqueResourceIT {
     void partialUpdateTechniqueWithPatch() throws Exception {
         // Initialize the database
         techniqueRepository.save(technique).block();
+        when(mockTechniqueSearchRepository.updatePartially(any())).thenReturn(Mono.empty());
 
         int databaseSizeBeforeUpdate = techniqueRepository.findAll().collectList().block().size();
 
@@ -386,12 +388,16 @@ class TechniqueResourceIT {
         assertThat(techniqueList).hasSize(databaseSizeBeforeUpdate);
         Technique testTechnique = techniqueList.get(techniqueList.size() - 1);
         assertThat(testTechnique.getDescription()).isEqualTo(DEFAULT_DESCRIPTION);
+
+        // Validate the Technique in Elasticsearch
+        verify(mockTechniqueSearchRepository).updatePartially(any());
     }
 
     @Test
     void fullUpdateTechniqueWithPatch() throws Exception {
         // Initialize the database
         techniqueRepository.save(technique).block();
+        when(mockTechniqueSearchRepository.updatePartially(any())).thenReturn(Mono.empty());
 
         int databaseSizeBeforeUpdate = techniqueRepository.findAll().collectList().block().size();
 
@@ -422,7 +428,7 @@ class TechniqueResourceIT {
         int databaseSizeBeforeUpdate = techniqueRepository.findAll().collectList().block().size();
         technique.setId(count.incrementAndGet());
 
-        // If the entity doesn't have an ID, it will throw BadRequestAlertException
+        // If the entity doesn't exist, it will return 404
         webTestClient
             .patch()
             .uri(ENTITY_API_URL_ID, technique.getId())
@@ -430,7 +436,7 @@ class TechniqueResourceIT {
             .bodyValue(TestUtil.convertObjectToJsonBytes(technique))
             .exchange()
             .expectStatus()
-            .isBadRequest();
+            .isNotFound();
 
         // Validate the Technique in the database
         List<Technique> techniqueList = techniqueRepository.findAll().collectList().block();
@@ -518,7 +524,8 @@ class TechniqueResourceIT {
         when(mockTechniqueSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
         // Initialize the database
         techniqueRepository.save(technique).block();
-        when(mockTechniqueSearchRepository.search("id:" + technique.getId())).thenReturn(Flux.just(technique));
+        when(mockTechniqueSearchRepository.search(eq("id:" + technique.getId()), any(), isNull()))
+            .thenReturn(Mono.just(new SearchSlice<>(List.of(technique), null)));
 
         // Search the technique
         webTestClient
@@ -535,4 +542,18 @@ class TechniqueResourceIT {
             .jsonPath("$.[*].description")
             .value(hasItem(DEFAULT_DESCRIPTION));
     }
+
+    @Test
+    void searchTechniquesWithInvalidSort() {
+        when(mockTechniqueSearchRepository.search(eq("description:" + DEFAULT_DESCRIPTION), any(), isNull()))
+            .thenReturn(Mono.error(new IllegalArgumentException("Invalid sort field : unknown")));
+
+        // The sort rejected by the search repository is a bad request, not a server error
+        webTestClient
+            .get()
+            .uri(ENTITY_SEARCH_API_URL + "?query=description:" + DEFAULT_DESCRIPTION + "&sort=unknown,asc")
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+    }
 }
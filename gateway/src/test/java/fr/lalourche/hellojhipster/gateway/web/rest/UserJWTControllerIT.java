@@ -1,16 +1,27 @@
 package fr.lalourche.hellojhipster.gateway.web.rest;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
 import fr.lalourche.hellojhipster.gateway.IntegrationTest;
 import fr.lalourche.hellojhipster.gateway.config.Constants;
 import fr.lalourche.hellojhipster.gateway.domain.User;
 import fr.lalourche.hellojhipster.gateway.repository.UserRepository;
+import fr.lalourche.hellojhipster.gateway.repository.search.UserSearchRepository;
+import fr.lalourche.hellojhipster.gateway.security.jwt.JWTFilter;
+import fr.lalourche.hellojhipster.gateway.service.UserCache;
+import fr.lalourche.hellojhipster.gateway.service.UserService;
+import fr.lalourche.hellojhipster.gateway.service.dto.AdminUserDTO;
+import fr.lalourche.hellojhipster.gateway.service.dto.PasswordChangeDTO;
 import fr.lalourche.hellojhipster.gateway.web.rest.vm.LoginVM;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.http.MediaType;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
 
 /**
  * Integration tests for the {@link UserJWTController} REST controller.
@@ -25,9 +36,28 @@ class UserJWTControllerIT {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserCache userCache;
+
+    /**
+     * This repository is mocked in the fr.lalourche.hellojhipster.gateway.repository.search test package.
+     *
+     * @see fr.lalourche.hellojhipster.gateway.repository.search.UserSearchRepositoryMockConfiguration
+     */
+    @Autowired
+    private UserSearchRepository mockUserSearchRepository;
+
     @Autowired
     private WebTestClient webTestClient;
 
+    @BeforeEach
+    public void clearUserCache() {
+        userCache.clear();
+    }
+
     @Test
     void testAuthorize() throws Exception {
         User user = new User();
@@ -87,6 +117,61 @@ class UserJWTControllerIT {
             .isNotEmpty();
     }
 
+    @Test
+    void testAuthorizeAfterPasswordChange() throws Exception {
+        User user = new User();
+        user.setLogin("user-jwt-controller-password");
+        user.setEmail("user-jwt-controller-password@example.com");
+        user.setActivated(true);
+        user.setPassword(passwordEncoder.encode("test"));
+        user.setCreatedBy(Constants.SYSTEM);
+
+        userRepository.save(user).block();
+
+        String authorization = authorize("user-jwt-controller-password", "test")
+            .expectStatus()
+            .isOk()
+            .returnResult(String.class)
+            .getResponseHeaders()
+            .getFirst(JWTFilter.AUTHORIZATION_HEADER);
+
+        webTestClient
+            .post()
+            .uri("/api/account/change-password")
+            .header(JWTFilter.AUTHORIZATION_HEADER, authorization)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(new PasswordChangeDTO("test", "new password")))
+            .exchange()
+            .expectStatus()
+            .isOk();
+
+        // the user cached by the first login must not let the old password in
+        authorize("user-jwt-controller-password", "test").expectStatus().isUnauthorized();
+        authorize("user-jwt-controller-password", "new password").expectStatus().isOk();
+    }
+
+    @Test
+    void testAuthorizeAfterDeactivation() throws Exception {
+        User user = new User();
+        user.setLogin("user-jwt-controller-deactivated");
+        user.setEmail("user-jwt-controller-deactivated@example.com");
+        user.setActivated(true);
+        user.setPassword(passwordEncoder.encode("test"));
+        user.setCreatedBy(Constants.SYSTEM);
+
+        user = userRepository.save(user).block();
+        when(mockUserSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        authorize("user-jwt-controller-deactivated", "test").expectStatus().isOk();
+
+        AdminUserDTO userDTO = new AdminUserDTO(user);
+        userDTO.setActivated(false);
+        userService.updateUser(userDTO).block();
+
+        authorize("user-jwt-controller-deactivated", "test").expectStatus().isUnauthorized();
+        authorize("user-jwt-controller-deactivated@example.com", "test").expectStatus().isUnauthorized();
+    }
+
     @Test
     void testAuthorizeFails() throws Exception {
         LoginVM login = new LoginVM();
@@ -106,4 +191,16 @@ class UserJWTControllerIT {
             .jsonPath("$.id_token")
             .doesNotExist();
     }
+
+    private WebTestClient.ResponseSpec authorize(String username, String password) throws Exception {
+        LoginVM login = new LoginVM();
+        login.setUsername(username);
+        login.setPassword(password);
+        return webTestClient
+            .post()
+            .uri("/api/authenticate")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(login))
+            .exchange();
+    }
 }
@@ -12,6 +12,7 @@ import fr.lalourche.hellojhipster.gateway.repository.UserRepository;
 import fr.lalourche.hellojhipster.gateway.repository.search.UserSearchRepository;
 import fr.lalourche.hellojhipster.gateway.security.AuthoritiesConstants;
 import fr.lalourche.hellojhipster.gateway.service.EntityManager;
+import fr.lalourche.hellojhipster.gateway.service.UserCache;
 import fr.lalourche.hellojhipster.gateway.service.dto.AdminUserDTO;
 import fr.lalourche.hellojhipster.gateway.service.dto.UserDTO;
 import fr.lalourche.hellojhipster.gateway.service.mapper.UserMapper;
@@ -63,6 +64,9 @@ class UserResourceIT {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserCache userCache;
+
     @Autowired
     private AuthorityRepository authorityRepository;
 
@@ -131,6 +135,7 @@ class UserResourceIT {
 
     @BeforeEach
     public void initTest() {
+        userCache.clear();
         user = initTestUser(userRepository, em);
     }
 
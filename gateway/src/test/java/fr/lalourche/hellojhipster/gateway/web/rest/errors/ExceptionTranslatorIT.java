@@ -36,6 +36,21 @@ class ExceptionTranslatorIT {
             .isEqualTo(ErrorConstants.ERR_CONCURRENCY_FAILURE);
     }
 
+    @Test
+    void testRejectedExecution() {
+        webTestClient
+            .get()
+            .uri("/api/exception-translator-test/rejected-execution")
+            .exchange()
+            .expectStatus()
+            .isEqualTo(HttpStatus.SERVICE_UNAVAILABLE)
+            .expectHeader()
+            .contentType(MediaType.APPLICATION_PROBLEM_JSON)
+            .expectBody()
+            .jsonPath("$.message")
+            .isEqualTo(ErrorConstants.ERR_OVERLOADED);
+    }
+
     @Test
     void testMethodArgumentNotValid() {
         webTestClient
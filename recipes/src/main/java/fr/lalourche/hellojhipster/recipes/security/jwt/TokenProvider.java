@@ -6,6 +6,7 @@ import io.jsonwebtoken.security.Keys;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,6 +26,8 @@ public class TokenProvider {
 
     private static final String AUTHORITIES_KEY = "auth";
 
+    private static final int MAX_AUTHORITY_SETS = 1000;
+
     private final Key key;
 
     private final JwtParser jwtParser;
@@ -33,6 +36,8 @@ public class TokenProvider {
 
     private final long tokenValidityInMillisecondsForRememberMe;
 
+    private final Map<String, Collection<GrantedAuthority>> authoritiesByClaim = new ConcurrentHashMap<>();
+
     public TokenProvider(JHipsterProperties jHipsterProperties) {
         byte[] keyBytes;
         String secret = jHipsterProperties.getSecurity().getAuthentication().getJwt().getSecret();
@@ -74,19 +79,35 @@ public class TokenProvider {
     }
 
     public Authentication getAuthentication(String token) {
-        Claims claims = jwtParser.parseClaimsJws(token).getBody();
+        return createAuthentication(jwtParser.parseClaimsJws(token).getBody(), token);
+    }
 
-        Collection<? extends GrantedAuthority> authorities = Arrays
-            .stream(claims.get(AUTHORITIES_KEY).toString().split(","))
-            .filter(auth -> !auth.trim().isEmpty())
-            .map(SimpleGrantedAuthority::new)
-            .collect(Collectors.toList());
+    Authentication createAuthentication(Claims claims, String token) {
+        Collection<GrantedAuthority> authorities = getAuthorities(claims.get(AUTHORITIES_KEY).toString());
 
         User principal = new User(claims.getSubject(), "", authorities);
 
         return new UsernamePasswordAuthenticationToken(principal, token, authorities);
     }
 
+    // the tokens carry a handful of combinations of authorities, each parsed once into a collection shared by its tokens
+    private Collection<GrantedAuthority> getAuthorities(String claim) {
+        Collection<GrantedAuthority> authorities = authoritiesByClaim.get(claim);
+        if (authorities == null) {
+            authorities =
+                Arrays
+                    .stream(claim.split(","))
+                    .filter(auth -> !auth.trim().isEmpty())
+                    .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+                    .collect(Collectors.toUnmodifiableList());
+            if (authoritiesByClaim.size() >= MAX_AUTHORITY_SETS) {
+                authoritiesByClaim.clear();
+            }
+            authoritiesByClaim.put(claim, authorities);
+        }
+        return authorities;
+    }
+
     public boolean validateToken(String authToken) {
         try {
             jwtParser.parseClaimsJws(authToken);
@@ -0,0 +1,4 @@
+/**
+ * Servlet filters.
+ */
+package fr.lalourche.hellojhipster.recipes.web.filter;
@@ -2,16 +2,21 @@ package fr.lalourche.hellojhipster.recipes.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import fr.lalourche.hellojhipster.recipes.IntegrationTest;
 import fr.lalourche.hellojhipster.recipes.domain.Recipe;
 import fr.lalourche.hellojhipster.recipes.domain.enumeration.Cooking;
 import fr.lalourche.hellojhipster.recipes.repository.RecipeRepository;
 import fr.lalourche.hellojhipster.recipes.repository.search.RecipeSearchRepository;
+import fr.lalourche.hellojhipster.recipes.web.filter.GatewayCacheFilter;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -27,6 +32,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -248,6 +254,8 @@ class RecipeResourceIT {
             .perform(get(ENTITY_API_URL_ID, recipe.getId()))
             .andExpect(status().isOk())
             .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(header().string(GatewayCacheFilter.TIME_TO_LIVE_HEADER, "30"))
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("no-store")))
             .andExpect(jsonPath("$.id").value(recipe.getId().intValue()))
             .andExpect(jsonPath("$.name").value(DEFAULT_NAME))
             .andExpect(jsonPath("$.cooking").value(DEFAULT_COOKING.toString()))
@@ -256,6 +264,41 @@ class RecipeResourceIT {
             .andExpect(jsonPath("$.picture").value(Base64Utils.encodeToString(DEFAULT_PICTURE)));
     }
 
+    @Test
+    @Transactional
+    void getRecipeAsCborAndSmile() throws Exception {
+        // Initialize the database
+        recipeRepository.saveAndFlush(recipe);
+
+        // Get the recipe in CBOR, whose picture is written as raw bytes
+        byte[] body = restRecipeMockMvc
+            .perform(get(ENTITY_API_URL_ID, recipe.getId()).accept(MediaType.APPLICATION_CBOR))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+            .andReturn()
+            .getResponse()
+            .getContentAsByteArray();
+        Recipe cborRecipe = new ObjectMapper(new CBORFactory()).readValue(body, Recipe.class);
+        assertThat(cborRecipe.getId()).isEqualTo(recipe.getId());
+        assertThat(cborRecipe.getName()).isEqualTo(DEFAULT_NAME);
+        assertThat(cborRecipe.getPicture()).isEqualTo(DEFAULT_PICTURE);
+
+        // Get the recipe in Smile
+        MediaType smile = MediaType.parseMediaType("application/x-jackson-smile");
+        body =
+            restRecipeMockMvc
+                .perform(get(ENTITY_API_URL_ID, recipe.getId()).accept(smile))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(smile))
+                .andReturn()
+                .getResponse()
+                .getContentAsByteArray();
+        Recipe smileRecipe = new ObjectMapper(new SmileFactory()).readValue(body, Recipe.class);
+        assertThat(smileRecipe.getId()).isEqualTo(recipe.getId());
+        assertThat(smileRecipe.getName()).isEqualTo(DEFAULT_NAME);
+        assertThat(smileRecipe.getPicture()).isEqualTo(DEFAULT_PICTURE);
+    }
+
     @Test
     @Transactional
     void getNonExistingRecipe() throws Exception {
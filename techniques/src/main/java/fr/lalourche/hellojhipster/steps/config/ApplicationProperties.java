@@ -1,5 +1,6 @@
 package fr.lalourche.hellojhipster.steps.config;
 
+import java.time.Duration;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 /**
@@ -9,4 +10,28 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  * See {@link tech.jhipster.config.JHipsterProperties} for a good example.
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
-public class ApplicationProperties {}
+public class ApplicationProperties {
+
+    private final GatewayCache gatewayCache = new GatewayCache();
+
+    public GatewayCache getGatewayCache() {
+        return gatewayCache;
+    }
+
+    public static class GatewayCache {
+
+        /**
+         * Time the responses to the {@code GET} requests of the API may be kept by the gateway, sent in the private
+         * {@code X-Gateway-Cache-TTL} header; 0 to keep them out of its cache.
+         */
+        private Duration timeToLive = Duration.ofSeconds(30);
+
+        public Duration getTimeToLive() {
+            return timeToLive;
+        }
+
+        public void setTimeToLive(Duration timeToLive) {
+            this.timeToLive = timeToLive;
+        }
+    }
+}
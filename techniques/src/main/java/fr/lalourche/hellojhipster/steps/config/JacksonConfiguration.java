@@ -1,9 +1,15 @@
 package fr.lalourche.hellojhipster.steps.config;
 
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.zalando.problem.ProblemModule;
 import org.zalando.problem.violations.ConstraintViolationProblemModule;
 
@@ -39,4 +45,28 @@ public class JacksonConfiguration {
     public ConstraintViolationProblemModule constraintViolationProblemModule() {
         return new ConstraintViolationProblemModule();
     }
+
+    /**
+     * CBOR ({@code application/cbor}), negotiated by the {@code Accept} header, with the configuration and modules of
+     * the JSON mapper: the binary fields are written as raw bytes rather than base64-encoded.
+     * @param objectMapperBuilder the builder of the JSON mapper.
+     * @return the corresponding message converter.
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        return new MappingJackson2CborHttpMessageConverter(objectMapperBuilder.factory(new CBORFactory()).build());
+    }
+
+    /**
+     * Smile ({@code application/x-jackson-smile}), negotiated by the {@code Accept} header, with the configuration and
+     * modules of the JSON mapper: the binary fields are written as raw bytes rather than 7-bit encoded, which Smile only
+     * needs to be embedded in text.
+     * @param objectMapperBuilder the builder of the JSON mapper.
+     * @return the corresponding message converter.
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        SmileFactory smileFactory = SmileFactory.builder().disable(SmileGenerator.Feature.ENCODE_BINARY_AS_7BIT).build();
+        return new MappingJackson2SmileHttpMessageConverter(objectMapperBuilder.factory(smileFactory).build());
+    }
 }
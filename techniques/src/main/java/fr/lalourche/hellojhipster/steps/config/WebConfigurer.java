@@ -1,9 +1,11 @@
 package fr.lalourche.hellojhipster.steps.config;
 
+import fr.lalourche.hellojhipster.steps.web.filter.GatewayCacheFilter;
 import javax.servlet.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.web.server.*;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.boot.web.servlet.ServletContextInitializer;
 import org.springframework.boot.web.servlet.server.ConfigurableServletWebServerFactory;
 import org.springframework.context.annotation.Bean;
@@ -57,4 +59,13 @@ public class WebConfigurer implements ServletContextInitializer {
         }
         return new CorsFilter(source);
     }
+
+    @Bean
+    public FilterRegistrationBean<GatewayCacheFilter> gatewayCacheFilter(ApplicationProperties applicationProperties) {
+        FilterRegistrationBean<GatewayCacheFilter> registration = new FilterRegistrationBean<>(
+            new GatewayCacheFilter(applicationProperties.getGatewayCache().getTimeToLive())
+        );
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
 }
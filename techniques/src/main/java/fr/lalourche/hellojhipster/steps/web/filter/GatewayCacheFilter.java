@@ -0,0 +1,39 @@
+package fr.lalourche.hellojhipster.steps.web.filter;
+
+import java.io.IOException;
+import java.time.Duration;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Lets the gateway keep the responses to the {@code GET} requests for a while, with a private
+ * {@value #TIME_TO_LIVE_HEADER} header, in seconds, which the gateway removes from the responses it sends to the
+ * clients. The {@code Cache-Control} header is left to Spring Security, so the clients, the browsers and the other
+ * caches still don't store the responses, which may be specific to the caller.
+ */
+public class GatewayCacheFilter extends OncePerRequestFilter {
+
+    public static final String TIME_TO_LIVE_HEADER = "X-Gateway-Cache-TTL";
+
+    private final String timeToLive;
+
+    public GatewayCacheFilter(Duration timeToLive) {
+        this.timeToLive = Long.toString(timeToLive.toSeconds());
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.GET.matches(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        response.setHeader(TIME_TO_LIVE_HEADER, timeToLive);
+        filterChain.doFilter(request, response);
+    }
+}
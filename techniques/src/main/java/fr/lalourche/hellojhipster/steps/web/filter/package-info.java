@@ -0,0 +1,4 @@
+/**
+ * Servlet filters.
+ */
+package fr.lalourche.hellojhipster.steps.web.filter;
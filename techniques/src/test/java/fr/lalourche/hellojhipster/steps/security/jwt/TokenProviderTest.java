@@ -83,6 +83,17 @@ class TokenProviderTest {
         assertThat(isTokenValid).isFalse();
     }
 
+    @Test
+    void testAuthoritiesAreSharedByTheTokens() {
+        Authentication authentication = createAuthentication();
+
+        Authentication first = tokenProvider.getAuthentication(tokenProvider.createToken(authentication, false));
+        Authentication second = tokenProvider.getAuthentication(tokenProvider.createToken(authentication, true));
+
+        assertThat(second.getAuthorities()).hasSize(1);
+        assertThat(second.getAuthorities().iterator().next()).isSameAs(first.getAuthorities().iterator().next());
+    }
+
     @Test
     void testKeyIsSetFromSecretWhenSecretIsNotEmpty() {
         final String secret = "NwskoUmKHZtzGRKJKVjsJF7BtQMMxNWi";
@@ -2,15 +2,20 @@ package fr.lalourche.hellojhipster.steps.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import fr.lalourche.hellojhipster.steps.IntegrationTest;
 import fr.lalourche.hellojhipster.steps.domain.Technique;
 import fr.lalourche.hellojhipster.steps.repository.TechniqueRepository;
 import fr.lalourche.hellojhipster.steps.repository.search.TechniqueSearchRepository;
+import fr.lalourche.hellojhipster.steps.web.filter.GatewayCacheFilter;
 import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
@@ -21,6 +26,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -163,10 +169,44 @@ class TechniqueResourceIT {
             .perform(get(ENTITY_API_URL_ID, technique.getId()))
             .andExpect(status().isOk())
             .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(header().string(GatewayCacheFilter.TIME_TO_LIVE_HEADER, "30"))
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("no-store")))
             .andExpect(jsonPath("$.id").value(technique.getId()))
             .andExpect(jsonPath("$.description").value(DEFAULT_DESCRIPTION));
     }
 
+    @Test
+    void getTechniqueAsCborAndSmile() throws Exception {
+        // Initialize the database
+        techniqueRepository.save(technique);
+
+        // Get the technique in CBOR
+        byte[] body = restTechniqueMockMvc
+            .perform(get(ENTITY_API_URL_ID, technique.getId()).accept(MediaType.APPLICATION_CBOR))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+            .andReturn()
+            .getResponse()
+            .getContentAsByteArray();
+        Technique cborTechnique = new ObjectMapper(new CBORFactory()).readValue(body, Technique.class);
+        assertThat(cborTechnique.getId()).isEqualTo(technique.getId());
+        assertThat(cborTechnique.getDescription()).isEqualTo(DEFAULT_DESCRIPTION);
+
+        // Get the technique in Smile
+        MediaType smile = MediaType.parseMediaType("application/x-jackson-smile");
+        body =
+            restTechniqueMockMvc
+                .perform(get(ENTITY_API_URL_ID, technique.getId()).accept(smile))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(smile))
+                .andReturn()
+                .getResponse()
+                .getContentAsByteArray();
+        Technique smileTechnique = new ObjectMapper(new SmileFactory()).readValue(body, Technique.class);
+        assertThat(smileTechnique.getId()).isEqualTo(technique.getId());
+        assertThat(smileTechnique.getDescription()).isEqualTo(DEFAULT_DESCRIPTION);
+    }
+
     @Test
     void getNonExistingTechnique() throws Exception {
         // Get the technique